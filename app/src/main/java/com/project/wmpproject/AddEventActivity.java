@@ -20,21 +20,21 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
+import com.google.firebase.firestore.WriteBatch;
 import com.project.wmpproject.model.Event;
+import com.project.wmpproject.model.EventMapper;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 
 public class AddEventActivity extends AppCompatActivity {
 
     // These are the parts of the screen that the user interacts with
     private EditText titleEditText, descriptionEditText, locationEditText, attendanceLimitEditText;; // Fields to enter event details
+    private EditText counterShardsEditText; // How many shards the check-in counter uses, for busy events
     private ImageView eventImageView; // To display the selected image
     private Button addButton; // Button to add the event
     // Tool for interacting with the database
@@ -69,6 +69,7 @@ public class AddEventActivity extends AppCompatActivity {
         dateEditText = findViewById(R.id.addEventDate);
         timeEditText = findViewById(R.id.addEventTime);
         attendanceLimitEditText = findViewById(R.id.addEventAttendanceLimit);
+        counterShardsEditText = findViewById(R.id.addEventCounterShards);
         locationEditText = findViewById(R.id.addEventLocation);
         eventImageView = findViewById(R.id.addEventImage);
         addButton = findViewById(R.id.addEventButton);
@@ -82,7 +83,8 @@ public class AddEventActivity extends AppCompatActivity {
                 // If the user selects an image, store the image URI and display it
                 Log.d("PhotoPicker", "Selected URI: " + uri);
                 selectedImageUri = uri;
-                eventImageView.setImageURI(uri);
+                // Decoded at the size of the image view, not the full camera size
+                ImageLoader.get().load(uri, eventImageView, this);
             } else {
                 // If no image is selected, log a message
                 Log.d("PhotoPicker", "No media selected");
@@ -156,42 +158,36 @@ public class AddEventActivity extends AppCompatActivity {
 
     // Update the date text field with the formatted date
     private void updateDateEditText() {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        String formattedDate = dateFormat.format(selectedDate.getTime());
+        String formattedDate = EventTime.formatDate(selectedDate.getTimeInMillis());
         dateEditText.setText(formattedDate);
     }
 
     // Update the time text field with the formatted time
     private void updateTimeEditText() {
-        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
-        String formattedTime = timeFormat.format(selectedDate.getTime());
+        String formattedTime = EventTime.formatTime(selectedDate.getTimeInMillis());
         timeEditText.setText(formattedTime);
     }
 
-    // Upload the image to Firebase Storage and then add the event to Firestore
+    // Make the image smaller, then upload it and its small copy for the lists, and add the event to Firestore
     private void uploadImageAndAddEvent() {
-        StorageReference storageRef = FirebaseStorage.getInstance().getReference();
-        // Create a unique name for the image
-        String imageName = "event_" + new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".jpg";
-        StorageReference imageRef = storageRef.child("events/" + imageName);
-
-        // Upload the image to Firebase Storage
-        imageRef.putFile(selectedImageUri)
-                .addOnSuccessListener(taskSnapshot ->
-                        // If the upload is successful, get the download URL of the image
-                        imageRef.getDownloadUrl().addOnSuccessListener(this::addEventToFirestore)
-                )
-                .addOnFailureListener(e -> {
-                    // If there was an error uploading the image, show an error message
-                    Log.w("AddEventActivity", "Error uploading image", e);
-                    Toast.makeText(this, "Error uploading image", Toast.LENGTH_SHORT).show();
-                });
+        // Camera pictures are often many megabytes, this shrinks them in the background
+        new EventImageUploader(this).upload(selectedImageUri, new EventImageUploader.Callback() {
+            @Override
+            public void onUploaded(String imageUrl, String thumbnailUrl) {
+                addEventToFirestore(imageUrl, thumbnailUrl);
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // If the image couldn't be read or uploaded, show an error message
+                Log.w("AddEventActivity", "Error uploading image", error);
+                Toast.makeText(AddEventActivity.this, "Error uploading image", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     // Add the event to Firestore
-    private void addEventToFirestore(Uri uri) {
-        // Get the download URL of the image
-        String imageUrl = uri.toString();
+    private void addEventToFirestore(String imageUrl, String thumbnailUrl) {
         // Get the event details from the text fields
         String title = titleEditText.getText().toString();
         String description = descriptionEditText.getText().toString();
@@ -205,12 +201,23 @@ public class AddEventActivity extends AppCompatActivity {
 
         // Create a new Event object with the details
         Event newEvent = new Event(title, description, dateTime, location, imageUrl, eventId, attendanceLimit);
-
-        // Add the event to the "events" collection in Firestore
-        db.collection("events")
-                .document(eventId)
-                .set(newEvent)
+        // The date in milliseconds, so the feeds can order and filter by it on the server
+        newEvent.setDateTimeMillis(EventTime.parseOrZero(dateTime));
+        // Busy events spread the check-in counter over shards, so check-ins don't wait on each other
+        newEvent.setCounterShards(CheckInService.parseShardCount(counterShardsEditText.getText().toString()));
+
+        // Add the event to the "events" collection in Firestore, and its summary for the lists
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        // The small picture goes in the same write as the rest of the event, a second write costs twice
+        Map<String, Object> eventData = EventMapper.toMap(newEvent);
+        eventData.put(EventSummaries.THUMBNAIL_URL, thumbnailUrl);
+        FirestoreMeter.get().startRun(FirestoreMeter.ADD_EVENT);
+        WriteBatch batch = db.batch();
+        batch.set(eventRef, eventData);
+        EventSummaries.set(batch, db, newEvent, thumbnailUrl);
+        batch.commit()
                 .addOnSuccessListener(aVoid -> {
+                    FirestoreUsage.recordWrites(FirestoreMeter.ADD_EVENT, 2);
                     // If the event is added successfully, show a success message and close the activity
                     Toast.makeText(this, "Event added successfully", Toast.LENGTH_SHORT).show();
                     finish();
@@ -4,6 +4,7 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
 import android.widget.Button;
+import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
 import androidx.annotation.NonNull;
@@ -11,6 +12,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.gms.tasks.OnCompleteListener;
@@ -18,27 +20,25 @@ import com.google.android.gms.tasks.Task;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.google.firebase.firestore.QuerySnapshot;
 import com.project.wmpproject.adapter.AdminEventAdapter;
-import com.project.wmpproject.model.Event;
 
-import java.util.ArrayList;
-import java.util.List;
 public class AdminActivity extends AppCompatActivity {
 
     // This is the list of events that will be shown on the screen
     private RecyclerView eventsRecyclerView;
     // Tool for displaying the list of events (specifically for admins)
     private AdminEventAdapter eventAdapter;
-    // A list to store the events
-    private List<Event> eventList;
-    // Tool for interacting with the database
-    private FirebaseFirestore db;
+    // Keeps the events and the listeners while the screen is rotated or resized
+    private AdminViewModel viewModel;
+
+    // How many rows before the end of the list we start loading the next page
+    private static final int PREFETCH_DISTANCE = 5;
     // Button to add a new event
     private FloatingActionButton addEventButton;
     // Button to sign out
     private Button signOutButton;
+    // Button to bring the data of older versions up to date
+    private Button migrateDataButton;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -51,16 +51,14 @@ public class AdminActivity extends AppCompatActivity {
             return insets;
         });
 
-        // Set up Firebase tools
-        db = FirebaseFirestore.getInstance();
         // Connect the code to the elements in the screen design (activity_admin.xml)
         eventsRecyclerView = findViewById(R.id.eventsRecyclerView);
         addEventButton = findViewById(R.id.addEventButton);
         signOutButton = findViewById(R.id.signOutButton);
+        migrateDataButton = findViewById(R.id.migrateDataButton);
 
-        // Initialize the list of events and the adapter
-        eventList = new ArrayList<>();
-        eventAdapter = new AdminEventAdapter(eventList);
+        // Initialize the adapter, it starts with an empty list
+        eventAdapter = new AdminEventAdapter();
 
         // Set up the RecyclerView to display the list of events
         eventsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
@@ -69,6 +67,9 @@ public class AdminActivity extends AppCompatActivity {
         // Fetch the events from the database
         fetchEvents();
 
+        // Old data is only migrated when the admin asks for it, it reads every event and check-in
+        migrateDataButton.setOnClickListener(v -> migrateData());
+
         // Go to the AddEventActivity when the add event button is clicked
         addEventButton.setOnClickListener(view ->
                 startActivity(new Intent(AdminActivity.this, AddEventActivity.class))
@@ -84,29 +85,44 @@ public class AdminActivity extends AppCompatActivity {
         });
     }
 
-    // Fetch the events from the Firebase database
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Stop loading the pictures of this screen, the listeners are kept by the view model
+        ImageLoader.get().cancelAll(this);
+        FirestoreUsage.warnIfOverBudget("AdminActivity", FirestoreMeter.ADMIN_EVENTS);
+    }
+
+    // Bring the data of older versions of the app up to date, when the admin asks for it.
+    // It reads every event and check-in once, a page at a time, and goes on where it stopped last time.
+    private void migrateData() {
+        migrateDataButton.setEnabled(false);
+        Toast.makeText(this, "Updating old data...", Toast.LENGTH_SHORT).show();
+        new DataMigration(FirebaseFirestore.getInstance()).run()
+                .addOnSuccessListener(this, aVoid -> {
+                    migrateDataButton.setEnabled(true);
+                    Toast.makeText(this, "Old data is up to date", Toast.LENGTH_SHORT).show();
+                    FirestoreUsage.warnIfOverBudget("AdminActivity", FirestoreMeter.MIGRATIONS);
+                })
+                .addOnFailureListener(this, e -> {
+                    Log.w("AdminActivity", "Error updating old data", e);
+                    migrateDataButton.setEnabled(true);
+                    Toast.makeText(this, "Error updating old data, try again to go on", Toast.LENGTH_SHORT).show();
+                });
+    }
+
+    // Get the events from the Firebase database, one page at a time.
+    // The view model keeps them, so a rotated screen shows them without reading them again.
     private void fetchEvents() {
-        db.collection("events").addSnapshotListener((value, error) -> {
-            if (error != null) {
-                // If there's an error, print it to the log
-                Log.w("HomeActivity", "Listen failed.", error);
-                return;
-            }
-
-            // Create a list to store the events
-            List<Event> events = new ArrayList<>();
-            // Go through each event in the database
-            for (QueryDocumentSnapshot document : value) {
-                // Convert the database data to an Event object
-                Event event = document.toObject(Event.class);
-                event.setEventId(document.getId());
-                // Add the event to the list
-                events.add(event);
-            }
-            // Update the adapter with the new list of events
-            eventAdapter.events = events;
-            // Tell the adapter to refresh the list on screen
-            eventAdapter.notifyDataSetChanged();
-        });
+        viewModel = new ViewModelProvider(this).get(AdminViewModel.class);
+        viewModel.getListeners().follow(this);
+        // Give the adapter the new list, only the rows that changed are redrawn
+        viewModel.getEvents().observe(this, eventAdapter::submitList);
+
+        // Load the next page when the user scrolls near the end of the list
+        eventsRecyclerView.addOnScrollListener(new PagingScrollListener(
+                (LinearLayoutManager) eventsRecyclerView.getLayoutManager(), PREFETCH_DISTANCE, viewModel::loadNextPage));
+        // Don't load pictures for rows that fly past while the list is flinging
+        eventsRecyclerView.addOnScrollListener(ImageLoader.get().pauseOnFling(this));
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.project.wmpproject;
+
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModel;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.project.wmpproject.model.Event;
+
+import java.util.List;
+
+// This keeps the events of the admin screen and the pages loaded so far while the screen
+// is rotated or resized, so the new screen shows them without reading them again.
+public class AdminViewModel extends ViewModel {
+
+    // Loads the events one page at a time
+    private final EventPager eventPager;
+    // The events shown in the list
+    private final MutableLiveData<List<Event>> events = new MutableLiveData<>();
+    // Attaches the listeners while the screen is visible, and keeps them through rotations
+    private final ListenerRegistry listeners = new ListenerRegistry();
+
+    public AdminViewModel() {
+        FirestoreEventPageSource source = new FirestoreEventPageSource(FirebaseFirestore.getInstance());
+        // The reads of the admin list are counted apart from the feed
+        source.setFlow(FirestoreMeter.ADMIN_EVENTS);
+        eventPager = new EventPager(source, EventPager.DEFAULT_PAGE_SIZE,
+                FirestoreMeter.get(), FirestoreMeter.ADMIN_EVENTS, new EventPager.Listener() {
+            @Override
+            public void onEventsChanged(List<Event> loaded) {
+                events.setValue(loaded);
+            }
+
+            @Override
+            public void onPageLoaded(int pageNumber, int eventCount, long latencyMs) {
+                // The pager keeps the latencies of the pages, nothing else to do here
+            }
+        });
+        // Only listen to the loaded events while the screen is visible
+        listeners.add(() -> {
+            eventPager.start();
+            return eventPager::stop;
+        });
+    }
+
+    // The events shown in the list
+    public LiveData<List<Event>> getEvents() {
+        return events;
+    }
+
+    // The listeners of the screen, the screen calls follow() on it
+    public ListenerRegistry getListeners() {
+        return listeners;
+    }
+
+    // Load the next page of events
+    public void loadNextPage() {
+        eventPager.loadNextPage();
+    }
+
+    @Override
+    protected void onCleared() {
+        // The screen is gone for good, stop listening
+        listeners.destroy();
+    }
+}
@@ -0,0 +1,246 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Attendance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// This class loads the attendees of an event one page at a time, newest check-in first,
+// so a big event doesn't download thousands of attendees before the first row is drawn.
+// The pages are loaded once with a cursor (the last attendee of the page before). Only the
+// check-ins after the newest attendee of the first page are listened to in real time. They
+// are shown at the top of the list, so the organizer sees new check-ins straight away.
+// The total is counted on the server instead of by downloading everyone.
+// Every start and every page after the first is one run of the flow in the FirestoreMeter.
+// The first start is opening the screen, so the event the screen reads counts for it too.
+public class AttendancePager {
+
+    // Where the attendees come from (Firestore in the app)
+    public interface Source {
+        // Load the newest attendees
+        void loadFirstPage(int pageSize, PageCallback callback);
+        // Load the page of attendees that checked in right before the given one
+        void loadPageBefore(Attendance last, int pageSize, PageCallback callback);
+        // Count the attendees that checked in at the same time as the given one or before
+        void countUpTo(Attendance newest, CountCallback callback);
+        // Listen to the attendees that check in after the given one, newest first (everyone if null).
+        // Each time it is attached, the first changes add everyone again.
+        EventRepository.Registration listenAfter(Attendance newest, ChangesCallback callback);
+    }
+
+    // The source calls this when a page has arrived
+    public interface PageCallback {
+        void onPage(List<Attendance> attendanceList);
+        void onError(Exception error);
+    }
+
+    // The source calls this with the number of attendees
+    public interface CountCallback {
+        void onCount(long count);
+        void onError(Exception error);
+    }
+
+    // The source calls this when attendees checked in after the first page
+    public interface ChangesCallback {
+        void onChanges(List<ListChange<Attendance>> changes);
+        void onError(Exception error);
+    }
+
+    // Screens implement this to show the attendees and how many there are
+    public interface Listener {
+        void onAttendance(AttendanceUpdate update);
+        void onCount(long attendeeCount);
+    }
+
+    // The default number of attendees in one page
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final Source source;
+    private final int pageSize;
+    // Where the runs of the flow are counted
+    private final FirestoreMeter meter;
+    private final String flow;
+    private final Listener listener;
+
+    // The attendees that checked in after the first page was loaded, newest first
+    private final List<Attendance> newArrivals = new ArrayList<>();
+    // The attendees from the pages, newest first
+    private final List<Attendance> loaded = new ArrayList<>();
+    // The newest attendee of the first page, the pages end here and the listener starts here
+    private Attendance newest;
+    // The real-time listener on new check-ins, only set while the pager is started
+    private EventRepository.Registration arrivalsRegistration;
+    // Whether the listener has sent its first changes since it was attached
+    private boolean arrivalsReceived;
+    private boolean started;
+    private boolean firstPageRequested;
+    private boolean firstPageLoaded;
+    // Whether a page after the first one is being loaded right now
+    private boolean loading;
+    // Whether we got a page that was not full, so there is nothing more to load
+    private boolean endReached;
+    // How many attendees checked in up to the newest one of the first page, -1 until it is counted
+    private long countUpToNewest = -1;
+    // Counts the updates, so the list knows whether it saw the one before
+    private int version;
+
+    public AttendancePager(Source source, int pageSize, FirestoreMeter meter, String flow, Listener listener) {
+        this.source = source;
+        this.pageSize = pageSize;
+        this.meter = meter;
+        this.flow = flow;
+        this.listener = listener;
+    }
+
+    // Load the first page if we don't have it yet, and listen to new check-ins
+    public void start() {
+        // Opening the screen, or coming back to it, where the listener reads the new arrivals again
+        meter.startRun(flow);
+        started = true;
+        if (!firstPageRequested) {
+            firstPageRequested = true;
+            loadFirstPage();
+        } else if (firstPageLoaded) {
+            listenToArrivals();
+        }
+    }
+
+    // Stop listening to new check-ins, the loaded attendees are kept
+    public void stop() {
+        started = false;
+        if (arrivalsRegistration != null) {
+            arrivalsRegistration.remove();
+            arrivalsRegistration = null;
+        }
+    }
+
+    // Load the next (older) page, if there is one and we are not loading one already
+    public void loadNextPage() {
+        if (loading || endReached || !firstPageLoaded || loaded.isEmpty()) {
+            return;
+        }
+        loading = true;
+        // Asking for more attendees is one more run
+        meter.startRun(flow);
+        source.loadPageBefore(loaded.get(loaded.size() - 1), pageSize, new PageCallback() {
+            @Override
+            public void onPage(List<Attendance> attendanceList) {
+                loading = false;
+                endReached = attendanceList.size() < pageSize;
+                addPage(attendanceList);
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // Let the user try again by scrolling
+                loading = false;
+            }
+        });
+    }
+
+    // Whether there are no more pages to load
+    public boolean isEndReached() {
+        return endReached;
+    }
+
+    private void loadFirstPage() {
+        source.loadFirstPage(pageSize, new PageCallback() {
+            @Override
+            public void onPage(List<Attendance> attendanceList) {
+                firstPageLoaded = true;
+                endReached = attendanceList.size() < pageSize;
+                newest = attendanceList.isEmpty() ? null : attendanceList.get(0);
+                addPage(attendanceList);
+
+                if (endReached) {
+                    // Everyone is on the first page, there is nothing to count
+                    countUpToNewest = attendanceList.size();
+                    publishCount();
+                } else {
+                    countOnServer();
+                }
+                if (started) {
+                    listenToArrivals();
+                }
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // Try again the next time the screen is started
+                firstPageRequested = false;
+            }
+        });
+    }
+
+    // Count everyone up to the newest attendee of the first page, without downloading them
+    private void countOnServer() {
+        source.countUpTo(newest, new CountCallback() {
+            @Override
+            public void onCount(long count) {
+                countUpToNewest = count;
+                publishCount();
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // The source already logs the error, the count is simply not shown
+            }
+        });
+    }
+
+    private void listenToArrivals() {
+        if (arrivalsRegistration != null) {
+            return;
+        }
+        arrivalsReceived = false;
+        arrivalsRegistration = source.listenAfter(newest, new ChangesCallback() {
+            @Override
+            public void onChanges(List<ListChange<Attendance>> changes) {
+                if (!arrivalsReceived) {
+                    // The first changes after attaching add everyone again,
+                    // so they replace the new arrivals instead of being added to them
+                    arrivalsReceived = true;
+                    newArrivals.clear();
+                    ListChange.applyAll(newArrivals, changes);
+                    publish(null);
+                } else {
+                    // The new arrivals are at the top of the list, so the positions are the same
+                    ListChange.applyAll(newArrivals, changes);
+                    publish(changes);
+                }
+                publishCount();
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // The source already logs the error, keep showing the attendees we have
+            }
+        });
+    }
+
+    // Add a page at the end of the list
+    private void addPage(List<Attendance> page) {
+        int start = newArrivals.size() + loaded.size();
+        List<ListChange<Attendance>> changes = new ArrayList<>();
+        for (int i = 0; i < page.size(); i++) {
+            changes.add(new ListChange<>(ListChange.Type.ADDED, page.get(i), -1, start + i));
+        }
+        loaded.addAll(page);
+        publish(changes);
+    }
+
+    // Give the listener the whole list and what changed, null means show the whole list again
+    private void publish(List<ListChange<Attendance>> changes) {
+        List<Attendance> attendanceList = new ArrayList<>(newArrivals.size() + loaded.size());
+        attendanceList.addAll(newArrivals);
+        attendanceList.addAll(loaded);
+        version++;
+        listener.onAttendance(new AttendanceUpdate(version, attendanceList, changes));
+    }
+
+    private void publishCount() {
+        if (countUpToNewest >= 0) {
+            listener.onCount(countUpToNewest + newArrivals.size());
+        }
+    }
+}
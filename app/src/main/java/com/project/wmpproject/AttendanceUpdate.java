@@ -0,0 +1,30 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Attendance;
+
+import java.util.Collections;
+import java.util.List;
+
+// The attendees of an event after a snapshot, and what changed since the update before it.
+// A list that showed the update before this one only has to apply the changes; any other
+// list (for example the one of a new screen after a rotation) shows the whole list.
+public final class AttendanceUpdate {
+
+    // Counts the updates, so a list knows whether it saw the one before
+    public final int version;
+    // Everyone who checked in that was loaded, the newest check-in first
+    public final List<Attendance> attendance;
+    // The changes since the update before this one, or null if the whole list was read again
+    public final List<ListChange<Attendance>> changes;
+
+    public AttendanceUpdate(int version, List<Attendance> attendance, List<ListChange<Attendance>> changes) {
+        this.version = version;
+        this.attendance = Collections.unmodifiableList(attendance);
+        this.changes = changes != null ? Collections.unmodifiableList(changes) : null;
+    }
+
+    // Whether a list that shows the update with the given version can just apply the changes
+    public boolean followsVersion(int shownVersion) {
+        return changes != null && version == shownVersion + 1;
+    }
+}
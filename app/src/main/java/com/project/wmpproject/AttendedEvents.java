@@ -0,0 +1,44 @@
+package com.project.wmpproject;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.project.wmpproject.model.Event;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// This class keeps a list of the events every user checked in to, in users/{uid}/attendedEvents.
+// The attendance documents are stored under each event, so without this list finding the events
+// of one user means looking through every event. Check-in writes both in the same transaction
+// (see CheckIn, which makes the same fields for a check-in happening now).
+// Each document is a summary of the event (see EventSummaries) plus the check-in time, so the
+// history reads into Event objects and is shown with one query, one page at a time.
+public final class AttendedEvents {
+
+    // The subcollection of the user with the events they checked in to
+    public static final String COLLECTION = "attendedEvents";
+    // When the user checked in, the history is ordered by it
+    public static final String CHECKIN_TIME = "checkinTime";
+
+    private AttendedEvents() {}
+
+    // The document that says the user checked in to the event
+    public static DocumentReference attendedRef(FirebaseFirestore db, String userId, String eventId) {
+        return db.collection("users").document(userId).collection(COLLECTION).document(eventId);
+    }
+
+    // The fields of the document: the summary of the event and when the user checked in
+    public static Map<String, Object> fieldsOf(Event event, String thumbnailUrl, Object checkinTime) {
+        Map<String, Object> fields = new HashMap<>(EventSummaries.fieldsOf(event, thumbnailUrl));
+        fields.put(CHECKIN_TIME, checkinTime);
+        return fields;
+    }
+
+    // The events the user checked in to, the last check-in first.
+    // It only filters inside one user's subcollection, so the single field index is enough.
+    public static Query newestFirst(FirebaseFirestore db, String userId) {
+        return db.collection("users").document(userId).collection(COLLECTION)
+                .orderBy(CHECKIN_TIME, Query.Direction.DESCENDING);
+    }
+}
@@ -0,0 +1,154 @@
+package com.project.wmpproject;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// This class keeps a copy of the username and profile picture of users in their attendance
+// documents. The copy is made when the user checks in, so an attendance list shows everyone
+// without reading a single user document. When a user changes their profile, their attendance
+// documents are updated in the background, a few hundred per batch. Their list of attended
+// events (see AttendedEvents) says which events to update.
+public class AttendeeProfiles {
+
+    // The fields of the user document that are copied, they have the same name in both documents
+    public static final String USERNAME = "username";
+    public static final String PROFILE_IMAGE_URL = "profileImageUrl";
+
+    // Firestore allows at most 500 writes in one batch
+    private static final int MAX_WRITES_PER_BATCH = 450;
+    // The batches are put together away from the main thread, a user may have been to many events
+    private static final Executor BACKGROUND = Executors.newSingleThreadExecutor();
+
+    // The fields to copy into an attendance document
+    public static Map<String, Object> fieldsOf(String username, String profileImageUrl) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(USERNAME, username);
+        fields.put(PROFILE_IMAGE_URL, profileImageUrl);
+        return fields;
+    }
+
+    // The fields to copy into an attendance document, read from the user document
+    public static Map<String, Object> fieldsOf(DocumentSnapshot userDoc) {
+        return fieldsOf(userDoc.getString(USERNAME), userDoc.getString(PROFILE_IMAGE_URL));
+    }
+
+    // Only the changes to a user that are copied into their attendance documents, compared to the
+    // fields the user had before (null if we don't know them). The email, for example, is not
+    // shown in the lists so it is left out, and so is a username that was saved again unchanged.
+    static Map<String, Object> copiedFields(Map<String, Object> before, Map<String, Object> userUpdates) {
+        Map<String, Object> fields = new HashMap<>();
+        for (String field : new String[]{USERNAME, PROFILE_IMAGE_URL}) {
+            if (!userUpdates.containsKey(field)) {
+                continue;
+            }
+            Object value = userUpdates.get(field);
+            if (before == null || !Objects.equals(before.get(field), value)) {
+                fields.put(field, value);
+            }
+        }
+        return fields;
+    }
+
+    // Copy the changes made to a user into every attendance document of that user.
+    // before has the fields the user had when the profile was loaded, see copiedFields().
+    public static Task<Void> fanOut(FirebaseFirestore db, String userId, Map<String, Object> before,
+                                    Map<String, Object> userUpdates) {
+        Map<String, Object> fields = copiedFields(before, userUpdates);
+        if (fields.isEmpty()) {
+            // Nothing that the lists show has changed
+            return Tasks.forResult(null);
+        }
+        // The user's list of attended events says where their attendance documents are.
+        // This reads and writes one document per event the user went to, so it has no budget.
+        FirestoreMeter.get().startRun(FirestoreMeter.PROFILE_FAN_OUT);
+        return db.collection("users").document(userId).collection(AttendedEvents.COLLECTION)
+                .get()
+                .continueWithTask(BACKGROUND, task -> {
+                    FirestoreUsage.recordQuery(FirestoreMeter.PROFILE_FAN_OUT, task.getResult(), true);
+                    List<DocumentReference> documents = new ArrayList<>();
+                    for (QueryDocumentSnapshot attended : task.getResult()) {
+                        documents.add(db.collection("events").document(attended.getId())
+                                .collection("attendance").document(userId));
+                    }
+                    return updateAll(db, documents, fields);
+                });
+    }
+
+    // Write the same fields to all the documents, MAX_WRITES_PER_BATCH documents per batch.
+    // The documents are updated, never created: a check-in from before the attendance documents
+    // had the user's ID as their ID is somewhere else until the event is migrated, and a document
+    // made here would look like a check-in of the user. The migration copies the profile for those.
+    private static Task<Void> updateAll(FirebaseFirestore db, List<DocumentReference> documents,
+                                        Map<String, Object> fields) {
+        List<Task<Integer>> commits = new ArrayList<>();
+        for (int start = 0; start < documents.size(); start += MAX_WRITES_PER_BATCH) {
+            int end = Math.min(start + MAX_WRITES_PER_BATCH, documents.size());
+            commits.add(updateBatch(db, documents.subList(start, end), fields));
+        }
+        return Tasks.whenAllSuccess(commits).continueWith(BACKGROUND, task -> {
+            int writes = 0;
+            for (Object written : task.getResult()) {
+                writes += (Integer) written;
+            }
+            FirestoreUsage.recordWrites(FirestoreMeter.PROFILE_FAN_OUT, writes);
+            return null;
+        });
+    }
+
+    // Update the documents in one batch, and count the writes. One missing document fails the
+    // whole batch, then they are updated one by one and the missing ones are skipped.
+    private static Task<Integer> updateBatch(FirebaseFirestore db, List<DocumentReference> documents,
+                                             Map<String, Object> fields) {
+        WriteBatch batch = db.batch();
+        for (DocumentReference document : documents) {
+            batch.update(document, fields);
+        }
+        return batch.commit().continueWithTask(BACKGROUND, task -> {
+            if (task.isSuccessful()) {
+                return Tasks.forResult(documents.size());
+            }
+            if (!isNotFound(task.getException())) {
+                return Tasks.forException(task.getException());
+            }
+            List<Task<Boolean>> updates = new ArrayList<>();
+            for (DocumentReference document : documents) {
+                updates.add(document.update(fields).continueWithTask(BACKGROUND, update -> {
+                    if (update.isSuccessful()) {
+                        return Tasks.forResult(true);
+                    }
+                    return isNotFound(update.getException())
+                            ? Tasks.forResult(false) : Tasks.<Boolean>forException(update.getException());
+                }));
+            }
+            return Tasks.whenAllSuccess(updates).continueWith(BACKGROUND, all -> {
+                int writes = 0;
+                for (Object updated : all.getResult()) {
+                    if ((Boolean) updated) {
+                        writes++;
+                    }
+                }
+                return writes;
+            });
+        });
+    }
+
+    // Whether the write failed because the document doesn't exist
+    private static boolean isNotFound(Exception error) {
+        return error instanceof FirebaseFirestoreException
+                && ((FirebaseFirestoreException) error).getCode() == FirebaseFirestoreException.Code.NOT_FOUND;
+    }
+}
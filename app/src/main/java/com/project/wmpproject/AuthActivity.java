@@ -13,6 +13,7 @@ import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.HashMap;
@@ -137,6 +138,8 @@ public class AuthActivity extends AppCompatActivity {
                         userData.put("role", "user");
                         db.collection("users").document(userId).set(userData)
                                 .addOnSuccessListener(aVoid -> {
+                                    // New users are never admins, remember that for the next start
+                                    RoleCache.getInstance(this).put(userId, RoleCache.ROLE_USER);
                                     Toast.makeText(AuthActivity.this, "Registration Successful!", Toast.LENGTH_SHORT).show();
                                     // Go to the HomeActivity screen
                                     Intent intent = new Intent(AuthActivity.this, HomeActivity.class);
@@ -158,8 +161,7 @@ public class AuthActivity extends AppCompatActivity {
                 .addOnCompleteListener(this, task -> {
                     if (task.isSuccessful()) {
                         // If login is successful, check the user's role (e.g., admin or regular user)
-                        String userId = task.getResult().getUser().getUid();
-                        checkUserRole(userId);
+                        checkUserRole(task.getResult().getUser());
                     } else {
                         // If login fails, show an error message
                         Toast.makeText(AuthActivity.this, "Login failed: " + task.getException().getMessage(), Toast.LENGTH_SHORT).show();
@@ -167,31 +169,9 @@ public class AuthActivity extends AppCompatActivity {
                 });
     }
 
-    // Check if the user is an admin or a regular user
-    private void checkUserRole(String userId) {
-        db.collection("users").document(userId)
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        if (task.getResult().exists()) {
-                            // If user data is found, get their role
-                            String role = task.getResult().getString("role");
-                            if ("admin".equals(role)) {
-                                // If the user is an admin, go to the AdminActivity screen
-                                startActivity(new Intent(AuthActivity.this, AdminActivity.class));
-                            } else {
-                                // Otherwise, go to the HomeActivity screen
-                                startActivity(new Intent(AuthActivity.this, HomeActivity.class));
-                            }
-                            finish();
-                        } else {
-                            // If user data is not found, show an error message
-                            Toast.makeText(AuthActivity.this, "User data not found", Toast.LENGTH_SHORT).show();
-                        }
-                    } else {
-                        // If there was an error fetching user data, show an error message
-                        Toast.makeText(AuthActivity.this, "Error fetching user data", Toast.LENGTH_SHORT).show();
-                    }
-                });
+    // Check if the user is an admin or a regular user and open the right screen.
+    // The role is saved on the phone, so the next start doesn't have to wait for it.
+    private void checkUserRole(FirebaseUser user) {
+        RoleCache.getInstance(this).route(this, user);
     }
 }
\ No newline at end of file
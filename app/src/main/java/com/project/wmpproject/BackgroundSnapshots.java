@@ -0,0 +1,123 @@
+package com.project.wmpproject;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// This class reads Firestore results on a background thread.
+// Turning documents into objects uses reflection and takes a while for a big snapshot,
+// which made the lists skip frames when it ran on the main thread. Now the documents are mapped,
+// filtered and put in a list on one background thread, and only the finished list is posted to
+// the main thread. There is one thread, so the snapshots of a listener still arrive in order.
+// The reads of every result are counted for its flow in the FirestoreMeter, see FirestoreUsage.
+// A listener that keeps a big state up to date (like the EventRepository) can use listenInBackground()
+// to also get its results on the background thread, and post only what it made of them to the main thread.
+public final class BackgroundSnapshots {
+
+    // Turns a snapshot into what the screen needs, on the background thread.
+    // Return null to skip the snapshot, nothing is posted to the main thread then.
+    public interface Mapper<T> {
+        T map(QuerySnapshot value);
+    }
+
+    // Gets the mapped result on the main thread (or on the background thread, see listenInBackground)
+    public interface Receiver<T> {
+        void onResult(T result);
+        void onError(Exception error);
+    }
+
+    // The thread all snapshots are mapped on
+    private static final Executor BACKGROUND = Executors.newSingleThreadExecutor();
+    // Used to hand the results to the main thread
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+    // Hands the results to the main thread
+    private static final Executor ON_MAIN = MAIN::post;
+    // Hands the results over right where they were mapped, on the background thread
+    private static final Executor ON_BACKGROUND = Runnable::run;
+
+    private BackgroundSnapshots() {}
+
+    // Listen to the query, map every snapshot in the background and hand the result to the main thread.
+    // The name is used for the SnapshotMeter, and the reads are counted for the flow in the FirestoreMeter.
+    public static <T> EventRepository.Registration listen(Query query, String name, String flow,
+                                                          Mapper<T> mapper, Receiver<T> receiver) {
+        return listen(query, name, flow, mapper, receiver, ON_MAIN);
+    }
+
+    // Like listen(), but the receiver is called on the background thread too, in the order of the snapshots.
+    // The receiver must post what it wants to show to the main thread itself.
+    public static <T> EventRepository.Registration listenInBackground(Query query, String name, String flow,
+                                                                      Mapper<T> mapper, Receiver<T> receiver) {
+        return listen(query, name, flow, mapper, receiver, ON_BACKGROUND);
+    }
+
+    private static <T> EventRepository.Registration listen(Query query, String name, String flow,
+                                                           Mapper<T> mapper, Receiver<T> receiver,
+                                                           Executor delivery) {
+        // Set when the listener is removed, results that were on their way are dropped
+        AtomicBoolean removed = new AtomicBoolean();
+        // The first snapshot from the server pays for every document, the ones after it only for the changes.
+        // Only used on the background thread.
+        FirestoreMeter.ListenerReads reads = FirestoreUsage.listenerReads(flow);
+        ListenerRegistration registration = query.addSnapshotListener(BACKGROUND, (value, error) -> {
+            if (error != null) {
+                delivery.execute(() -> {
+                    if (!removed.get()) {
+                        receiver.onError(error);
+                    }
+                });
+                return;
+            }
+            reads.record(FirestoreUsage.resultOf(value));
+            deliver(value, name, mapper, receiver, removed, delivery);
+        });
+        return () -> {
+            removed.set(true);
+            registration.remove();
+        };
+    }
+
+    // Read the query once, map the result in the background and hand it to the main thread
+    public static <T> void get(Query query, Source source, String name, String flow,
+                               Mapper<T> mapper, Receiver<T> receiver) {
+        query.get(source)
+                .addOnSuccessListener(BACKGROUND, value -> {
+                    FirestoreUsage.recordQuery(flow, value, true);
+                    deliver(value, name, mapper, receiver, new AtomicBoolean(), ON_MAIN);
+                })
+                .addOnFailureListener(receiver::onError);
+    }
+
+    // Map the snapshot here, and hand the result to the receiver (usually on the main thread)
+    private static <T> void deliver(QuerySnapshot value, String name, Mapper<T> mapper, Receiver<T> receiver,
+                                    AtomicBoolean removed, Executor delivery) {
+        long mappingStart = System.nanoTime();
+        T result = mapper.map(value);
+        long mappingNanos = System.nanoTime() - mappingStart;
+        if (result == null) {
+            return;
+        }
+        delivery.execute(() -> {
+            if (removed.get()) {
+                return;
+            }
+            long receiverStart = System.nanoTime();
+            receiver.onResult(result);
+            long receiverNanos = System.nanoTime() - receiverStart;
+            if (delivery == ON_MAIN) {
+                SnapshotMeter.get().record(name, mappingNanos, receiverNanos);
+            } else {
+                // The receiver ran in the background too, the main thread spent nothing on this snapshot
+                SnapshotMeter.get().record(name, mappingNanos + receiverNanos, 0);
+            }
+        });
+    }
+}
@@ -0,0 +1,333 @@
+package com.project.wmpproject;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+// This class checks users in to events in Firestore. The steps of the check-in transaction
+// and the shards are in CheckIn (in :core), this gives it the Firestore transactions and the
+// migration of old events, so the load test runs the same check-in against its FakeFirestore.
+// It also resizes the counter shards of an event for the admin.
+// The reads and writes are counted in the FirestoreMeter, a check-in under the "check in" flow.
+public class CheckInService {
+
+    // Firestore allows at most 500 writes in one batch
+    private static final int MAX_WRITES_PER_BATCH = 450;
+    // The fields on the event of the one check-in that migrates it, and since when
+    static final String MIGRATION_CLAIM = "migrationClaim";
+    static final String MIGRATION_CLAIMED_AT = "migrationClaimedAt";
+    // A claim this old belongs to a migration that never finished, the app was closed for example
+    private static final long CLAIM_TIMEOUT_MILLIS = 10 * 60 * 1000;
+
+    // What the claim transaction found on the event
+    private enum Claim {
+        // We may migrate the event
+        CLAIMED,
+        // Someone else is migrating it right now
+        BUSY,
+        // It was migrated already, or it is gone
+        DONE
+    }
+
+    // Tool for interacting with the database
+    private final FirebaseFirestore db;
+    // Used to pick the shard a check-in starts with
+    private final Random random = new Random();
+    // The check-in steps, run against Firestore
+    private final CheckIn checkIns;
+
+    public CheckInService(FirebaseFirestore db) {
+        this.db = db;
+        this.checkIns = new CheckIn(new FirestoreStore(), FirestoreMeter.get());
+    }
+
+    // Check the user in to the event, if they are not checked in yet and the event is not full
+    public void checkIn(String eventId, String userId, CheckIn.Callback callback) {
+        // Busy events spread their counter over shards, start at a random one so users don't collide
+        checkIns.checkIn(eventId, userId, random.nextInt(CheckIn.MAX_SHARDS), callback);
+    }
+
+    // Runs the transactions of CheckIn in Firestore
+    private class FirestoreStore implements CheckIn.Store {
+        @Override
+        public void runTransaction(CheckIn.TransactionFunction function, CheckIn.Callback callback) {
+            db.runTransaction(transaction -> {
+                try {
+                    return function.apply(new FirestoreTransaction(transaction));
+                } catch (FirebaseFirestoreException | RuntimeException e) {
+                    // Firestore runs the transaction again for some of its own errors
+                    throw e;
+                } catch (Exception e) {
+                    // FirestoreTransaction only throws what Firestore throws
+                    throw new IllegalStateException(e);
+                }
+            }).addOnSuccessListener(callback::onResult).addOnFailureListener(e -> {
+                Log.w("CheckInService", "Error checking in", e);
+                callback.onError(e);
+            });
+        }
+
+        @Override
+        public void migrate(String eventId, CheckIn.MigrationCallback callback) {
+            CheckInService.this.migrate(db.collection("events").document(eventId), callback);
+        }
+    }
+
+    // One run of a Firestore transaction, with the documents by path
+    private class FirestoreTransaction implements CheckIn.Transaction {
+        private final Transaction transaction;
+
+        FirestoreTransaction(Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public Map<String, Object> get(String path) throws FirebaseFirestoreException {
+            DocumentSnapshot document = transaction.get(db.document(path));
+            return document.exists() ? document.getData() : null;
+        }
+
+        @Override
+        public void set(String path, Map<String, Object> data) {
+            transaction.set(db.document(path), data);
+        }
+
+        @Override
+        public void merge(String path, Map<String, Object> fields) {
+            transaction.set(db.document(path), fields, SetOptions.merge());
+        }
+
+        @Override
+        public Object serverTimestamp() {
+            return FieldValue.serverTimestamp();
+        }
+    }
+
+    // Change how many shards the event's counter is spread over.
+    // The old shards are added to the counter on the event document and emptied, all in one
+    // transaction, so no check-in is lost and the limit still holds with the new number of shards.
+    // An event without a counter is migrated first, like a check-in would, so its attendance is
+    // under the user IDs and counted before the shards are changed.
+    public Task<Void> resizeShards(String eventId, int newShardCount) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        FirestoreMeter.get().startRun(FirestoreMeter.RESIZE_SHARDS);
+        return resizeOnce(eventRef, newShardCount).continueWithTask(task -> {
+            if (task.getResult()) {
+                return Tasks.<Void>forResult(null);
+            }
+            TaskCompletionSource<Void> migrated = new TaskCompletionSource<>();
+            migrate(eventRef, new CheckIn.MigrationCallback() {
+                @Override
+                public void onMigrated() {
+                    migrated.setResult(null);
+                }
+
+                @Override
+                public void onBusy() {
+                    migrated.setException(new IllegalStateException("The event is being migrated, try again in a moment"));
+                }
+
+                @Override
+                public void onError(Exception error) {
+                    migrated.setException(error);
+                }
+            });
+            return migrated.getTask()
+                    .onSuccessTask(aVoid -> resizeOnce(eventRef, newShardCount))
+                    .onSuccessTask(resized -> resized
+                            ? Tasks.<Void>forResult(null)
+                            : Tasks.<Void>forException(new IllegalStateException("The event could not be migrated")));
+        });
+    }
+
+    // Move the shards over in one transaction. Returns false without writing anything if the
+    // event has no counter yet, or someone is migrating it.
+    private Task<Boolean> resizeOnce(DocumentReference eventRef, int newShardCount) {
+        int[] writes = {0};
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot eventDoc = transaction.get(eventRef);
+            if (!eventDoc.contains("attendeeCount") || eventDoc.contains(MIGRATION_CLAIM)) {
+                // Counting now would mark the event migrated with the attendance still under random IDs
+                FirestoreMeter.get().recordReads(FirestoreMeter.RESIZE_SHARDS, 1, 0);
+                writes[0] = 0;
+                return false;
+            }
+            int oldShardCount = (int) Math.max(1, getLong(eventDoc, "counterShards"));
+            long attendeeCount = getLong(eventDoc, "attendeeCount");
+
+            // All reads have to happen before any write in a transaction
+            List<DocumentReference> shardRefs = new ArrayList<>();
+            for (int shard = 0; shard < oldShardCount; shard++) {
+                DocumentReference shardRef = shardRef(eventRef.getId(), shard);
+                attendeeCount += getLong(transaction.get(shardRef), CheckIn.SHARD_COUNT);
+                shardRefs.add(shardRef);
+            }
+            for (DocumentReference shardRef : shardRefs) {
+                transaction.delete(shardRef);
+            }
+
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("attendeeCount", attendeeCount);
+            updates.put("counterShards", Math.max(1, Math.min(CheckIn.MAX_SHARDS, newShardCount)));
+            transaction.update(eventRef, updates);
+            FirestoreMeter.get().recordReads(FirestoreMeter.RESIZE_SHARDS, 1 + oldShardCount, 0);
+            writes[0] = shardRefs.size() + 1;
+            return true;
+        }).addOnSuccessListener(resized -> FirestoreUsage.recordWrites(FirestoreMeter.RESIZE_SHARDS, writes[0]));
+    }
+
+    // Read the number of shards the admin typed in, anything missing or invalid means no shards
+    public static int parseShardCount(String text) {
+        try {
+            return Math.max(1, Math.min(CheckIn.MAX_SHARDS, Integer.parseInt(text.trim())));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    // The document that holds one shard of the event's counter
+    private DocumentReference shardRef(String eventId, int shard) {
+        return db.document(CheckIn.shardPath(eventId, shard));
+    }
+
+    // Events created before the counter existed have attendance documents with random IDs.
+    // This runs once per event: it moves every attendance document to the user's ID
+    // and stores how many different users have checked in.
+    // Only one check-in may migrate an event. It claims the event in a transaction first, the
+    // others are told it is busy and end with NEEDS_MIGRATION. No check-in can go through before the counter exists, so
+    // the attendance can't change while it is moved, and the counter is set in a transaction
+    // at the end, only if the claim is still ours.
+    private void migrate(DocumentReference eventRef, CheckIn.MigrationCallback callback) {
+        String claim = UUID.randomUUID().toString();
+        db.runTransaction(transaction -> {
+            DocumentSnapshot eventDoc = transaction.get(eventRef);
+            FirestoreUsage.recordDocument(FirestoreMeter.MIGRATIONS, eventDoc);
+            if (!eventDoc.exists() || eventDoc.contains("attendeeCount")) {
+                return Claim.DONE;
+            }
+            Long claimedAt = eventDoc.getLong(MIGRATION_CLAIMED_AT);
+            if (claimedAt != null && System.currentTimeMillis() - claimedAt < CLAIM_TIMEOUT_MILLIS) {
+                return Claim.BUSY;
+            }
+            Map<String, Object> claimFields = new HashMap<>();
+            claimFields.put(MIGRATION_CLAIM, claim);
+            claimFields.put(MIGRATION_CLAIMED_AT, System.currentTimeMillis());
+            transaction.update(eventRef, claimFields);
+            return Claim.CLAIMED;
+        }).addOnSuccessListener(state -> {
+            if (state == Claim.CLAIMED) {
+                FirestoreUsage.recordWrites(FirestoreMeter.MIGRATIONS, 1);
+                moveAttendance(eventRef, claim, callback);
+            } else if (state == Claim.BUSY) {
+                callback.onBusy();
+            } else {
+                // Migrated already, the check-in sees the counter now
+                callback.onMigrated();
+            }
+        }).addOnFailureListener(callback::onError);
+    }
+
+    // Move the attendance documents of a claimed event to the user IDs, then set the counter
+    private void moveAttendance(DocumentReference eventRef, String claim, CheckIn.MigrationCallback callback) {
+        eventRef.collection("attendance").get()
+                .addOnSuccessListener(value -> {
+                    FirestoreUsage.recordQuery(FirestoreMeter.MIGRATIONS, value, true);
+                    // A batch can hold at most 500 writes, so start a new one before it gets full
+                    List<WriteBatch> batches = new ArrayList<>();
+                    WriteBatch batch = db.batch();
+                    int writesInBatch = 0;
+                    int writes = 0;
+                    Set<String> userIds = new HashSet<>();
+                    for (QueryDocumentSnapshot document : value) {
+                        String userId = document.getString("userId");
+                        if (userId == null || document.getId().equals(userId)) {
+                            if (userId != null) {
+                                userIds.add(userId);
+                            }
+                            continue;
+                        }
+                        if (writesInBatch >= MAX_WRITES_PER_BATCH) {
+                            batches.add(batch);
+                            batch = db.batch();
+                            writesInBatch = 0;
+                        }
+                        // Keep the first check-in of each user, under their user ID
+                        if (userIds.add(userId)) {
+                            batch.set(eventRef.collection("attendance").document(userId), document.getData());
+                            writesInBatch++;
+                            writes++;
+                        }
+                        batch.delete(document.getReference());
+                        writesInBatch++;
+                        writes++;
+                    }
+                    batches.add(batch);
+                    FirestoreUsage.recordWrites(FirestoreMeter.MIGRATIONS, writes);
+
+                    List<Task<Void>> commits = new ArrayList<>();
+                    for (WriteBatch toCommit : batches) {
+                        commits.add(toCommit.commit());
+                    }
+                    long attendeeCount = userIds.size();
+                    Tasks.whenAll(commits)
+                            .continueWithTask(task -> {
+                                if (!task.isSuccessful()) {
+                                    return Tasks.<Void>forException(task.getException());
+                                }
+                                return finishMigration(eventRef, claim, attendeeCount);
+                            })
+                            .addOnSuccessListener(aVoid -> callback.onMigrated())
+                            .addOnFailureListener(callback::onError);
+                })
+                .addOnFailureListener(callback::onError);
+    }
+
+    // Set the counter and drop the claim, but only if nobody took the claim over in the meantime
+    private Task<Void> finishMigration(DocumentReference eventRef, String claim, long attendeeCount) {
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot eventDoc = transaction.get(eventRef);
+            FirestoreUsage.recordDocument(FirestoreMeter.MIGRATIONS, eventDoc);
+            if (!eventDoc.exists() || eventDoc.contains("attendeeCount")
+                    || !claim.equals(eventDoc.getString(MIGRATION_CLAIM))) {
+                return false;
+            }
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("attendeeCount", attendeeCount);
+            updates.put(MIGRATION_CLAIM, FieldValue.delete());
+            updates.put(MIGRATION_CLAIMED_AT, FieldValue.delete());
+            transaction.update(eventRef, updates);
+            return true;
+        }).onSuccessTask(wrote -> {
+            if (wrote) {
+                FirestoreUsage.recordWrites(FirestoreMeter.MIGRATIONS, 1);
+            }
+            return Tasks.forResult(null);
+        });
+    }
+
+    // Read a number from the document, or 0 if it is missing
+    private static long getLong(DocumentSnapshot document, String field) {
+        Long value = document.getLong(field);
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,249 @@
+package com.project.wmpproject;
+
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+import com.project.wmpproject.model.Event;
+import com.project.wmpproject.model.EventMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// This class brings the data written by older versions of the app up to date. The admin starts
+// it by hand from the admin screen, it is not run when a screen opens. Events that a screen
+// reads before that are brought up to date right away (see FirestoreEvents.backfill).
+// It goes through the events and then through every attendance document, one page at a time:
+//  - an event gets its date in milliseconds (see FirestoreEvents) and its summary (EventSummaries)
+//  - a check-in gets an entry in the user's attendedEvents (AttendedEvents) and a copy of the
+//    user's name and picture (AttendeeProfiles)
+// So every attendance document is read once, and only one page is in memory at a time.
+// Where it got to is saved in the document migrations/data, in the same batch as the writes of
+// the page. If the app is closed it goes on from there the next time, on any admin's phone, and
+// once it is done it only reads that one document. Every write only sets what the document
+// should have anyway, so a page that runs twice does no harm.
+public final class DataMigration {
+
+    // The document with how far the migration got
+    static final String PROGRESS_DOCUMENT = "migrations/data";
+    // Its fields: the step it is in and the last document done in that step
+    static final String STEP = "step";
+    static final String CURSOR = "cursor";
+    // The steps, in order
+    static final String STEP_EVENTS = "events";
+    static final String STEP_ATTENDANCE = "attendance";
+    static final String STEP_DONE = "done";
+
+    // Documents per page. A document makes at most two writes, so a page and the progress
+    // stay under the 500 writes Firestore allows in one batch.
+    static final int PAGE_SIZE = 200;
+    // How many events the attendance pages keep, so popular events aren't read for every page
+    private static final int EVENT_CACHE_SIZE = 1000;
+
+    // The pages are put together away from the main thread
+    private static final Executor BACKGROUND = Executors.newSingleThreadExecutor();
+
+    // Tool for interacting with the database
+    private final FirebaseFirestore db;
+    // The events read for the attendance pages, the least recently used one is dropped first
+    private final Map<String, DocumentSnapshot> eventCache =
+            new LinkedHashMap<String, DocumentSnapshot>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, DocumentSnapshot> eldest) {
+                    return size() > EVENT_CACHE_SIZE;
+                }
+            };
+
+    public DataMigration(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    // Run the migration from where it stopped last time, the task finishes when it is done
+    public Task<Void> run() {
+        FirestoreMeter.get().startRun(FirestoreMeter.MIGRATIONS);
+        return progressRef().get().continueWithTask(BACKGROUND, task -> {
+            DocumentSnapshot progress = task.getResult();
+            FirestoreUsage.recordDocument(FirestoreMeter.MIGRATIONS, progress);
+            String step = progress.getString(STEP);
+            return nextPage(step != null ? step : STEP_EVENTS, progress.getString(CURSOR));
+        });
+    }
+
+    private DocumentReference progressRef() {
+        return db.document(PROGRESS_DOCUMENT);
+    }
+
+    // Migrate the page after the cursor, save the progress with it and go on with the next page
+    private Task<Void> nextPage(String step, String cursor) {
+        if (STEP_DONE.equals(step)) {
+            return Tasks.forResult(null);
+        }
+        boolean events = STEP_EVENTS.equals(step);
+        // Ordered by the document, so the page after the last one is easy to find again.
+        // In a collection group the cursor is the whole path of the document.
+        Query query = events ? db.collection("events") : db.collectionGroup("attendance");
+        query = query.orderBy(FieldPath.documentId());
+        if (cursor != null) {
+            query = query.startAfter(cursor);
+        }
+        return query.limit(PAGE_SIZE).get().continueWithTask(BACKGROUND, pageTask -> {
+            QuerySnapshot value = pageTask.getResult();
+            FirestoreUsage.recordQuery(FirestoreMeter.MIGRATIONS, value, true);
+            List<DocumentSnapshot> page = value.getDocuments();
+            WriteBatch batch = db.batch();
+            Task<Integer> writes = events ? migrateEvents(page, batch) : migrateAttendance(page, batch);
+            return writes.continueWithTask(BACKGROUND, writesTask -> {
+                int pageWrites = writesTask.getResult();
+
+                // A page that isn't full is the last one of the step
+                String nextStep = step;
+                String nextCursor = null;
+                if (page.size() < PAGE_SIZE) {
+                    nextStep = events ? STEP_ATTENDANCE : STEP_DONE;
+                } else {
+                    DocumentSnapshot last = page.get(page.size() - 1);
+                    nextCursor = events ? last.getId() : last.getReference().getPath();
+                }
+                Map<String, Object> progress = new HashMap<>();
+                progress.put(STEP, nextStep);
+                progress.put(CURSOR, nextCursor);
+                progress.put("updatedAt", FieldValue.serverTimestamp());
+                batch.set(progressRef(), progress);
+
+                String stepAfter = nextStep;
+                String cursorAfter = nextCursor;
+                return batch.commit().continueWithTask(BACKGROUND, commitTask -> {
+                    commitTask.getResult(); // Stop here if the batch failed, the next run does this page again
+                    FirestoreUsage.recordWrites(FirestoreMeter.MIGRATIONS, pageWrites + 1);
+                    return nextPage(stepAfter, cursorAfter);
+                });
+            });
+        });
+    }
+
+    // Give the events of the page their date in milliseconds and a summary, and count the writes
+    private Task<Integer> migrateEvents(List<DocumentSnapshot> page, WriteBatch batch) {
+        if (page.isEmpty()) {
+            return Tasks.forResult(0);
+        }
+        // The summaries of the same events, read as one range of IDs
+        Task<QuerySnapshot> summaries = db.collection(EventSummaries.COLLECTION)
+                .orderBy(FieldPath.documentId())
+                .startAt(page.get(0).getId())
+                .endAt(page.get(page.size() - 1).getId())
+                .get();
+        return summaries.continueWith(BACKGROUND, task -> {
+            FirestoreUsage.recordQuery(FirestoreMeter.MIGRATIONS, task.getResult(), true);
+            Set<String> summarized = new HashSet<>();
+            for (DocumentSnapshot document : task.getResult().getDocuments()) {
+                summarized.add(document.getId());
+            }
+
+            int writes = 0;
+            for (DocumentSnapshot document : page) {
+                Event event = EventMapper.fromMap(document.getId(), document.getData());
+                if (event == null) {
+                    continue;
+                }
+                // Events without the field don't show up in the feeds, which are ordered by it
+                if (!document.contains(EventMapper.DATE_TIME_MILLIS)) {
+                    long millis = EventTime.parseOrZero(event.getDateTime());
+                    if (millis != 0) {
+                        batch.update(document.getReference(), EventMapper.DATE_TIME_MILLIS, millis);
+                        writes++;
+                    }
+                }
+                // The lists only read the summaries
+                if (!summarized.contains(document.getId())) {
+                    EventSummaries.set(batch, db, event, document.getString(EventSummaries.THUMBNAIL_URL));
+                    writes++;
+                }
+            }
+            return writes;
+        });
+    }
+
+    // Write the attended event and the profile copy of every check-in of the page, and count the writes
+    private Task<Integer> migrateAttendance(List<DocumentSnapshot> page, WriteBatch batch) {
+        // The events and users this page needs that we don't have yet
+        Set<String> eventIds = new HashSet<>();
+        Set<String> userIds = new HashSet<>();
+        for (DocumentSnapshot document : page) {
+            String userId = document.getString("userId");
+            if (userId == null) {
+                continue;
+            }
+            // The attendance document is in events/{eventId}/attendance/{id}
+            String eventId = document.getReference().getParent().getParent().getId();
+            if (!eventCache.containsKey(eventId)) {
+                eventIds.add(eventId);
+            }
+            if (document.getString(AttendeeProfiles.USERNAME) == null) {
+                userIds.add(userId);
+            }
+        }
+
+        List<Task<DocumentSnapshot>> eventReads = new ArrayList<>();
+        for (String eventId : eventIds) {
+            eventReads.add(db.collection("events").document(eventId).get());
+        }
+        List<Task<DocumentSnapshot>> userReads = new ArrayList<>();
+        for (String userId : userIds) {
+            userReads.add(db.collection("users").document(userId).get());
+        }
+        List<Task<DocumentSnapshot>> reads = new ArrayList<>(eventReads);
+        reads.addAll(userReads);
+
+        return Tasks.whenAllSuccess(reads).continueWith(BACKGROUND, task -> {
+            task.getResult(); // Stop here if a read failed
+            for (Task<DocumentSnapshot> read : eventReads) {
+                FirestoreUsage.recordDocument(FirestoreMeter.MIGRATIONS, read.getResult());
+                eventCache.put(read.getResult().getId(), read.getResult());
+            }
+            Map<String, Map<String, Object>> profiles = new HashMap<>();
+            for (Task<DocumentSnapshot> read : userReads) {
+                FirestoreUsage.recordDocument(FirestoreMeter.MIGRATIONS, read.getResult());
+                if (read.getResult().exists()) {
+                    profiles.put(read.getResult().getId(), AttendeeProfiles.fieldsOf(read.getResult()));
+                }
+            }
+
+            int writes = 0;
+            for (DocumentSnapshot document : page) {
+                String userId = document.getString("userId");
+                if (userId == null) {
+                    continue;
+                }
+                String eventId = document.getReference().getParent().getParent().getId();
+                DocumentSnapshot eventDoc = eventCache.get(eventId);
+                if (eventDoc != null && eventDoc.exists()) {
+                    Event event = EventMapper.fromMap(eventId, eventDoc.getData());
+                    batch.set(AttendedEvents.attendedRef(db, userId, eventId), AttendedEvents.fieldsOf(event,
+                            eventDoc.getString(EventSummaries.THUMBNAIL_URL),
+                            document.getTimestamp(AttendedEvents.CHECKIN_TIME)));
+                    writes++;
+                }
+                Map<String, Object> profile = profiles.get(userId);
+                if (document.getString(AttendeeProfiles.USERNAME) == null && profile != null) {
+                    batch.update(document.getReference(), profile);
+                    writes++;
+                }
+            }
+            return writes;
+        });
+    }
+}
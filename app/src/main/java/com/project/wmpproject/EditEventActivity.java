@@ -21,21 +21,20 @@ import androidx.core.view.WindowInsetsCompat;
 
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
+import com.google.firebase.firestore.WriteBatch;
 import com.project.wmpproject.model.Event;
-import com.squareup.picasso.Picasso;
+import com.project.wmpproject.model.EventMapper;
+import com.project.wmpproject.model.EventParcel;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
+import java.util.HashMap;
+import java.util.Map;
 
 public class EditEventActivity extends AppCompatActivity {
 
     // These are the parts of the screen that the user interacts with
     private TextInputEditText titleEditText, descriptionEditText, locationEditText, attendanceLimitEditText; // Fields to enter event details
+    private TextInputEditText counterShardsEditText; // How many shards the check-in counter uses, for busy events
     private ImageView eventImageView; // To display the event image
     private Button saveChangesButton; // Button to save changes
     // Tool for interacting with the database
@@ -51,6 +50,10 @@ public class EditEventActivity extends AppCompatActivity {
     private Calendar selectedDate;
     // The original image URL of the event
     private String prevImageUrl;
+    // The original URL of the small picture the lists show, null for old events
+    private String prevThumbnailUrl;
+    // The number of counter shards the event had when it was loaded
+    private int prevCounterShards = 1;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -75,6 +78,7 @@ public class EditEventActivity extends AppCompatActivity {
         dateEditText = findViewById(R.id.addEventDate);
         timeEditText = findViewById(R.id.addEventTime);
         attendanceLimitEditText = findViewById(R.id.editEventAttendanceLimit);
+        counterShardsEditText = findViewById(R.id.editEventCounterShards);
         locationEditText = findViewById(R.id.editEventLocation);
         eventImageView = findViewById(R.id.editEventImage);
         saveChangesButton = findViewById(R.id.saveChangesButton);
@@ -85,7 +89,8 @@ public class EditEventActivity extends AppCompatActivity {
                 // If the user selects an image, store the image URI and display it
                 Log.d("PhotoPicker", "Selected URI: " + uri);
                 selectedImageUri = uri;
-                eventImageView.setImageURI(uri);
+                // Decoded at the size of the image view, not the full camera size
+                ImageLoader.get().load(uri, eventImageView, this);
             } else {
                 // If no image is selected, log a message
                 Log.d("PhotoPicker", "No media selected");
@@ -150,31 +155,50 @@ public class EditEventActivity extends AppCompatActivity {
 
     // Update the date/time text field with the formatted date and time
     private void updateDateEditText() {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        String formattedDate = dateFormat.format(selectedDate.getTime());
+        String formattedDate = EventTime.formatDate(selectedDate.getTimeInMillis());
         dateEditText.setText(formattedDate);
     }
 
     private void updateTimeEditText() {
-        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
-        String formattedTime = timeFormat.format(selectedDate.getTime());
+        String formattedTime = EventTime.formatTime(selectedDate.getTimeInMillis());
         timeEditText.setText(formattedTime);
     }
 
-    // Fetch the event data from the database
+    // Fill in the form straight away from the cache, or from the copy the list handed over,
+    // then read the full event from the database
     private void fetchEventData(String eventId) {
+        Event cached = EventCache.get().get(eventId);
+        EventParcel parcel = getIntent().getParcelableExtra("event");
+        Event handedOver = parcel != null ? parcel.event : null;
+        Event shown = cached != null ? cached : handedOver;
+        if (shown != null) {
+            populateEventFields(shown);
+        }
+        // The copy from the list is only a summary, so don't save until the full event is here
+        saveChangesButton.setEnabled(cached != null);
+
+        // Opening the event and saving it is one run
+        FirestoreMeter.get().startRun(FirestoreMeter.EDIT_EVENT);
         db.collection("events").document(eventId)
                 .get()
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
+                        FirestoreUsage.recordDocument(FirestoreMeter.EDIT_EVENT, task.getResult());
                         // If the data is fetched successfully, convert it to an Event object
-                        Event event = task.getResult().toObject(Event.class);
+                        Event event = FirestoreEvents.toEvent(task.getResult());
                         if (event != null) {
-                            // If the event exists, populate the fields with its data
-                            populateEventFields(event);
+                            // If the event exists, populate the fields with its data,
+                            // unless they already show the same thing
+                            prevThumbnailUrl = task.getResult().getString(EventSummaries.THUMBNAIL_URL);
+                            EventCache.get().put(event);
+                            if (!event.equals(shown)) {
+                                populateEventFields(event);
+                            }
+                            saveChangesButton.setEnabled(true);
                         } else {
                             // If the event doesn't exist, log a message and close the activity
                             Log.d("EditEventActivity", "Event not found");
+                            EventCache.get().remove(eventId);
                             finish();
                         }
                     } else {
@@ -190,66 +214,53 @@ public class EditEventActivity extends AppCompatActivity {
         descriptionEditText.setText(event.getDescription());
         locationEditText.setText(event.getLocation());
         attendanceLimitEditText.setText(String.valueOf(event.getAttendanceLimit()));
-
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault());
-            Date date = sdf.parse(event.getDateTime());
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
-            dateEditText.setText(dateFormat.format(date));
-            timeEditText.setText(timeFormat.format(date));
-        } catch (ParseException e) {
-            Log.e("EditEventActivity", "Error parsing date", e);
+        prevCounterShards = Math.max(1, event.getCounterShards());
+        counterShardsEditText.setText(String.valueOf(prevCounterShards));
+
+        // Old events only have the date as text, it is parsed once here
+        long eventMillis = EventTime.millisOf(event);
+        if (eventMillis != 0) {
+            dateEditText.setText(EventTime.formatDate(eventMillis));
+            timeEditText.setText(EventTime.formatTime(eventMillis));
+            // Start the pickers at the event's date and time
+            selectedDate.setTimeInMillis(eventMillis);
+        } else {
+            Log.e("EditEventActivity", "Error parsing date " + event.getDateTime());
             Toast.makeText(this, "Error parsing date", Toast.LENGTH_SHORT).show();
         }
         // Store the original image URL
         this.prevImageUrl = event.getImageUrl();
         // Load the image into the image view
-        Picasso.get().load(event.getImageUrl()).into(eventImageView);
+        ImageLoader.get().load(event.getImageUrl(), eventImageView, this);
     }
 
-    // Upload the new image to Firebase Storage and then save the changes to the event
+    // Make the new image smaller, then upload it and its small copy for the lists, and save the changes to the event
     private void uploadImageAndSaveChanges() {
-        StorageReference storageRef = FirebaseStorage.getInstance().getReference();
-        // Create a unique name for the image
-        String imageName = "event_" + new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".jpg";
-        StorageReference imageRef = storageRef.child("events/" + imageName);
-
-        // Upload the image to Firebase Storage
-        imageRef.putFile(selectedImageUri)
-                .addOnSuccessListener(taskSnapshot ->
-                        // If the upload is successful, get the download URL of the image
-                        imageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                            // Update the event with the new image URL and other details
-                            String imageUrl = uri.toString();
-                            String title = titleEditText.getText().toString();
-                            String description = descriptionEditText.getText().toString();
-                            String dateTime = dateEditText.getText().toString() + "T" + timeEditText.getText().toString();
-                            String location = locationEditText.getText().toString();
-
-                            int attendanceLimit = Integer.parseInt(attendanceLimitEditText.getText().toString());
-
-                            Event updatedEvent = new Event(title, description, dateTime, location, imageUrl, eventId, attendanceLimit);
-
-                            // Update the event in Firestore
-                            db.collection("events").document(eventId)
-                                    .set(updatedEvent)
-                                    .addOnSuccessListener(aVoid -> {
-                                        // If the update is successful, show a success message and close the activity
-                                        Toast.makeText(this, "Event updated successfully", Toast.LENGTH_SHORT).show();
-                                        finish();
-                                    })
-                                    .addOnFailureListener(e ->
-                                            // If there was an error updating the event, log the error
-                                            Log.w("EditEventActivity", "Error updating event", e)
-                                    );
-                        })
-                )
-                .addOnFailureListener(e -> {
-                    // If there was an error uploading the image, show an error message
-                    Log.w("EditEventActivity", "Error uploading image", e);
-                    Toast.makeText(this, "Error uploading image", Toast.LENGTH_SHORT).show();
-                });
+        // Camera pictures are often many megabytes, this shrinks them in the background
+        new EventImageUploader(this).upload(selectedImageUri, new EventImageUploader.Callback() {
+            @Override
+            public void onUploaded(String imageUrl, String thumbnailUrl) {
+                // Update the event with the new image URL and other details
+                String title = titleEditText.getText().toString();
+                String description = descriptionEditText.getText().toString();
+                String dateTime = dateEditText.getText().toString() + "T" + timeEditText.getText().toString();
+                String location = locationEditText.getText().toString();
+
+                int attendanceLimit = Integer.parseInt(attendanceLimitEditText.getText().toString());
+
+                Event updatedEvent = new Event(title, description, dateTime, location, imageUrl, eventId, attendanceLimit);
+
+                // Update the event in Firestore
+                updateEventInFirestore(updatedEvent, thumbnailUrl);
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // If the image couldn't be read or uploaded, show an error message
+                Log.w("EditEventActivity", "Error uploading image", error);
+                Toast.makeText(EditEventActivity.this, "Error uploading image", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     // Save the changes to the event without uploading a new image
@@ -266,10 +277,46 @@ public class EditEventActivity extends AppCompatActivity {
         // Create a new Event object with the updated details
         Event updatedEvent = new Event(title, description, dateTime, location, imageUrl, eventId, attendanceLimit);
 
-        // Update the event in Firestore
-        db.collection("events").document(eventId)
-                .set(updatedEvent)
+        // Update the event in Firestore, the small picture stays the same too
+        updateEventInFirestore(updatedEvent, prevThumbnailUrl);
+    }
+
+    // Update the fields the admin can edit. The other fields, like the attendee counter
+    // that check-ins keep up to date, are left as they are. The summary the lists show is
+    // written in the same batch.
+    private void updateEventInFirestore(Event updatedEvent, String thumbnailUrl) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("title", updatedEvent.getTitle());
+        updates.put("description", updatedEvent.getDescription());
+        updates.put("dateTime", updatedEvent.getDateTime());
+        // The date in milliseconds, so the feeds can order and filter by it on the server
+        updates.put(EventMapper.DATE_TIME_MILLIS, EventTime.parseOrZero(updatedEvent.getDateTime()));
+        updates.put("location", updatedEvent.getLocation());
+        updates.put("imageUrl", updatedEvent.getImageUrl());
+        updates.put("eventId", updatedEvent.getEventId());
+        updates.put("attendanceLimit", updatedEvent.getAttendanceLimit());
+        updates.put(EventSummaries.THUMBNAIL_URL, thumbnailUrl);
+
+        // If the admin changed the number of counter shards, move the counts over in a transaction
+        int counterShards = CheckInService.parseShardCount(counterShardsEditText.getText().toString());
+
+        WriteBatch batch = db.batch();
+        batch.update(db.collection("events").document(eventId), updates);
+        EventSummaries.set(batch, db, updatedEvent, thumbnailUrl);
+
+        batch.commit()
+                .continueWithTask(task -> {
+                    task.getResult(); // Stop here if the update failed
+                    // The event and its summary
+                    FirestoreUsage.recordWrites(FirestoreMeter.EDIT_EVENT, 2);
+                    if (counterShards == prevCounterShards) {
+                        return task;
+                    }
+                    return new CheckInService(db).resizeShards(eventId, counterShards);
+                })
                 .addOnSuccessListener(aVoid -> {
+                    // The cached copy is old now, the next screen reads the event again
+                    EventCache.get().remove(eventId);
                     // If the update is successful, show a success message and close the activity
                     Toast.makeText(this, "Event updated successfully", Toast.LENGTH_SHORT).show();
                     finish();
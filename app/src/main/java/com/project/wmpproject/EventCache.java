@@ -0,0 +1,60 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// This class keeps the full events that were opened recently, so opening an event again
+// shows it straight away. The screens still read the event again in the background and
+// put the new copy in here, so what is shown is never old for long.
+public class EventCache {
+
+    // How many events we keep in memory
+    public static final int MAX_CACHED_EVENTS = 100;
+
+    // The one cache used by the whole app
+    private static EventCache instance;
+
+    // Recently used events, the least recently used one is dropped when it gets full
+    private final Map<String, Event> events;
+
+    public EventCache(int maxCachedEvents) {
+        this.events = new LinkedHashMap<String, Event>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Event> eldest) {
+                return size() > maxCachedEvents;
+            }
+        };
+    }
+
+    // Get the cache shared by the whole app
+    public static synchronized EventCache get() {
+        if (instance == null) {
+            instance = new EventCache(MAX_CACHED_EVENTS);
+        }
+        return instance;
+    }
+
+    // The event with the ID, or null if it is not in the cache
+    public synchronized Event get(String eventId) {
+        return events.get(eventId);
+    }
+
+    // Remember the full event, replacing the old copy
+    public synchronized void put(Event event) {
+        if (event != null && event.getEventId() != null) {
+            events.put(event.getEventId(), event);
+        }
+    }
+
+    // Forget the event, for example because it was changed or deleted
+    public synchronized void remove(String eventId) {
+        events.remove(eventId);
+    }
+
+    // The number of events in the cache
+    public synchronized int size() {
+        return events.size();
+    }
+}
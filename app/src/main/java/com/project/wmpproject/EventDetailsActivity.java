@@ -9,28 +9,16 @@ import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.CollectionReference;
-import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.project.wmpproject.adapter.AttendanceAdapter;
-import com.project.wmpproject.model.Attendance;
 import com.project.wmpproject.model.Event;
-import com.squareup.picasso.Picasso;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
 
 public class EventDetailsActivity extends AppCompatActivity {
 
@@ -43,14 +31,20 @@ public class EventDetailsActivity extends AppCompatActivity {
     // Tool for displaying the list of attendees
     private AttendanceAdapter attendanceAdapter;
 
-    // Tools for interacting with the database and user accounts
-    private FirebaseFirestore db;
+    // Tool for user accounts
     private FirebaseAuth auth;
+    // Tool for checking users in to events
+    private CheckInService checkInService;
+    // Keeps the event and its attendees while the screen is rotated or resized
+    private EventDetailsViewModel viewModel;
     // The ID of the event being displayed
     private String eventId;
     // The event object itself
     private Event event;
 
+    // How many rows before the end of the attendance list we start loading the next page
+    private static final int PREFETCH_DISTANCE = 10;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         // This function is called when the activity starts
@@ -71,16 +65,34 @@ public class EventDetailsActivity extends AppCompatActivity {
         attendanceRecyclerView = findViewById(R.id.attendanceRecyclerView);
         attendanceRecyclerView.setLayoutManager(new LinearLayoutManager(this));
 
+        // The adapter is created once, the list is given to it when it is loaded
+        attendanceAdapter = new AttendanceAdapter(new ArrayList<>());
+        attendanceRecyclerView.setAdapter(attendanceAdapter);
+
         // Set up Firebase tools
-        db = FirebaseFirestore.getInstance();
         auth = FirebaseAuth.getInstance();
+        checkInService = new CheckInService(FirebaseFirestore.getInstance());
 
-        // Get the event ID from the intent that started this activity
-        eventId = getIntent().getStringExtra("eventId");
+        // The view model gets the event ID from the intent that started this activity
+        viewModel = new ViewModelProvider(this).get(EventDetailsViewModel.class);
+        eventId = viewModel.getEventId();
 
         if (eventId != null) {
-            // If the event ID is valid, fetch the event data from the database
-            fetchEventData(eventId);
+            // Show the data as it arrives. After a rotation it is already there and nothing is read again.
+            viewModel.getEvent().observe(this, loaded -> {
+                event = loaded;
+                displayEventData(loaded);
+            });
+            // New check-ins are added to the top of the list as they happen, while the screen is visible
+            viewModel.getListeners().follow(this);
+            viewModel.getAttendance().observe(this, attendanceAdapter::submit);
+            // Load older attendees when the user scrolls near the end of the list
+            attendanceRecyclerView.addOnScrollListener(new PagingScrollListener(
+                    (LinearLayoutManager) attendanceRecyclerView.getLayoutManager(), PREFETCH_DISTANCE,
+                    viewModel::loadMoreAttendance));
+            viewModel.getAttendeeCount().observe(this, this::showAttendeeCount);
+            viewModel.getError().observe(this, this::showError);
+            viewModel.load();
         } else {
             // If the event ID is invalid, show an error message and close the activity
             Toast.makeText(this, "Invalid event ID", Toast.LENGTH_SHORT).show();
@@ -91,42 +103,45 @@ public class EventDetailsActivity extends AppCompatActivity {
         checkInButton.setOnClickListener(v -> checkInToEvent());
     }
 
-    // Get the event data from the database
-    private void fetchEventData(String eventId) {
-        db.collection("events").document(eventId)
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        // If the data is fetched successfully, convert it to an Event object
-                        event = task.getResult().toObject(Event.class);
-                        if (event != null) {
-                            // If the event exists, display its data on the screen
-                            displayEventData(event);
-                            // And fetch the attendance data for this event
-                            fetchAttendanceData(eventId);
-                        } else {
-                            // If the event doesn't exist, show an error message and close the activity
-                            Toast.makeText(this, "Event not found", Toast.LENGTH_SHORT).show();
-                            finish();
-                        }
-                    } else {
-                        // If there was an error fetching the data, show an error message and close the activity
-                        Log.w("EventDetailsActivity", "Error fetching event data", task.getException());
-                        Toast.makeText(this, "Error fetching event data", Toast.LENGTH_SHORT).show();
-                        finish();
-                    }
-                });
+    // Show a message for what went wrong while loading
+    private void showError(EventDetailsViewModel.Error error) {
+        if (error == null) {
+            return;
+        }
+        viewModel.clearError();
+        switch (error) {
+            case NOT_FOUND:
+                // If the event doesn't exist, show an error message and close the activity
+                Toast.makeText(this, "Event not found", Toast.LENGTH_SHORT).show();
+                finish();
+                break;
+            default:
+                // If there was an error fetching the data, show an error message and close the activity
+                Toast.makeText(this, "Error fetching event data", Toast.LENGTH_SHORT).show();
+                finish();
+                break;
+        }
     }
 
     // Display the event data on the screen
     private void displayEventData(Event event) {
-        Picasso.get().load(event.getImageUrl()).into(eventImage);
+        ImageLoader.get().load(event.getImageUrl(), eventImage, this);
         eventTitle.setText(event.getTitle());
         eventDescription.setText(event.getDescription());
         eventDateTime.setText(event.getDateTime());
         eventLocation.setText(event.getLocation());
         int limit = event.getAttendanceLimit();
         attendanceLimitText.setText("Attendance Limit: " + limit);
+        // Add how many people have checked in so far, if we know it already
+        showAttendeeCount(viewModel.getAttendeeCount().getValue());
+    }
+
+    // Show how many people have checked in out of the limit
+    private void showAttendeeCount(Long count) {
+        if (count == null || event == null) {
+            return;
+        }
+        attendanceLimitText.setText("Attendance: " + count + " / " + event.getAttendanceLimit());
     }
 
     // Check the user in to the event
@@ -136,119 +151,65 @@ public class EventDetailsActivity extends AppCompatActivity {
             return;
         }
 
-        int attendanceLimit = event.getAttendanceLimit();
-
-        // Check the current number of attendees
-        db.collection("events").document(eventId).collection("attendance")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        int currentAttendance = task.getResult().size();
-                        if (currentAttendance >= attendanceLimit) {
-                            Toast.makeText(this, "Event attendance limit reached.", Toast.LENGTH_SHORT).show();
-                        } else {
-                            // Proceed with the existing check-in logic
-                            String userId = auth.getCurrentUser().getUid();
-                            db.collection("events").document(eventId).collection("attendance")
-                                    .whereEqualTo("userId", userId)
-                                    .get()
-                                    .addOnCompleteListener(task2 -> {
-                                        if (task2.isSuccessful()) {
-                                            if (task2.getResult().isEmpty()) {
-                                                performCheckIn(userId);
-                                            } else {
-                                                Toast.makeText(this, "You have already checked in to this event.", Toast.LENGTH_SHORT).show();
-                                            }
-                                        } else {
-                                            Log.w("EventDetailsActivity", "Error checking attendance", task2.getException());
-                                            Toast.makeText(this, "Error checking attendance", Toast.LENGTH_SHORT).show();
-                                        }
-                                    });
-                        }
-                    } else {
-                        Log.w("EventDetailsActivity", "Error getting attendance count", task.getException());
-                        Toast.makeText(this, "Error checking attendance", Toast.LENGTH_SHORT).show();
-                    }
-                });
-    }
-
-    // Perform the actual check-in process
-    private void performCheckIn(String userId) {
-        // Get the event's date and time
-        String dateTime = event.getDateTime();
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault());
-        try {
-            // Convert the event's date and time to a Date object
-            Date eventDate = sdf.parse(dateTime);
-            // Get the current date and time
-            Date currentDate = new Date();
-
-            // Check if the current time is after the event's scheduled time
-            if (currentDate.before(eventDate)) {
-                // If it's not, show a message and don't allow check-in
-                Toast.makeText(this, "You can only check in after the scheduled time.", Toast.LENGTH_SHORT).show();
-                return;
-            }
-
-            // Get the subcollection where attendance data is stored
-            CollectionReference attendanceRef = db.collection("events").document(eventId).collection("attendance");
-
-            // Create a map to store the attendance data
-            Map<String, Object> attendanceData = new HashMap<>();
-            attendanceData.put("userId", userId); // Add the user's ID
-            attendanceData.put("checkinTime", FieldValue.serverTimestamp()); // Add the check-in time
-
-            // Add a new document to the attendance subcollection
-            attendanceRef.add(attendanceData)
-                    .addOnSuccessListener(docRef -> {
-                        // If the check-in is successful, show a message
-                        Toast.makeText(EventDetailsActivity.this, "Checked in successfully!", Toast.LENGTH_SHORT).show();
-                        // And refresh the attendance list
-                        fetchAttendanceData(eventId);
-                    })
-                    .addOnFailureListener(e -> {
-                        // If there was an error checking in, show an error message
-                        Log.w("EventDetailsActivity", "Error checking in", e);
-                        Toast.makeText(EventDetailsActivity.this, "Error checking in", Toast.LENGTH_SHORT).show();
-                    });
-
-        } catch (ParseException e) {
+        // Get when the event happens, old events only have the text and are parsed here
+        long eventMillis = EventTime.millisOf(event);
+        if (eventMillis == 0) {
             // If there was an error parsing the date, show an error message
-            Log.e("EventDetailsActivity", "Error parsing date", e);
+            Log.e("EventDetailsActivity", "Error parsing date " + event.getDateTime());
             Toast.makeText(this, "Error parsing date", Toast.LENGTH_SHORT).show();
+            return;
         }
+
+        // Check if the current time is after the event's scheduled time
+        if (System.currentTimeMillis() < eventMillis) {
+            // If it's not, show a message and don't allow check-in
+            Toast.makeText(this, "You can only check in after the scheduled time.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        performCheckIn(auth.getCurrentUser().getUid());
     }
 
-    // Get the attendance data from the database
-    private void fetchAttendanceData(String eventId) {
-        db.collection("events").document(eventId).collection("attendance")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        // If the data is fetched successfully, create a list to store it
-                        List<Attendance> attendanceData = new ArrayList<>();
-                        // Go through each attendance record
-                        for (QueryDocumentSnapshot document : task.getResult()) {
-                            // Get the user ID and check-in time
-                            String userId = document.getString("userId");
-                            Timestamp checkinTimestamp = document.getTimestamp("checkinTime");
-                            Timestamp checkinTime = checkinTimestamp != null ? checkinTimestamp : null;
-                            // Create an Attendance object and add it to the list
-                            attendanceData.add(new Attendance(userId, checkinTime));
-                        }
-                        // Populate the attendance list on the screen
-                        populateAttendanceList(attendanceData);
-                    } else {
-                        // If there was an error fetching the data, show an error message
-                        Log.w("EventDetailsActivity", "Error fetching attendance data", task.getException());
-                        Toast.makeText(this, "Error fetching attendance data", Toast.LENGTH_SHORT).show();
-                    }
-                });
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        FirestoreUsage.warnIfOverBudget("EventDetailsActivity", FirestoreMeter.OPEN_EVENT_DETAILS);
+        FirestoreUsage.warnIfOverBudget("EventDetailsActivity", FirestoreMeter.CHECK_IN);
     }
 
-    // Populate the attendance list on the screen
-    private void populateAttendanceList(List<Attendance> attendanceData) {
-        attendanceAdapter = new AttendanceAdapter(attendanceData, db);
-        attendanceRecyclerView.setAdapter(attendanceAdapter);
+    // Perform the actual check-in process.
+    // The duplicate check, the attendance limit and the counter all happen in one transaction.
+    private void performCheckIn(String userId) {
+        checkInService.checkIn(eventId, userId, new CheckIn.Callback() {
+            @Override
+            public void onResult(CheckIn.Result result) {
+                switch (result) {
+                    case CHECKED_IN:
+                        // If the check-in is successful, show a message
+                        Toast.makeText(EventDetailsActivity.this, "Checked in successfully!", Toast.LENGTH_SHORT).show();
+                        // The attendance listener adds the user to the list and the count
+                        break;
+                    case ALREADY_CHECKED_IN:
+                        Toast.makeText(EventDetailsActivity.this, "You have already checked in to this event.", Toast.LENGTH_SHORT).show();
+                        break;
+                    case LIMIT_REACHED:
+                        Toast.makeText(EventDetailsActivity.this, "Event attendance limit reached.", Toast.LENGTH_SHORT).show();
+                        break;
+                    case NEEDS_MIGRATION:
+                        // Someone else's check-in is updating this old event right now
+                        Toast.makeText(EventDetailsActivity.this, "This event is being updated, please try again in a moment.", Toast.LENGTH_SHORT).show();
+                        break;
+                    default:
+                        Toast.makeText(EventDetailsActivity.this, "Event not found", Toast.LENGTH_SHORT).show();
+                        break;
+                }
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // If there was an error checking in, show an error message
+                Toast.makeText(EventDetailsActivity.this, "Error checking in", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 }
\ No newline at end of file
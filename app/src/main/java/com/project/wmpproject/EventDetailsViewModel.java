@@ -0,0 +1,166 @@
+package com.project.wmpproject;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.SavedStateHandle;
+import androidx.lifecycle.ViewModel;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.project.wmpproject.model.Event;
+import com.project.wmpproject.model.EventParcel;
+
+// This keeps the event, its attendees and the attendee count of the details screen.
+// They are read once when the screen opens; a rotated screen shows them without reading
+// them again. The event ID comes from the intent, so it is still here after the app was killed.
+// The event is shown straight away from the cache, or from the copy the list handed over,
+// and the full event is read again in the background.
+// The attendees are loaded one page at a time. New check-ins are listened to while the screen
+// is visible, and only the changes are passed on, so they show up within a second.
+public class EventDetailsViewModel extends ViewModel {
+
+    // What went wrong while loading, the screen shows a message for it
+    public enum Error {
+        NOT_FOUND,
+        EVENT_FAILED
+    }
+
+    // The key of the event ID in the intent that opened the screen
+    public static final String KEY_EVENT_ID = "eventId";
+    // The key of the event the list handed over, it can be a summary
+    public static final String KEY_EVENT = "event";
+
+    // Tool for interacting with the database
+    private final FirebaseFirestore db;
+    // The ID of the event being displayed
+    private final String eventId;
+    // The event the list handed over, or null
+    private final Event handedOver;
+
+    private final MutableLiveData<Event> event = new MutableLiveData<>();
+    private final MutableLiveData<AttendanceUpdate> attendance = new MutableLiveData<>();
+    private final MutableLiveData<Long> attendeeCount = new MutableLiveData<>();
+    private final MutableLiveData<Error> error = new MutableLiveData<>();
+    // Whether the event was already requested, so it is only read once
+    private boolean loadStarted;
+    // Loads the attendees one page at a time, and listens to new check-ins
+    private AttendancePager attendancePager;
+    // Attaches the attendance listener while the screen is visible, and keeps it through rotations
+    private final ListenerRegistry listeners = new ListenerRegistry();
+
+    public EventDetailsViewModel(@NonNull SavedStateHandle savedState) {
+        this.db = FirebaseFirestore.getInstance();
+        this.eventId = savedState.get(KEY_EVENT_ID);
+        EventParcel parcel = savedState.get(KEY_EVENT);
+        this.handedOver = parcel != null ? parcel.event : null;
+        if (eventId != null) {
+            attendancePager = new AttendancePager(new FirestoreAttendanceSource(db, eventId),
+                    AttendancePager.DEFAULT_PAGE_SIZE, FirestoreMeter.get(), FirestoreMeter.OPEN_EVENT_DETAILS,
+                    new AttendancePager.Listener() {
+                @Override
+                public void onAttendance(AttendanceUpdate update) {
+                    attendance.setValue(update);
+                }
+
+                @Override
+                public void onCount(long count) {
+                    attendeeCount.setValue(count);
+                }
+            });
+            // Only listen to new check-ins while the screen is visible
+            listeners.add(() -> {
+                attendancePager.start();
+                return attendancePager::stop;
+            });
+        }
+    }
+
+    // The ID of the event, or null if the screen was opened without one
+    public String getEventId() {
+        return eventId;
+    }
+
+    public LiveData<Event> getEvent() {
+        return event;
+    }
+
+    public LiveData<AttendanceUpdate> getAttendance() {
+        return attendance;
+    }
+
+    public LiveData<Long> getAttendeeCount() {
+        return attendeeCount;
+    }
+
+    public LiveData<Error> getError() {
+        return error;
+    }
+
+    // The listeners of the screen, the screen calls follow() on it
+    public ListenerRegistry getListeners() {
+        return listeners;
+    }
+
+    // Show the event and read it, only the first time this is called
+    public void load() {
+        if (loadStarted || eventId == null) {
+            return;
+        }
+        loadStarted = true;
+
+        // Show what we already have, the full event from the cache is better than a summary
+        Event cached = EventCache.get().get(eventId);
+        if (cached != null) {
+            event.setValue(cached);
+        } else if (handedOver != null) {
+            event.setValue(handedOver);
+        }
+
+        db.collection("events").document(eventId)
+                .get()
+                .addOnCompleteListener(task -> {
+                    if (!task.isSuccessful()) {
+                        Log.w("EventDetailsViewModel", "Error fetching event data", task.getException());
+                        // Keep showing the copy we have, if there is one
+                        if (event.getValue() == null) {
+                            error.setValue(Error.EVENT_FAILED);
+                        }
+                        return;
+                    }
+                    // The pager started the run of opening the screen when it became visible, the event is part of it
+                    FirestoreUsage.recordDocument(FirestoreMeter.OPEN_EVENT_DETAILS, task.getResult());
+                    Event loaded = FirestoreEvents.toEvent(task.getResult());
+                    if (loaded == null) {
+                        EventCache.get().remove(eventId);
+                        error.setValue(Error.NOT_FOUND);
+                        return;
+                    }
+                    FirestoreEvents.backfill(db, task.getResult(), loaded);
+                    EventCache.get().put(loaded);
+                    // Only redraw the screen if the event changed
+                    if (!loaded.equals(event.getValue())) {
+                        event.setValue(loaded);
+                    }
+                });
+    }
+
+    // Load the next page of attendees
+    public void loadMoreAttendance() {
+        if (attendancePager != null) {
+            attendancePager.loadNextPage();
+        }
+    }
+
+    // The error was shown, don't show it again on the next screen
+    public void clearError() {
+        error.setValue(null);
+    }
+
+    @Override
+    protected void onCleared() {
+        // The screen is gone for good, stop listening
+        listeners.destroy();
+    }
+}
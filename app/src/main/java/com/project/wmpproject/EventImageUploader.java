@@ -0,0 +1,77 @@
+package com.project.wmpproject;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageReference;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+// This class uploads the picture of an event twice: once for the details screen, and once
+// small for the lists. Both are made smaller by ImagePreparer before they are uploaded.
+public class EventImageUploader {
+
+    // Called on the main thread with the download URLs of both pictures
+    public interface Callback {
+        void onUploaded(String imageUrl, String thumbnailUrl);
+        void onError(Exception error);
+    }
+
+    private final ImagePreparer preparer;
+
+    public EventImageUploader(Context context) {
+        this.preparer = new ImagePreparer(context);
+    }
+
+    // Prepare both pictures in the background, then upload them at the same time
+    public void upload(Uri uri, Callback callback) {
+        preparer.prepare(uri, ImagePreparer.EVENT_IMAGE, new ImagePreparer.Callback() {
+            @Override
+            public void onPrepared(ImagePreparer.PreparedImage image) {
+                preparer.prepare(uri, ImagePreparer.EVENT_THUMBNAIL, new ImagePreparer.Callback() {
+                    @Override
+                    public void onPrepared(ImagePreparer.PreparedImage thumbnail) {
+                        uploadBoth(image, thumbnail, callback);
+                    }
+
+                    @Override
+                    public void onError(Exception error) {
+                        callback.onError(error);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Exception error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    private static void uploadBoth(ImagePreparer.PreparedImage image, ImagePreparer.PreparedImage thumbnail,
+                                   Callback callback) {
+        StorageReference storageRef = FirebaseStorage.getInstance().getReference();
+        // Create a unique name for the image, the small one has the same name in its own folder
+        String imageName = "event_" + new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
+        Task<Uri> imageUrl = upload(storageRef.child("events/" + imageName + "." + image.extension), image);
+        Task<Uri> thumbnailUrl = upload(storageRef.child("events/thumbnails/" + imageName + "." + thumbnail.extension), thumbnail);
+
+        Tasks.<Uri>whenAllSuccess(imageUrl, thumbnailUrl)
+                .addOnSuccessListener(urls -> callback.onUploaded(urls.get(0).toString(), urls.get(1).toString()))
+                .addOnFailureListener(callback::onError);
+    }
+
+    // Upload the image and get its download URL
+    private static Task<Uri> upload(StorageReference ref, ImagePreparer.PreparedImage image) {
+        return ref.putBytes(image.bytes, image.toMetadata())
+                .continueWithTask(task -> {
+                    task.getResult(); // Stop here if the upload failed
+                    return ref.getDownloadUrl();
+                });
+    }
+}
@@ -0,0 +1,237 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// This class loads the events one page at a time, in date order.
+// Only the first page is kept up to date in real time, the pages after it are loaded once
+// with a cursor (the last event we have) when the user scrolls near the end. So every page
+// costs one page of reads, however far the user scrolls.
+// An insert on the first page pushes its last event out of the listener. That event is kept
+// right after the first page, so it can't fall between the first page and the cursor of the next.
+// Every listener that is attached and every page after the first is one run of the flow in the
+// FirestoreMeter: opening the list, coming back to it and scrolling further.
+public class EventPager {
+
+    // Where the pages come from (Firestore in the app)
+    public interface Source {
+        // Listen to the first page of events in real time
+        EventRepository.Registration listenFirstPage(int pageSize, PageCallback callback);
+        // Load the page of events that comes right after the given event, once
+        void loadPageAfter(Event lastEvent, int pageSize, PageCallback callback);
+    }
+
+    // The source calls this when a page has arrived, or when the first page changed
+    public interface PageCallback {
+        void onPage(List<Event> events);
+        void onError(Exception error);
+    }
+
+    // Screens implement this to show the events and to report how long pages take to load
+    public interface Listener {
+        void onEventsChanged(List<Event> events);
+        void onPageLoaded(int pageNumber, int eventCount, long latencyMs);
+    }
+
+    // The default number of events in one page
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    private final Source source;
+    private final int pageSize;
+    // Where the runs of the flow are counted
+    private final FirestoreMeter meter;
+    private final String flow;
+    private final Listener listener;
+
+    // The first page, kept up to date by the real-time listener
+    private List<Event> firstPage = new ArrayList<>();
+    // Events that an insert pushed off the first page, in date order. They are on the second page now.
+    private final List<Event> pushedOff = new ArrayList<>();
+    // The pages after the first one, in order
+    private final List<List<Event>> laterPages = new ArrayList<>();
+    // The real-time listener on the first page, only set while the pager is started
+    private EventRepository.Registration firstPageRegistration;
+    // Whether the first page has arrived since the pager was started
+    private boolean firstPageLoaded;
+    // When we started waiting for the page that is loading
+    private long loadStartNanos;
+    // Whether a page after the first one is being loaded right now
+    private boolean loading;
+    // Whether we got a page that was not full, so there is nothing more to load
+    private boolean endReached;
+    // How long each page took to load, in milliseconds
+    private final List<Long> pageLatenciesMs = new ArrayList<>();
+
+    public EventPager(Source source, int pageSize, FirestoreMeter meter, String flow, Listener listener) {
+        this.source = source;
+        this.pageSize = pageSize;
+        this.meter = meter;
+        this.flow = flow;
+        this.listener = listener;
+    }
+
+    // Start listening to the first page, the pages after it are kept
+    public void start() {
+        if (firstPageRegistration != null) {
+            return;
+        }
+        firstPageLoaded = false;
+        loadStartNanos = System.nanoTime();
+        // The reads of the first page belong to this run
+        meter.startRun(flow);
+        firstPageRegistration = source.listenFirstPage(pageSize, new PageCallback() {
+            @Override
+            public void onPage(List<Event> events) {
+                keepPushedOff(events);
+                firstPage = new ArrayList<>(events);
+                // A first page that is not full means there are no more pages
+                if (laterPages.isEmpty()) {
+                    endReached = events.size() < pageSize;
+                }
+                if (!firstPageLoaded) {
+                    firstPageLoaded = true;
+                    reportLatency(1, events.size());
+                }
+                publish();
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // The source already logs the error, keep showing the events we have
+            }
+        });
+    }
+
+    // Stop listening to the first page, the loaded pages are kept
+    public void stop() {
+        if (firstPageRegistration != null) {
+            firstPageRegistration.remove();
+            firstPageRegistration = null;
+        }
+    }
+
+    // Load the next page, if there is one and we are not loading one already
+    public void loadNextPage() {
+        if (loading || endReached || !firstPageLoaded) {
+            return;
+        }
+        Event lastEvent = lastLoadedEvent();
+        if (lastEvent == null) {
+            return;
+        }
+
+        loading = true;
+        loadStartNanos = System.nanoTime();
+        int pageNumber = laterPages.size() + 2;
+        // Asking for more events is one more run
+        meter.startRun(flow);
+        source.loadPageAfter(lastEvent, pageSize, new PageCallback() {
+            @Override
+            public void onPage(List<Event> events) {
+                loading = false;
+                laterPages.add(new ArrayList<>(events));
+                endReached = events.size() < pageSize;
+                reportLatency(pageNumber, events.size());
+                publish();
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // Let the user try again by scrolling
+                loading = false;
+            }
+        });
+    }
+
+    // Whether a page is being loaded right now
+    public boolean isLoading() {
+        return loading;
+    }
+
+    // Whether there are no more pages to load
+    public boolean isEndReached() {
+        return endReached;
+    }
+
+    // How long each page took to load, in milliseconds, starting with the first page
+    public List<Long> getPageLatenciesMs() {
+        return Collections.unmodifiableList(pageLatenciesMs);
+    }
+
+    // Remember the events that left the first page because newer ones came before them.
+    // Firestore reports those the same way as deleted events. The difference is that a full
+    // first page still ends before them, while a deleted event is replaced by the one after it.
+    private void keepPushedOff(List<Event> events) {
+        if (!firstPageLoaded || events.size() < pageSize) {
+            return;
+        }
+        Event newLast = events.get(events.size() - 1);
+        Set<String> ids = idsOf(events);
+        for (Event event : firstPage) {
+            if (!ids.contains(event.getEventId()) && EventWindowDiff.compareOrder(event, newLast) > 0) {
+                pushedOff.add(event);
+            }
+        }
+        Collections.sort(pushedOff, EventWindowDiff::compareOrder);
+        // An event that came back to the first page is shown there
+        for (int i = pushedOff.size() - 1; i >= 0; i--) {
+            if (ids.contains(pushedOff.get(i).getEventId())) {
+                pushedOff.remove(i);
+            }
+        }
+    }
+
+    // The last event we have, used as the cursor for the next page
+    private Event lastLoadedEvent() {
+        for (int i = laterPages.size() - 1; i >= 0; i--) {
+            List<Event> page = laterPages.get(i);
+            if (!page.isEmpty()) {
+                return page.get(page.size() - 1);
+            }
+        }
+        if (!pushedOff.isEmpty()) {
+            return pushedOff.get(pushedOff.size() - 1);
+        }
+        return firstPage.isEmpty() ? null : firstPage.get(firstPage.size() - 1);
+    }
+
+    // Remember how long the page took and tell the listener
+    private void reportLatency(int pageNumber, int eventCount) {
+        long latencyMs = (System.nanoTime() - loadStartNanos) / 1_000_000;
+        pageLatenciesMs.add(latencyMs);
+        listener.onPageLoaded(pageNumber, eventCount, latencyMs);
+    }
+
+    // Put all the pages together and give them to the listener
+    private void publish() {
+        List<Event> events = new ArrayList<>(firstPage);
+        // An event can move from one page to another while we are scrolling, only show it once
+        Set<String> seen = idsOf(firstPage);
+        for (Event event : pushedOff) {
+            if (seen.add(event.getEventId())) {
+                events.add(event);
+            }
+        }
+        for (List<Event> page : laterPages) {
+            for (Event event : page) {
+                if (seen.add(event.getEventId())) {
+                    events.add(event);
+                }
+            }
+        }
+        listener.onEventsChanged(Collections.unmodifiableList(events));
+    }
+
+    private static Set<String> idsOf(List<Event> events) {
+        Set<String> ids = new HashSet<>();
+        for (Event event : events) {
+            ids.add(event.getEventId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,215 @@
+package com.project.wmpproject;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.project.wmpproject.model.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// This class keeps one shared listener on the "events" collection for the whole app.
+// Screens subscribe to it instead of adding their own Firestore listeners.
+// The backend calls it on a background thread in the app (see FirestoreEventBackend). The changes
+// are applied to the list there, and the subscribers are called on that thread too, so a screen
+// has to post what it shows to the main thread itself.
+public class EventRepository {
+
+    // Something that can be stopped, like a listener or a subscription
+    public interface Registration {
+        void remove();
+    }
+
+    // Where the events come from (Firestore in the app, FakeEventBackend in tests)
+    public interface Backend {
+        Registration listen(BackendListener listener);
+    }
+
+    // The backend calls this with only the events that changed since last time, always from the same thread
+    public interface BackendListener {
+        void onChanges(List<EventChange> changes);
+        void onError(Exception error);
+    }
+
+    // Screens implement this to get the latest list of events and what changed in it.
+    // It is called on the backend's thread, or on the thread that subscribed for the events we already had.
+    public interface Subscriber {
+        void onEvents(List<Event> events, List<EventChange> changes);
+    }
+
+    // The one repository used by the whole app
+    private static EventRepository instance;
+
+    // Where the events come from
+    private final Backend backend;
+    // Everyone who wants to know about the events
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    // The listener on the backend, only set while someone is subscribed
+    private Registration backendRegistration;
+    // Our listener given to the backend, set from the moment a subscriber starts attaching it,
+    // so nobody else attaches one, until the last subscriber leaves
+    private AttachedListener attached;
+    // The last list of events we got, or null if we have not got one yet
+    private List<Event> latestEvents;
+
+    // This creates a repository that reads events from the given backend
+    public EventRepository(Backend backend) {
+        this.backend = backend;
+    }
+
+    // Get the repository shared by the whole app
+    public static synchronized EventRepository getInstance() {
+        if (instance == null) {
+            instance = new EventRepository(new FirestoreEventBackend(FirebaseFirestore.getInstance()));
+        }
+        return instance;
+    }
+
+    // Start sending events to the subscriber, call remove() on the result to stop
+    public Registration subscribe(Subscriber subscriber) {
+        List<Event> replay;
+        AttachedListener attach = null;
+        synchronized (this) {
+            subscribers.add(subscriber);
+            // Only the first subscriber starts listening to the backend. It sets the listener
+            // straight away, so a second subscriber that comes in meanwhile does not attach too.
+            if (attached == null) {
+                // A new backend listener starts again from an empty list
+                attach = new AttachedListener();
+                attached = attach;
+            }
+            replay = attach != null ? null : latestEvents;
+        }
+
+        if (attach != null) {
+            Registration registration = backend.listen(attach);
+            boolean leftMeanwhile;
+            synchronized (this) {
+                // Everyone may have unsubscribed while we were attaching (and someone may even
+                // have subscribed again and attached a listener of their own)
+                leftMeanwhile = attached != attach;
+                if (!leftMeanwhile) {
+                    backendRegistration = registration;
+                }
+            }
+            if (leftMeanwhile) {
+                registration.remove();
+            }
+        } else if (replay != null) {
+            // Give a late subscriber the events we already have, as if they were all just added
+            subscriber.onEvents(replay, addedChanges(replay));
+        }
+
+        return new Registration() {
+            private boolean removed;
+
+            @Override
+            public void remove() {
+                if (!removed) {
+                    removed = true;
+                    unsubscribe(subscriber);
+                }
+            }
+        };
+    }
+
+    // Stop sending events to the subscriber
+    private void unsubscribe(Subscriber subscriber) {
+        Registration toRemove = null;
+        synchronized (this) {
+            subscribers.remove(subscriber);
+            // When the last subscriber leaves, stop listening to the backend.
+            // If it is still being attached, the subscriber attaching it removes it when it is done.
+            if (subscribers.isEmpty() && attached != null) {
+                toRemove = backendRegistration;
+                backendRegistration = null;
+                attached = null;
+                // The list stops being updated now, a later subscriber must not get it as the latest
+                latestEvents = null;
+            }
+        }
+        if (toRemove != null) {
+            toRemove.remove();
+        }
+    }
+
+    // Describe every event in the list as newly added
+    private static List<EventChange> addedChanges(List<Event> events) {
+        List<EventChange> changes = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            changes.add(new EventChange(EventChange.Type.ADDED, events.get(i), -1, i));
+        }
+        return changes;
+    }
+
+    // Apply the changes to the current events, and return only the ones that really changed something.
+    // Modifications where the event and its position stayed the same are left out,
+    // so subscribers do not redraw rows for them.
+    private static List<EventChange> applyChanges(List<Event> currentEvents, List<EventChange> changes) {
+        List<EventChange> applied = new ArrayList<>(changes.size());
+        for (EventChange change : changes) {
+            boolean unchanged = change.getType() == EventChange.Type.MODIFIED
+                    && change.getOldIndex() == change.getNewIndex()
+                    && change.getEvent().equals(currentEvents.get(change.getOldIndex()));
+            if (!unchanged) {
+                EventChange.applyAll(currentEvents, Collections.singletonList(change));
+                applied.add(change);
+            }
+        }
+        return applied;
+    }
+
+    // The last list of events, or null if there is none yet
+    public synchronized List<Event> getLatestEvents() {
+        return latestEvents;
+    }
+
+    // The number of screens currently subscribed
+    public synchronized int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    // Whether the repository is currently listening to the backend
+    public synchronized boolean isListening() {
+        return backendRegistration != null;
+    }
+
+    // Receives the events from the backend and passes them on to every subscriber.
+    // Every attach gets a new one, so a listener that was removed can't touch the list of the next one.
+    private class AttachedListener implements BackendListener {
+        // The events with every change from the backend applied to them, only used on the backend's thread
+        private final List<Event> currentEvents = new ArrayList<>();
+        // Whether the backend has sent us anything yet
+        private boolean received;
+
+        @Override
+        public void onChanges(List<EventChange> changes) {
+            // The list is updated and copied here, on the backend's thread and outside the lock,
+            // so a screen subscribing on the main thread never waits for a big snapshot.
+            // Only the changed events are touched, the rest of the list is reused.
+            List<EventChange> delta = Collections.unmodifiableList(applyChanges(currentEvents, changes));
+            if (delta.isEmpty() && received) {
+                // Nothing changed at all, there is no need to bother the subscribers
+                return;
+            }
+            received = true;
+            List<Event> snapshot = Collections.unmodifiableList(new ArrayList<>(currentEvents));
+            List<Subscriber> targets;
+            synchronized (EventRepository.this) {
+                if (attached != this) {
+                    // Everyone left while this snapshot was on its way
+                    return;
+                }
+                latestEvents = snapshot;
+                targets = new ArrayList<>(subscribers);
+            }
+            for (Subscriber subscriber : targets) {
+                subscriber.onEvents(snapshot, delta);
+            }
+        }
+
+        @Override
+        public void onError(Exception error) {
+            // The backend already logs the error, keep showing the last events we had
+        }
+    }
+}
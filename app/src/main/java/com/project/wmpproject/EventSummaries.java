@@ -0,0 +1,41 @@
+package com.project.wmpproject;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+import com.project.wmpproject.model.Event;
+
+import java.util.Map;
+
+// This class keeps a small copy of every event in the "event_summaries" collection.
+// The lists only show the title, the date, the place, a few lines of the description and a
+// small picture, so they read the summaries instead of the full events. A summary has the
+// same ID and field names as its event, so it reads into an Event too: the description is
+// cut short and imageUrl is the small picture (see EventSummaryFields in :core). The details
+// screen reads the full event.
+// Every write to an event writes its summary in the same batch, so they never disagree.
+public final class EventSummaries {
+
+    // The collection with the summaries, one per event with the same ID
+    public static final String COLLECTION = "event_summaries";
+    // The field of the full event with the URL of the small picture
+    public static final String THUMBNAIL_URL = EventSummaryFields.THUMBNAIL_URL;
+
+    private EventSummaries() {}
+
+    // The summary document of the event
+    public static DocumentReference summaryRef(FirebaseFirestore db, String eventId) {
+        return db.collection(COLLECTION).document(eventId);
+    }
+
+    // The fields of the summary of the event. thumbnailUrl can be null for old events,
+    // the full picture is used then.
+    public static Map<String, Object> fieldsOf(Event event, String thumbnailUrl) {
+        return EventSummaryFields.fieldsOf(event, thumbnailUrl);
+    }
+
+    // Write the summary of the event in the batch
+    public static void set(WriteBatch batch, FirebaseFirestore db, Event event, String thumbnailUrl) {
+        batch.set(summaryRef(db, event.getEventId()), fieldsOf(event, thumbnailUrl));
+    }
+}
@@ -0,0 +1,96 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// This backend keeps the events in memory instead of Firestore.
+// It is used to test and benchmark the EventRepository without Firebase.
+public class FakeEventBackend implements EventRepository.Backend {
+
+    // The events, kept in the order they were added
+    private final Map<String, Event> events = new LinkedHashMap<>();
+    // Everyone listening to this backend
+    private final List<EventRepository.BackendListener> listeners = new ArrayList<>();
+    // How many times listen() was called
+    private int listenCount;
+
+    @Override
+    public synchronized EventRepository.Registration listen(EventRepository.BackendListener listener) {
+        listeners.add(listener);
+        listenCount++;
+        // Just like Firestore, send the current events straight away
+        List<EventChange> changes = new ArrayList<>();
+        int index = 0;
+        for (Event event : events.values()) {
+            changes.add(new EventChange(EventChange.Type.ADDED, event, -1, index++));
+        }
+        listener.onChanges(changes);
+        return () -> {
+            synchronized (FakeEventBackend.this) {
+                listeners.remove(listener);
+            }
+        };
+    }
+
+    // Add a new event or replace the one with the same ID
+    public synchronized void put(Event event) {
+        int index = indexOf(event.getEventId());
+        events.put(event.getEventId(), event);
+        if (index < 0) {
+            dispatch(new EventChange(EventChange.Type.ADDED, event, -1, events.size() - 1));
+        } else {
+            dispatch(new EventChange(EventChange.Type.MODIFIED, event, index, index));
+        }
+    }
+
+    // Remove the event with the given ID
+    public synchronized void remove(String eventId) {
+        int index = indexOf(eventId);
+        Event removed = events.remove(eventId);
+        if (removed != null) {
+            dispatch(new EventChange(EventChange.Type.REMOVED, removed, index, -1));
+        }
+    }
+
+    // Make every listener receive an error
+    public synchronized void fail(Exception error) {
+        for (EventRepository.BackendListener listener : new ArrayList<>(listeners)) {
+            listener.onError(error);
+        }
+    }
+
+    // The number of listeners currently attached
+    public synchronized int getListenerCount() {
+        return listeners.size();
+    }
+
+    // How many times a listener was attached in total
+    public synchronized int getListenCount() {
+        return listenCount;
+    }
+
+    // Find where the event with the given ID is in the list, or -1
+    private int indexOf(String eventId) {
+        int index = 0;
+        for (String id : events.keySet()) {
+            if (id.equals(eventId)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    // Send a change to every listener
+    private void dispatch(EventChange change) {
+        List<EventChange> changes = Collections.singletonList(change);
+        for (EventRepository.BackendListener listener : new ArrayList<>(listeners)) {
+            listener.onChanges(changes);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.project.wmpproject;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.project.wmpproject.model.Attendance;
+import com.project.wmpproject.model.AttendanceMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// This loads the attendees of an event from Firestore, newest check-in first.
+// The documents are turned into attendees on a background thread, see BackgroundSnapshots.
+public class FirestoreAttendanceSource implements AttendancePager.Source {
+
+    private static final String CHECKIN_TIME = "checkinTime";
+
+    // The attendance documents of the event
+    private final CollectionReference attendance;
+
+    public FirestoreAttendanceSource(FirebaseFirestore db, String eventId) {
+        this.attendance = db.collection("events").document(eventId).collection("attendance");
+    }
+
+    // All attendees, newest first. The document ID keeps attendees that checked in at the same
+    // time in a fixed order.
+    private Query newestFirst() {
+        return attendance
+                .orderBy(CHECKIN_TIME, Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+    }
+
+    @Override
+    public void loadFirstPage(int pageSize, AttendancePager.PageCallback callback) {
+        load(newestFirst().limit(pageSize), callback);
+    }
+
+    @Override
+    public void loadPageBefore(Attendance last, int pageSize, AttendancePager.PageCallback callback) {
+        // Start right after the last attendee we have, using their check-in time and document ID as the
+        // cursor. Old check-ins have a random document ID, so the user's ID would be in the wrong place.
+        load(newestFirst().startAfter(last.checkinTime, last.documentId).limit(pageSize), callback);
+    }
+
+    @Override
+    public void countUpTo(Attendance newest, AttendancePager.CountCallback callback) {
+        // The server counts the documents, none of them are downloaded
+        attendance.whereLessThanOrEqualTo(CHECKIN_TIME, newest.checkinTime)
+                .count()
+                .get(AggregateSource.SERVER)
+                .addOnSuccessListener(snapshot -> {
+                    FirestoreUsage.recordCount(FirestoreMeter.OPEN_EVENT_DETAILS, snapshot.getCount());
+                    callback.onCount(snapshot.getCount());
+                })
+                .addOnFailureListener(e -> {
+                    Log.w("FirestoreAttendanceSource", "Error counting attendees", e);
+                    callback.onError(e);
+                });
+    }
+
+    @Override
+    public EventRepository.Registration listenAfter(Attendance newest, AttendancePager.ChangesCallback callback) {
+        Query query = attendance;
+        if (newest != null) {
+            query = query.whereGreaterThan(CHECKIN_TIME, newest.checkinTime);
+        }
+        // Whether we have already passed on the first snapshot, only used on the background thread
+        boolean[] receivedFirst = {false};
+        return BackgroundSnapshots.listen(query.orderBy(CHECKIN_TIME, Query.Direction.DESCENDING), "attendance",
+                FirestoreMeter.OPEN_EVENT_DETAILS, value -> {
+            // Skip snapshots where only hasPendingWrites or isFromCache changed, nobody checked in
+            if (receivedFirst[0] && value.getDocumentChanges().isEmpty()) {
+                return null;
+            }
+            receivedFirst[0] = true;
+
+            List<ListChange<Attendance>> changes = new ArrayList<>();
+            for (DocumentChange documentChange : value.getDocumentChanges()) {
+                changes.add(new ListChange<>(toChangeType(documentChange.getType()),
+                        toAttendance(documentChange.getDocument()),
+                        documentChange.getOldIndex(), documentChange.getNewIndex()));
+            }
+            return Collections.unmodifiableList(changes);
+        }, new BackgroundSnapshots.Receiver<List<ListChange<Attendance>>>() {
+            @Override
+            public void onResult(List<ListChange<Attendance>> changes) {
+                callback.onChanges(changes);
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // If there's an error, print it to the log
+                Log.w("FirestoreAttendanceSource", "Listen failed.", error);
+                callback.onError(error);
+            }
+        });
+    }
+
+    private static void load(Query query, AttendancePager.PageCallback callback) {
+        BackgroundSnapshots.get(query, Source.DEFAULT, "attendance", FirestoreMeter.OPEN_EVENT_DETAILS,
+                FirestoreAttendanceSource::toAttendanceList,
+                new BackgroundSnapshots.Receiver<List<Attendance>>() {
+            @Override
+            public void onResult(List<Attendance> attendanceList) {
+                callback.onPage(attendanceList);
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // If there's an error, print it to the log
+                Log.w("FirestoreAttendanceSource", "Error loading attendees", error);
+                callback.onError(error);
+            }
+        });
+    }
+
+    // Convert the documents in the snapshot to attendees, runs on the background thread
+    private static List<Attendance> toAttendanceList(QuerySnapshot value) {
+        List<Attendance> attendanceList = new ArrayList<>();
+        for (QueryDocumentSnapshot document : value) {
+            attendanceList.add(toAttendance(document));
+        }
+        return Collections.unmodifiableList(attendanceList);
+    }
+
+    // Get the user ID, check-in time, username and picture of the attendance document
+    private static Attendance toAttendance(DocumentSnapshot document) {
+        // A check-in made on this phone has no server time yet, use the estimate until it has
+        Attendance attendance = AttendanceMapper.fromMap(document.getData(DocumentSnapshot.ServerTimestampBehavior.ESTIMATE));
+        if (attendance != null) {
+            attendance.documentId = document.getId();
+        }
+        return attendance;
+    }
+
+    // Turn a Firestore change type into our own change type
+    private static ListChange.Type toChangeType(DocumentChange.Type type) {
+        switch (type) {
+            case ADDED:
+                return ListChange.Type.ADDED;
+            case REMOVED:
+                return ListChange.Type.REMOVED;
+            default:
+                return ListChange.Type.MODIFIED;
+        }
+    }
+}
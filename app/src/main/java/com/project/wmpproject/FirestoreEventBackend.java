@@ -0,0 +1,76 @@
+package com.project.wmpproject;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.project.wmpproject.model.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// This backend reads the events from the "events" collection in Firestore.
+// The documents are turned into events on a background thread, see BackgroundSnapshots.
+// The changes are handed to the repository on that background thread too, so it can apply them
+// to its big list there and the main thread only gets the finished list.
+public class FirestoreEventBackend implements EventRepository.Backend {
+
+    // Tool for interacting with the database
+    private final FirebaseFirestore db;
+
+    public FirestoreEventBackend(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    @Override
+    public EventRepository.Registration listen(EventRepository.BackendListener listener) {
+        // Whether we have already passed on the first snapshot, only used on the background thread
+        boolean[] receivedFirst = {false};
+        return BackgroundSnapshots.listenInBackground(db.collection("events"), "allEvents", FirestoreMeter.SEARCH, value -> {
+            // Skip snapshots where only hasPendingWrites or isFromCache changed, no event changed
+            if (receivedFirst[0] && value.getDocumentChanges().isEmpty()) {
+                return null;
+            }
+            receivedFirst[0] = true;
+
+            // Only convert the documents that changed since the last snapshot
+            List<EventChange> changes = new ArrayList<>();
+            for (DocumentChange documentChange : value.getDocumentChanges()) {
+                QueryDocumentSnapshot document = documentChange.getDocument();
+                // Convert the database data to an Event object
+                Event event = FirestoreEvents.toEvent(document);
+                // The search reads every event, so this is where old events are seen first
+                FirestoreEvents.backfill(db, document, event);
+                changes.add(new EventChange(toChangeType(documentChange.getType()), event,
+                        documentChange.getOldIndex(), documentChange.getNewIndex()));
+            }
+            return Collections.unmodifiableList(changes);
+        }, new BackgroundSnapshots.Receiver<List<EventChange>>() {
+            @Override
+            public void onResult(List<EventChange> changes) {
+                listener.onChanges(changes);
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // If there's an error, print it to the log
+                Log.w("FirestoreEventBackend", "Listen failed.", error);
+                listener.onError(error);
+            }
+        });
+    }
+
+    // Turn a Firestore change type into our own change type
+    private static EventChange.Type toChangeType(DocumentChange.Type type) {
+        switch (type) {
+            case ADDED:
+                return EventChange.Type.ADDED;
+            case REMOVED:
+                return EventChange.Type.REMOVED;
+            default:
+                return EventChange.Type.MODIFIED;
+        }
+    }
+}
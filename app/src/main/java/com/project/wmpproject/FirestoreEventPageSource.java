@@ -0,0 +1,148 @@
+package com.project.wmpproject;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.project.wmpproject.model.Event;
+import com.project.wmpproject.model.EventMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// This loads pages of events from Firestore, ordered by date and then by ID.
+// It reads the event summaries, which have everything a list row shows and are much smaller
+// than the full events. The details screen reads the full event when it is opened.
+// The documents are turned into events on a background thread, see BackgroundSnapshots.
+public class FirestoreEventPageSource implements EventPager.Source {
+
+    // Tool for interacting with the database
+    private final FirebaseFirestore db;
+    // Only events from this time on, and before the end time, in milliseconds since 1970
+    private final Long fromMillis;
+    private final Long untilMillis;
+    // Whether to ignore results that only come from the phone's Firestore cache
+    private boolean skipCachedResults;
+    // The flow the reads are counted for in the FirestoreMeter
+    private String flow = FirestoreMeter.OPEN_FEED;
+    // The latest document of every event we handed out, by ID. The next page starts right after one
+    // of them. Filled on the background thread and read on the main thread.
+    private final Map<String, DocumentSnapshot> cursors = new ConcurrentHashMap<>();
+
+    // All events
+    public FirestoreEventPageSource(FirebaseFirestore db) {
+        this(db, null, null);
+    }
+
+    // Only the events between the two times, null means no limit on that side
+    public FirestoreEventPageSource(FirebaseFirestore db, Long fromMillis, Long untilMillis) {
+        this.db = db;
+        this.fromMillis = fromMillis;
+        this.untilMillis = untilMillis;
+    }
+
+    // The events that start from now until the given number of days from now
+    public static FirestoreEventPageSource upcoming(FirebaseFirestore db, int days) {
+        long now = System.currentTimeMillis();
+        return new FirestoreEventPageSource(db, now, now + days * EventTime.DAY_MILLIS);
+    }
+
+    // Only pass on results that the server confirmed. The cache can have events that were
+    // deleted, or be missing some, so a local copy that is kept in sync should not use it.
+    public void setSkipCachedResults(boolean skipCachedResults) {
+        this.skipCachedResults = skipCachedResults;
+    }
+
+    // Count the reads for another flow than the feed, like the admin screen.
+    // The EventPager starts the runs, give it the same flow.
+    public void setFlow(String flow) {
+        this.flow = flow;
+    }
+
+    // All event summaries in date order. The ID is added so events at the same time still have a fixed order.
+    // The range filter is on the same field as the ordering, so Firestore needs no extra index.
+    private Query orderedEvents() {
+        Query query = db.collection(EventSummaries.COLLECTION);
+        if (fromMillis != null) {
+            query = query.whereGreaterThanOrEqualTo(EventMapper.DATE_TIME_MILLIS, fromMillis);
+        }
+        if (untilMillis != null) {
+            query = query.whereLessThan(EventMapper.DATE_TIME_MILLIS, untilMillis);
+        }
+        return query
+                .orderBy(EventMapper.DATE_TIME_MILLIS)
+                .orderBy(FieldPath.documentId());
+    }
+
+    @Override
+    public EventRepository.Registration listenFirstPage(int pageSize, EventPager.PageCallback callback) {
+        // Whether we have already passed on the first snapshot, only used on the background thread
+        boolean[] receivedFirst = {false};
+        return BackgroundSnapshots.listen(orderedEvents().limit(pageSize), "events", flow, value -> {
+            if (skipCachedResults && value.getMetadata().isFromCache()) {
+                return null;
+            }
+
+            // Skip snapshots where only hasPendingWrites or isFromCache changed, no event changed
+            if (receivedFirst[0] && value.getDocumentChanges().isEmpty()) {
+                return null;
+            }
+            receivedFirst[0] = true;
+            return toEvents(value);
+        }, new BackgroundSnapshots.Receiver<List<Event>>() {
+            @Override
+            public void onResult(List<Event> events) {
+                callback.onPage(events);
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // If there's an error, print it to the log
+                Log.w("FirestoreEventPageSource", "Listen failed.", error);
+                callback.onError(error);
+            }
+        });
+    }
+
+    @Override
+    public void loadPageAfter(Event lastEvent, int pageSize, EventPager.PageCallback callback) {
+        // Start right after the document of the last event we have
+        DocumentSnapshot cursor = cursors.get(lastEvent.getEventId());
+        Query page = cursor != null
+                ? orderedEvents().startAfter(cursor)
+                : orderedEvents().startAfter(lastEvent.getDateTimeMillis(), lastEvent.getEventId());
+        BackgroundSnapshots.get(page.limit(pageSize), skipCachedResults ? Source.SERVER : Source.DEFAULT,
+                "events", flow, this::toEvents, new BackgroundSnapshots.Receiver<List<Event>>() {
+            @Override
+            public void onResult(List<Event> events) {
+                callback.onPage(events);
+            }
+
+            @Override
+            public void onError(Exception error) {
+                // If there's an error, print it to the log
+                Log.w("FirestoreEventPageSource", "Error loading page", error);
+                callback.onError(error);
+            }
+        });
+    }
+
+    // Convert the documents in the snapshot to Event objects, runs on the background thread.
+    // The documents are kept as the cursors of the pages after them.
+    private List<Event> toEvents(QuerySnapshot value) {
+        List<Event> events = new ArrayList<>();
+        for (QueryDocumentSnapshot document : value) {
+            cursors.put(document.getId(), document);
+            events.add(FirestoreEvents.toEvent(document));
+        }
+        return Collections.unmodifiableList(events);
+    }
+}
@@ -0,0 +1,60 @@
+package com.project.wmpproject;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+import com.project.wmpproject.model.Event;
+import com.project.wmpproject.model.EventMapper;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// This class turns event documents into Event objects.
+// Events created before "dateTimeMillis" existed only have the "dateTime" text, so for those the
+// text is parsed when the event is read. They have no summary either, and the feeds read the
+// summaries ordered by that number, so they don't show up there until they are brought up to
+// date. The data migration (see DataMigration) does that for all of them, and backfill() does it
+// for an event as soon as a screen reads it, so the feeds don't have to wait for an admin.
+public final class FirestoreEvents {
+
+    // The events this app already tried to bring up to date, so a listener doesn't write them again
+    private static final Set<String> backfilled = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private FirestoreEvents() {}
+
+    // Convert the document to an Event, old events get their date in milliseconds from the text
+    public static Event toEvent(DocumentSnapshot document) {
+        // Read the fields straight from the document, without reflection
+        Event event = EventMapper.fromMap(document.getId(), document.getData());
+        if (event == null) {
+            return null;
+        }
+        if (!document.contains(EventMapper.DATE_TIME_MILLIS)) {
+            long millis = EventTime.parseOrZero(event.getDateTime());
+            if (millis != 0) {
+                event.setDateTimeMillis(millis);
+            }
+        }
+        return event;
+    }
+
+    // Give an old event its date in milliseconds and its summary, like DataMigration does, so the
+    // feeds show it. Only once per event, any thread. If the user may not write events the write
+    // fails and the event waits for the data migration, it is still shown by the screen that read it.
+    public static void backfill(FirebaseFirestore db, DocumentSnapshot document, Event event) {
+        if (event == null || document.contains(EventMapper.DATE_TIME_MILLIS) || event.getDateTimeMillis() == 0
+                || !backfilled.add(document.getId())) {
+            return;
+        }
+        // An event that has the number also has its summary, they were always written together
+        WriteBatch batch = db.batch();
+        batch.update(document.getReference(), EventMapper.DATE_TIME_MILLIS, event.getDateTimeMillis());
+        EventSummaries.set(batch, db, event, document.getString(EventSummaries.THUMBNAIL_URL));
+        batch.commit()
+                .addOnSuccessListener(aVoid -> FirestoreUsage.recordWrites(FirestoreMeter.MIGRATIONS, 2))
+                .addOnFailureListener(e -> Log.w("FirestoreEvents", "Error bringing event " + document.getId() + " up to date", e));
+    }
+}
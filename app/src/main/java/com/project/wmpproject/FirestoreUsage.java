@@ -0,0 +1,94 @@
+package com.project.wmpproject;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+// This class tells the FirestoreMeter what a Firestore result cost. How Firestore bills it is
+// worked out by the meter (every document a query returns is a read, a query that finds nothing
+// still costs one, a listener pays for all its documents once and then only for the changes, and
+// results that only came from the phone's cache are free), this only reads the snapshots for it.
+public final class FirestoreUsage {
+
+    private FirestoreUsage() {}
+
+    // Count the documents of a query result. first says whether it is the first snapshot of a listener,
+    // or the result of a get(), where all the documents are billed.
+    public static void recordQuery(String flow, QuerySnapshot value, boolean first) {
+        FirestoreMeter.get().recordQuery(flow, resultOf(value), first);
+    }
+
+    // Count the snapshots of one listener, see FirestoreMeter.ListenerReads
+    public static FirestoreMeter.ListenerReads listenerReads(String flow) {
+        return new FirestoreMeter.ListenerReads(FirestoreMeter.get(), flow);
+    }
+
+    // The query result as the meter sees it. The sizes are only added up for what is billed.
+    public static FirestoreMeter.QueryResult resultOf(QuerySnapshot value) {
+        return new FirestoreMeter.QueryResult() {
+            @Override
+            public boolean isFromCache() {
+                return value.getMetadata().isFromCache();
+            }
+
+            @Override
+            public int documentCount() {
+                return value.size();
+            }
+
+            @Override
+            public long documentBytes() {
+                long bytes = 0;
+                for (DocumentSnapshot document : value.getDocuments()) {
+                    bytes += sizeOf(document);
+                }
+                return bytes;
+            }
+
+            @Override
+            public int changeCount() {
+                return value.getDocumentChanges().size();
+            }
+
+            @Override
+            public long changeBytes() {
+                long bytes = 0;
+                for (DocumentChange change : value.getDocumentChanges()) {
+                    bytes += sizeOf(change.getDocument());
+                }
+                return bytes;
+            }
+        };
+    }
+
+    // Count one document that was read on its own, a missing document is a read too
+    public static void recordDocument(String flow, DocumentSnapshot document) {
+        FirestoreMeter.get().recordDocument(flow, document.getMetadata().isFromCache(),
+                document.getReference().getPath(), document.getData());
+    }
+
+    // Count a count query that counted the given number of documents
+    public static void recordCount(String flow, long counted) {
+        FirestoreMeter.get().recordCount(flow, counted);
+    }
+
+    // Count the writes of a batch or transaction that went through
+    public static void recordWrites(String flow, int documents) {
+        FirestoreMeter.get().recordWrites(flow, documents);
+    }
+
+    // Warn if a run of the flow read or wrote more than its budget, stay quiet otherwise
+    public static void warnIfOverBudget(String tag, String flow) {
+        FirestoreMeter.Usage usage = FirestoreMeter.get().getUsage(flow);
+        FirestoreMeter.Budget budget = FirestoreMeter.budgetOf(flow);
+        if (!usage.isWithin(budget)) {
+            Log.w(tag, "Firestore usage of " + flow + " is over budget: " + usage + " (" + budget + " per run)");
+        }
+    }
+
+    private static long sizeOf(DocumentSnapshot document) {
+        return FirestoreMeter.sizeOf(document.getReference().getPath(), document.getData());
+    }
+}
@@ -3,7 +3,6 @@ package com.project.wmpproject;
 // Importing necessary tools for the screen, buttons, and Firebase
 import android.content.Intent;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.View;
 import android.widget.ImageButton;
 import android.widget.ImageView;
@@ -15,25 +14,23 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.project.wmpproject.adapter.EventAdapter;
-import com.project.wmpproject.model.Event;
-
-import java.util.ArrayList;
-import java.util.List;
 
 public class HomeActivity extends AppCompatActivity {
 
     // This is the list of events that will be shown on the screen
     private RecyclerView eventsRecyclerView;
-    // Tool for interacting with the database
-    private FirebaseFirestore db;
     // Tool for displaying the list of events
     private EventAdapter adapter;
+    // Keeps the events and the listeners while the screen is rotated or resized
+    private HomeViewModel viewModel;
+
+    // How many rows before the end of the list we start loading the next page
+    private static final int PREFETCH_DISTANCE = 5;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -59,12 +56,6 @@ public class HomeActivity extends AppCompatActivity {
         ImageButton searchButton = findViewById(R.id.searchButton);
         eventsRecyclerView = findViewById(R.id.eventsRecyclerView);
 
-        // Set up Firebase tools
-        db = FirebaseFirestore.getInstance();
-
-        // Get the list of events from the database
-        getEventsFromFirestore();
-
         // Go to the ProfileActivity when the profile image is clicked
         profileImage.setOnClickListener(v -> {
             Intent intent = new Intent(HomeActivity.this, ProfileActivity.class);
@@ -79,33 +70,27 @@ public class HomeActivity extends AppCompatActivity {
 
         // Set up the RecyclerView to display the list of events
         eventsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
-        adapter = new EventAdapter(new ArrayList<>()); // Start with an empty list
+        adapter = new EventAdapter(); // Start with an empty list
         eventsRecyclerView.setAdapter(adapter);
+
+        // The events come from the view model, a rotated screen gets them without reading them again
+        viewModel = new ViewModelProvider(this).get(HomeViewModel.class);
+        viewModel.getListeners().follow(this);
+        // Give the adapter the new list, only the rows that changed are redrawn
+        viewModel.getEvents().observe(this, adapter::submitList);
+
+        // Load the next page when the user scrolls near the end of the list
+        eventsRecyclerView.addOnScrollListener(new PagingScrollListener(
+                (LinearLayoutManager) eventsRecyclerView.getLayoutManager(), PREFETCH_DISTANCE, viewModel::loadMore));
+        // Don't load pictures for rows that fly past while the list is flinging
+        eventsRecyclerView.addOnScrollListener(ImageLoader.get().pauseOnFling(this));
     }
 
-    // Get the events from the Firebase database
-    private void getEventsFromFirestore() {
-        db.collection("events").addSnapshotListener((value, error) -> {
-            if (error != null) {
-                // If there's an error, print it to the log
-                Log.w("HomeActivity", "Listen failed.", error);
-                return;
-            }
-
-            // Create a list to store the events
-            List<Event> events = new ArrayList<>();
-            // Go through each event in the database
-            for (QueryDocumentSnapshot document : value) {
-                // Convert the database data to an Event object
-                Event event = document.toObject(Event.class);
-                event.setEventId(document.getId());
-                // Add the event to the list
-                events.add(event);
-            }
-            // Update the adapter with the new list of events
-            adapter.events = events;
-            // Tell the adapter to refresh the list on screen
-            adapter.notifyDataSetChanged();
-        });
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Stop loading the pictures of this screen, the listeners are kept by the view model
+        ImageLoader.get().cancelAll(this);
+        FirestoreUsage.warnIfOverBudget("HomeActivity", FirestoreMeter.OPEN_FEED);
     }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.project.wmpproject;
+
+import android.app.Application;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.SavedStateHandle;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.project.wmpproject.model.Event;
+
+import java.util.List;
+
+// This keeps the state of the home screen while the screen is rotated or resized:
+// the events shown, how far the user scrolled, and the listeners. A new screen just
+// shows what is here, it doesn't read anything again.
+public class HomeViewModel extends AndroidViewModel {
+
+    // The key for the number of visible events, so it survives the app being killed in the background
+    private static final String KEY_VISIBLE_COUNT = "visibleCount";
+
+    private final SavedStateHandle savedState;
+    // The copy of the events on the phone, the list only ever shows what is in here
+    private final LocalEventStore localStore;
+    // Loads the events from Firestore one page at a time, into the local copy
+    private final EventPager eventPager;
+    // The events shown in the list
+    private final MutableLiveData<List<Event>> events = new MutableLiveData<>();
+    // Attaches the listeners while the screen is visible, and keeps them through rotations
+    private final ListenerRegistry listeners = new ListenerRegistry();
+    // Reads the list again when the copy changed
+    private final LocalEventStore.Observer storeObserver = this::showEvents;
+
+    public HomeViewModel(@NonNull Application application, @NonNull SavedStateHandle savedState) {
+        super(application);
+        this.savedState = savedState;
+        localStore = LocalEventStore.getInstance(application);
+
+        FirestoreEventPageSource source = new FirestoreEventPageSource(FirebaseFirestore.getInstance());
+        // Events only in the phone's Firestore cache could delete events from the local copy by mistake
+        source.setSkipCachedResults(true);
+        eventPager = new EventPager(source, EventPager.DEFAULT_PAGE_SIZE,
+                FirestoreMeter.get(), FirestoreMeter.OPEN_FEED, new EventPager.Listener() {
+            @Override
+            public void onEventsChanged(List<Event> loaded) {
+                // The changes are written in the background, then storeObserver shows them
+                localStore.syncLoaded(loaded, eventPager.isEndReached());
+            }
+
+            @Override
+            public void onPageLoaded(int pageNumber, int eventCount, long latencyMs) {
+                // The pager keeps the latencies of the pages, nothing else to do here
+            }
+        });
+
+        // Show the events we saved last time straight away, without waiting for the network.
+        // While the screen is hidden we stop watching the copy, and read it again when it comes back.
+        listeners.add(() -> {
+            localStore.addObserver(storeObserver);
+            showEvents();
+            return () -> localStore.removeObserver(storeObserver);
+        });
+        // Only listen to the loaded events while the screen is visible
+        listeners.add(() -> {
+            eventPager.start();
+            return eventPager::stop;
+        });
+    }
+
+    // The events shown in the list
+    public LiveData<List<Event>> getEvents() {
+        return events;
+    }
+
+    // The listeners of the screen, the screen calls follow() on it
+    public ListenerRegistry getListeners() {
+        return listeners;
+    }
+
+    // Show more events from the local copy, and load the next page from Firestore
+    public void loadMore() {
+        List<Event> shown = events.getValue();
+        int visibleCount = getVisibleCount();
+        if (shown != null && shown.size() >= visibleCount) {
+            savedState.set(KEY_VISIBLE_COUNT, visibleCount + EventPager.DEFAULT_PAGE_SIZE);
+            showEvents();
+        }
+        eventPager.loadNextPage();
+    }
+
+    // How many events the list shows, it grows when the user scrolls down
+    private int getVisibleCount() {
+        Integer visibleCount = savedState.get(KEY_VISIBLE_COUNT);
+        return visibleCount != null ? visibleCount : EventPager.DEFAULT_PAGE_SIZE;
+    }
+
+    // Read the first events of the local copy
+    private void showEvents() {
+        localStore.loadFirst(getVisibleCount(), events::setValue);
+    }
+
+    @Override
+    protected void onCleared() {
+        // The screen is gone for good, stop listening
+        listeners.destroy();
+    }
+}
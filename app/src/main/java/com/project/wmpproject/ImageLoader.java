@@ -0,0 +1,193 @@
+package com.project.wmpproject;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.widget.ImageView;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.squareup.picasso.Callback;
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.RequestCreator;
+
+// This class is the one place where the app loads pictures into image views.
+// Pictures are decoded at the size of the view instead of at full size. The small event pictures
+// of the lists are also decoded with RGB_565 (half the memory of the default): there are many of
+// them and they are small, so the lost colours don't show. Profile pictures, the big picture of
+// the details screen and the picture the user just picked keep the full colours.
+// Every request gets a tag, usually the screen it belongs to, so a screen can pause its
+// requests while the list is flinging and cancel them all when it closes.
+public final class ImageLoader {
+
+    // How the loads went since the app started
+    public static class Stats {
+        // Pictures that were already decoded in the memory cache
+        public final int hits;
+        // Pictures that had to be downloaded or read from disk and decoded
+        public final int misses;
+        public final int errors;
+        // The average time from asking for a picture until it was shown, for the misses
+        public final long averageMissMs;
+
+        Stats(int hits, int misses, int errors, long averageMissMs) {
+            this.hits = hits;
+            this.misses = misses;
+            this.errors = errors;
+            this.averageMissMs = averageMissMs;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + " misses=" + misses + " errors=" + errors + " averageMissMs=" + averageMissMs;
+        }
+    }
+
+    // The one loader used by the whole app
+    private static ImageLoader instance;
+
+    private int hits;
+    private int misses;
+    private int errors;
+    private long totalMissMs;
+
+    private ImageLoader() {}
+
+    // Get the loader shared by the whole app
+    public static synchronized ImageLoader get() {
+        if (instance == null) {
+            instance = new ImageLoader();
+        }
+        return instance;
+    }
+
+    // Load the picture at the URL into the view, cropped to the view's size
+    public void load(String url, ImageView target, Object tag) {
+        load(url, target, tag, 0);
+    }
+
+    // Same as above, and show the placeholder while loading or when there is no picture
+    public void load(String url, ImageView target, Object tag, @DrawableRes int placeholder) {
+        if (url == null || url.isEmpty()) {
+            show(null, target, placeholder);
+            return;
+        }
+        show(Picasso.get().load(url).tag(tag), target, placeholder);
+    }
+
+    // Load the small picture of an event in a list, with RGB_565 like prefetch()
+    public void loadThumbnail(String url, ImageView target, Object tag) {
+        if (url == null || url.isEmpty()) {
+            show(null, target, 0);
+            return;
+        }
+        show(Picasso.get().load(url).tag(tag).config(Bitmap.Config.RGB_565), target, 0);
+    }
+
+    // Load a picture from the device, like one the user just picked
+    public void load(Uri uri, ImageView target, Object tag) {
+        show(Picasso.get().load(uri).tag(tag), target, 0);
+    }
+
+    // Download and decode the small picture of an event that will be shown soon, like the next
+    // rows of a list. Prefetches wait behind the pictures that are on screen.
+    public void prefetch(String url, int widthPx, int heightPx, Object tag) {
+        if (url == null || url.isEmpty() || widthPx <= 0 || heightPx <= 0) {
+            return;
+        }
+        // The same size and options as loadThumbnail(), so the prefetched picture is found in the cache
+        Picasso.get().load(url)
+                .resize(widthPx, heightPx)
+                .centerCrop()
+                .config(Bitmap.Config.RGB_565)
+                .priority(Picasso.Priority.LOW)
+                .tag(tag)
+                .fetch();
+    }
+
+    // Stop loading into the view, for example because the row is showing something else now
+    public void cancel(ImageView target) {
+        Picasso.get().cancelRequest(target);
+    }
+
+    // Stop and start all the requests of a screen
+    public void pause(Object tag) {
+        Picasso.get().pauseTag(tag);
+    }
+
+    public void resume(Object tag) {
+        Picasso.get().resumeTag(tag);
+    }
+
+    // Forget all the requests of a screen, call this when the screen is closed
+    public void cancelAll(Object tag) {
+        Picasso.get().cancelTag(tag);
+    }
+
+    // A scroll listener that pauses the screen's requests while the list is flinging,
+    // so we don't decode pictures of rows that fly past without being looked at
+    public RecyclerView.OnScrollListener pauseOnFling(Object tag) {
+        return new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_SETTLING) {
+                    pause(tag);
+                } else {
+                    resume(tag);
+                }
+            }
+        };
+    }
+
+    // How the loads went since the app started
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, errors, misses == 0 ? 0 : totalMissMs / misses);
+    }
+
+    // Put the request into the view, decoded at the view's size, and count how it went
+    private void show(RequestCreator request, ImageView target, @DrawableRes int placeholder) {
+        if (request == null) {
+            cancel(target);
+            if (placeholder != 0) {
+                target.setImageResource(placeholder);
+            } else {
+                target.setImageDrawable(null);
+            }
+            return;
+        }
+        request.fit().centerCrop();
+        if (placeholder != 0) {
+            request.placeholder(placeholder).error(placeholder);
+        }
+
+        long startNanos = System.nanoTime();
+        // Picasso calls onSuccess before into() returns when the picture is in the memory cache
+        boolean[] returned = {false};
+        request.into(target, new Callback() {
+            @Override
+            public void onSuccess() {
+                recordSuccess(!returned[0], startNanos);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                recordError();
+            }
+        });
+        returned[0] = true;
+    }
+
+    private synchronized void recordSuccess(boolean fromMemory, long startNanos) {
+        if (fromMemory) {
+            hits++;
+        } else {
+            misses++;
+            totalMissMs += (System.nanoTime() - startNanos) / 1_000_000;
+        }
+    }
+
+    private synchronized void recordError() {
+        errors++;
+    }
+}
@@ -0,0 +1,243 @@
+package com.project.wmpproject;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.OpenableColumns;
+import android.util.Log;
+
+import com.google.firebase.storage.StorageMetadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// This class makes picked images small before they are uploaded.
+// Camera pictures can be 5-12 MB, but the app never shows them bigger than the screen,
+// so the image is decoded at a smaller size, turned the right way up, resized
+// and compressed again. The new file has no EXIF data, so no location or camera info is uploaded.
+// All of this happens on a background thread, the result is delivered on the main thread.
+public class ImagePreparer {
+
+    // How an image should be prepared
+    public static class Options {
+        // The longest side of the image after resizing, in pixels
+        public final int maxDimension;
+        // The compression quality, from 0 to 100
+        public final int quality;
+        // Whether to save as WebP (smaller) or JPEG
+        public final boolean webp;
+
+        public Options(int maxDimension, int quality, boolean webp) {
+            this.maxDimension = maxDimension;
+            this.quality = quality;
+            this.webp = webp;
+        }
+    }
+
+    // Event pictures are shown full width on the details screen
+    public static final Options EVENT_IMAGE = new Options(1600, 80, true);
+    // Profile pictures are only shown small
+    public static final Options PROFILE_IMAGE = new Options(512, 80, true);
+    // The small copy of an event picture that the lists show
+    public static final Options EVENT_THUMBNAIL = new Options(400, 70, true);
+
+    // The image after it was prepared, ready to upload with putBytes
+    public static class PreparedImage {
+        public final byte[] bytes;
+        // The size of the picked file, or 0 if we couldn't find out
+        public final long originalBytes;
+        // "webp" or "jpg", to use in the file name
+        public final String extension;
+        public final String contentType;
+
+        PreparedImage(byte[] bytes, long originalBytes, String extension, String contentType) {
+            this.bytes = bytes;
+            this.originalBytes = originalBytes;
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        // How many bytes we didn't have to upload
+        public long getBytesSaved() {
+            return Math.max(0, originalBytes - bytes.length);
+        }
+
+        // Tell Firebase Storage what kind of file this is
+        public StorageMetadata toMetadata() {
+            return new StorageMetadata.Builder().setContentType(contentType).build();
+        }
+    }
+
+    // Called on the main thread when the image is ready, or when it could not be read
+    public interface Callback {
+        void onPrepared(PreparedImage image);
+        void onError(Exception error);
+    }
+
+    // One background thread is enough, the user picks one image at a time
+    private static final Executor BACKGROUND = Executors.newSingleThreadExecutor();
+
+    // How many bytes were saved by all the uploads since the app started
+    private static long totalBytesSaved;
+
+    private final ContentResolver contentResolver;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public ImagePreparer(Context context) {
+        this.contentResolver = context.getApplicationContext().getContentResolver();
+    }
+
+    // Prepare the image in the background and give it to the callback on the main thread
+    public void prepare(Uri uri, Options options, Callback callback) {
+        BACKGROUND.execute(() -> {
+            try {
+                PreparedImage image = prepareNow(uri, options);
+                recordSaved(image);
+                mainHandler.post(() -> callback.onPrepared(image));
+            } catch (IOException | RuntimeException e) {
+                Log.w("ImagePreparer", "Error preparing image", e);
+                mainHandler.post(() -> callback.onError(e));
+            }
+        });
+    }
+
+    // The number of bytes saved by all the uploads since the app started
+    public static synchronized long getTotalBytesSaved() {
+        return totalBytesSaved;
+    }
+
+    // Remember how much smaller the image got
+    private static synchronized void recordSaved(PreparedImage image) {
+        totalBytesSaved += image.getBytesSaved();
+    }
+
+    // Do the work, on the calling thread
+    private PreparedImage prepareNow(Uri uri, Options options) throws IOException {
+        // First only read the size of the image, this doesn't load the pixels
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not an image: " + uri);
+        }
+
+        // Decode a smaller copy straight away, so a 12 MP picture doesn't need 48 MB of memory
+        BitmapFactory.Options decode = new BitmapFactory.Options();
+        decode.inSampleSize = calculateInSampleSize(bounds.outWidth, bounds.outHeight, options.maxDimension);
+        Bitmap bitmap;
+        try (InputStream in = open(uri)) {
+            bitmap = BitmapFactory.decodeStream(in, null, decode);
+        }
+        if (bitmap == null) {
+            throw new IOException("Could not decode image: " + uri);
+        }
+
+        // Resize to the exact size and turn the picture the way the camera says it should be
+        Matrix matrix = new Matrix();
+        float scale = scaleFactor(bitmap.getWidth(), bitmap.getHeight(), options.maxDimension);
+        matrix.postScale(scale, scale);
+        int rotation = readRotation(uri);
+        if (rotation != 0) {
+            matrix.postRotate(rotation);
+        }
+        if (!matrix.isIdentity()) {
+            Bitmap transformed = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+            if (transformed != bitmap) {
+                bitmap.recycle();
+                bitmap = transformed;
+            }
+        }
+
+        // Compress again. The new file only has pixels, the EXIF data of the original is gone.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(compressFormat(options), options.quality, out);
+        bitmap.recycle();
+        return new PreparedImage(out.toByteArray(), originalSize(uri),
+                options.webp ? "webp" : "jpg", options.webp ? "image/webp" : "image/jpeg");
+    }
+
+    private InputStream open(Uri uri) throws IOException {
+        InputStream in = contentResolver.openInputStream(uri);
+        if (in == null) {
+            throw new IOException("Could not open " + uri);
+        }
+        return in;
+    }
+
+    // How many degrees the picture has to be turned, from its EXIF orientation
+    private int readRotation(Uri uri) {
+        try (InputStream in = open(uri)) {
+            ExifInterface exif = new ExifInterface(in);
+            switch (exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL)) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            // Not every image has EXIF data, just don't turn it
+            return 0;
+        }
+    }
+
+    // The size of the picked file in bytes, or 0 if the app that shared it doesn't say
+    private long originalSize(Uri uri) {
+        try (Cursor cursor = contentResolver.query(uri, new String[]{OpenableColumns.SIZE}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } catch (RuntimeException e) {
+            Log.w("ImagePreparer", "Could not read image size", e);
+        }
+        return 0;
+    }
+
+    // WEBP was split into a lossy and a lossless format in Android 11
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat compressFormat(Options options) {
+        if (!options.webp) {
+            return Bitmap.CompressFormat.JPEG;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            return Bitmap.CompressFormat.WEBP_LOSSY;
+        }
+        return Bitmap.CompressFormat.WEBP;
+    }
+
+    // The biggest power of 2 we can divide the image by, so its longest side is still
+    // at least maxDimension. The last bit of resizing is done with scaleFactor.
+    static int calculateInSampleSize(int width, int height, int maxDimension) {
+        int longest = Math.max(width, height);
+        int sampleSize = 1;
+        while (longest / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    // How much to shrink the decoded image so its longest side is maxDimension (never enlarge it)
+    static float scaleFactor(int width, int height, int maxDimension) {
+        int longest = Math.max(width, height);
+        if (longest <= maxDimension) {
+            return 1f;
+        }
+        return (float) maxDimension / longest;
+    }
+}
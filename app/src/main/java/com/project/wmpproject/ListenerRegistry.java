@@ -0,0 +1,147 @@
+package com.project.wmpproject;
+
+import android.app.Activity;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// This class keeps the real-time listeners of a screen and follows the screen's lifecycle.
+// The listeners are attached when the screen becomes visible (onStart) and removed when it
+// is hidden (onStop), so a screen in the background doesn't receive (and pay for) reads.
+// When the screen comes back, the screen keeps showing what it had until the new snapshot arrives.
+// When the screen is destroyed, everything is removed, so nothing keeps the old screen alive.
+// A registry kept in a ViewModel uses follow() instead: it keeps listening while the screen
+// is rotated or resized, so the new screen doesn't read everything again.
+public class ListenerRegistry implements DefaultLifecycleObserver {
+
+    // Something that can be listened to, like the events pager or the event repository
+    public interface Listener {
+        // Start listening, and return how to stop
+        EventRepository.Registration attach();
+    }
+
+    // The number of listeners attached by all registries, so tests can check for leaks
+    private static final AtomicInteger totalActive = new AtomicInteger();
+
+    private final List<Listener> listeners = new ArrayList<>();
+    // The registrations of the attached listeners, only while the screen is started
+    private final List<EventRepository.Registration> registrations = new ArrayList<>();
+    private boolean started;
+    private boolean destroyed;
+
+    // A registry that is not tied to a lifecycle yet, call follow() or start() and stop() yourself
+    public ListenerRegistry() {}
+
+    // A registry that follows the lifecycle of the screen
+    public ListenerRegistry(LifecycleOwner owner) {
+        owner.getLifecycle().addObserver(this);
+    }
+
+    // Add a listener. It is attached straight away if the screen is already visible.
+    public void add(Listener listener) {
+        if (destroyed) {
+            return;
+        }
+        listeners.add(listener);
+        if (started) {
+            attach(listener);
+        }
+    }
+
+    // Start and stop with the screen, but keep listening while it is recreated for a
+    // configuration change (rotation, window resize, dark mode). Call this from every new
+    // screen, and call destroy() when the ViewModel that keeps this registry is cleared.
+    public void follow(LifecycleOwner owner) {
+        owner.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onStart(@NonNull LifecycleOwner source) {
+                start();
+            }
+
+            @Override
+            public void onStop(@NonNull LifecycleOwner source) {
+                if (!isChangingConfigurations(source)) {
+                    stop();
+                }
+            }
+
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner source) {
+                // The next screen calls follow() again, the listeners stay with this registry
+                source.getLifecycle().removeObserver(this);
+            }
+        });
+    }
+
+    // The number of listeners of this registry that are attached right now
+    public int getActiveCount() {
+        return registrations.size();
+    }
+
+    // The number of listeners attached by all registries right now
+    public static int getTotalActiveCount() {
+        return totalActive.get();
+    }
+
+    @Override
+    public void onStart(@NonNull LifecycleOwner owner) {
+        start();
+    }
+
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        stop();
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().removeObserver(this);
+        destroy();
+    }
+
+    // Whether the screen is only being recreated, for example because the phone was rotated
+    private static boolean isChangingConfigurations(LifecycleOwner owner) {
+        return owner instanceof Activity && ((Activity) owner).isChangingConfigurations();
+    }
+
+    // Attach all the listeners
+    void start() {
+        if (started || destroyed) {
+            return;
+        }
+        started = true;
+        for (Listener listener : listeners) {
+            attach(listener);
+        }
+    }
+
+    // Remove all the listeners, they are attached again by start()
+    void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        for (EventRepository.Registration registration : registrations) {
+            registration.remove();
+            totalActive.decrementAndGet();
+        }
+        registrations.clear();
+    }
+
+    // Remove all the listeners and forget them
+    public void destroy() {
+        stop();
+        listeners.clear();
+        destroyed = true;
+    }
+
+    private void attach(Listener listener) {
+        registrations.add(listener.attach());
+        totalActive.incrementAndGet();
+    }
+}
@@ -0,0 +1,211 @@
+package com.project.wmpproject;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.project.wmpproject.model.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// This class keeps a copy of the events in a SQLite database on the phone.
+// The home screen shows the events from here straight away when the app starts,
+// and the events that arrive from Firestore are written into it in the background.
+// The screen never waits on the network: it is told when the copy changed and reads it again.
+public class LocalEventStore extends SQLiteOpenHelper {
+
+    // Screens implement this to hear when the events in the copy changed
+    public interface Observer {
+        void onStoreChanged();
+    }
+
+    // Called on the main thread with the events that were read
+    public interface EventsCallback {
+        void onEvents(List<Event> events);
+    }
+
+    private static final String DATABASE_NAME = "events.db";
+    // Change this when the table changes, the copy is then thrown away and loaded again
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE = "events";
+    private static final String COLUMN_EVENT_ID = "event_id";
+    private static final String COLUMN_TITLE = "title";
+    private static final String COLUMN_DESCRIPTION = "description";
+    private static final String COLUMN_DATE_TIME = "date_time";
+    private static final String COLUMN_DATE_TIME_MILLIS = "date_time_millis";
+    private static final String COLUMN_LOCATION = "location";
+    private static final String COLUMN_IMAGE_URL = "image_url";
+    private static final String COLUMN_ATTENDANCE_LIMIT = "attendance_limit";
+    private static final String COLUMN_ATTENDEE_COUNT = "attendee_count";
+    private static final String COLUMN_COUNTER_SHARDS = "counter_shards";
+
+    // The same order as the Firestore pages: by date, then by ID
+    private static final String ORDER = COLUMN_DATE_TIME_MILLIS + ", " + COLUMN_EVENT_ID;
+
+    // The one store used by the whole app
+    private static LocalEventStore instance;
+
+    // All reads and writes happen one after the other on this thread
+    private final Executor executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+
+    private LocalEventStore(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    // Get the store shared by the whole app
+    public static synchronized LocalEventStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new LocalEventStore(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + COLUMN_EVENT_ID + " TEXT PRIMARY KEY, "
+                + COLUMN_TITLE + " TEXT, "
+                + COLUMN_DESCRIPTION + " TEXT, "
+                + COLUMN_DATE_TIME + " TEXT, "
+                + COLUMN_DATE_TIME_MILLIS + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_LOCATION + " TEXT, "
+                + COLUMN_IMAGE_URL + " TEXT, "
+                + COLUMN_ATTENDANCE_LIMIT + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_ATTENDEE_COUNT + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_COUNTER_SHARDS + " INTEGER NOT NULL DEFAULT 0)");
+        // The feed is read in date order, and events can be looked up by title and location
+        db.execSQL("CREATE INDEX events_by_date ON " + TABLE + " (" + ORDER + ")");
+        db.execSQL("CREATE INDEX events_by_title ON " + TABLE + " (" + COLUMN_TITLE + ")");
+        db.execSQL("CREATE INDEX events_by_location ON " + TABLE + " (" + COLUMN_LOCATION + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // The table is only a copy of Firestore, so start again with an empty one
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+        onCreate(db);
+    }
+
+    public void addObserver(Observer observer) {
+        observers.add(observer);
+    }
+
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    // Read the first events in date order, the callback runs on the main thread
+    public void loadFirst(int limit, EventsCallback callback) {
+        executor.execute(() -> {
+            List<Event> events = query(null, null, String.valueOf(limit));
+            mainHandler.post(() -> callback.onEvents(events));
+        });
+    }
+
+    // Write the events that were loaded from Firestore into the copy, in the background.
+    // complete is true when there are no more pages after these events.
+    // Only the events that changed are written, and the observers are only told if something did.
+    public void syncLoaded(List<Event> loaded, boolean complete) {
+        List<Event> snapshot = new ArrayList<>(loaded);
+        executor.execute(() -> {
+            EventWindowDiff diff = EventWindowDiff.compute(storedInRange(snapshot, complete), snapshot, complete);
+            if (diff.isEmpty()) {
+                return;
+            }
+            apply(diff);
+            mainHandler.post(() -> {
+                for (Observer observer : observers) {
+                    observer.onStoreChanged();
+                }
+            });
+        });
+    }
+
+    // The stored events that the loaded events tell us something about
+    private List<Event> storedInRange(List<Event> loaded, boolean complete) {
+        Event last = EventWindowDiff.lastInOrder(loaded);
+        if (complete || last == null) {
+            return query(null, null, null);
+        }
+        // Everything up to the last loaded event, plus the loaded events themselves
+        return query(COLUMN_DATE_TIME_MILLIS + " < ? OR (" + COLUMN_DATE_TIME_MILLIS + " = ? AND "
+                        + COLUMN_EVENT_ID + " <= ?)",
+                new String[]{String.valueOf(last.getDateTimeMillis()), String.valueOf(last.getDateTimeMillis()),
+                        last.getEventId()}, null);
+    }
+
+    // Write the changes in one transaction, so the screen never reads half of them
+    private void apply(EventWindowDiff diff) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Event event : diff.upserts) {
+                db.insertWithOnConflict(TABLE, null, toValues(event), SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            for (String eventId : diff.deletes) {
+                db.delete(TABLE, COLUMN_EVENT_ID + " = ?", new String[]{eventId});
+            }
+            db.setTransactionSuccessful();
+        } catch (RuntimeException e) {
+            Log.w("LocalEventStore", "Error writing events", e);
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Read events from the table in date order
+    private List<Event> query(String selection, String[] selectionArgs, String limit) {
+        List<Event> events = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE, null, selection, selectionArgs,
+                null, null, ORDER, limit)) {
+            while (cursor.moveToNext()) {
+                events.add(fromCursor(cursor));
+            }
+        } catch (RuntimeException e) {
+            Log.w("LocalEventStore", "Error reading events", e);
+        }
+        return events;
+    }
+
+    private static ContentValues toValues(Event event) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_EVENT_ID, event.getEventId());
+        values.put(COLUMN_TITLE, event.getTitle());
+        values.put(COLUMN_DESCRIPTION, event.getDescription());
+        values.put(COLUMN_DATE_TIME, event.getDateTime());
+        values.put(COLUMN_DATE_TIME_MILLIS, event.getDateTimeMillis());
+        values.put(COLUMN_LOCATION, event.getLocation());
+        values.put(COLUMN_IMAGE_URL, event.getImageUrl());
+        values.put(COLUMN_ATTENDANCE_LIMIT, event.getAttendanceLimit());
+        values.put(COLUMN_ATTENDEE_COUNT, event.getAttendeeCount());
+        values.put(COLUMN_COUNTER_SHARDS, event.getCounterShards());
+        return values;
+    }
+
+    private static Event fromCursor(Cursor cursor) {
+        Event event = new Event(
+                cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_TITLE)),
+                cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_DESCRIPTION)),
+                cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_DATE_TIME)),
+                cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_LOCATION)),
+                cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_IMAGE_URL)),
+                cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EVENT_ID)),
+                cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_ATTENDANCE_LIMIT)));
+        event.setDateTimeMillis(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_DATE_TIME_MILLIS)));
+        event.setAttendeeCount(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_ATTENDEE_COUNT)));
+        event.setCounterShards(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_COUNTER_SHARDS)));
+        return event;
+    }
+}
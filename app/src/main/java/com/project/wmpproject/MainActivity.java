@@ -12,17 +12,12 @@ import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.DocumentSnapshot;
 
 public class MainActivity extends AppCompatActivity {
 
     // This line creates a tool called 'auth'
     // that helps your app handle user logins and accounts.
     private FirebaseAuth auth;
-    // This line creates a tool called 'db'
-    // that lets your app talk to Firebase and store or retrieve data.
-    private FirebaseFirestore db;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -38,8 +33,6 @@ public class MainActivity extends AppCompatActivity {
 
         // This line sets up the 'auth' tool to work with Firebase.
         auth = FirebaseAuth.getInstance();
-        // This line sets up the 'db' tool to work with Firebase.
-        db = FirebaseFirestore.getInstance();
 
         // This checks if a user is already logged in.
         // If they are, it calls a function to see what type of user they are
@@ -61,35 +54,9 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
-    // This is a separate function that checks the user's role in Firebase.
+    // This is a separate function that checks the user's role.
+    // The role saved on the phone is used straight away, it is checked again in the background.
     private void checkUserRole() {
-        // Get the user's ID
-        String userId = auth.getCurrentUser().getUid();
-        // Access the "users" collection in Firebase and get the user's document
-        db.collection("users").document(userId).get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        DocumentSnapshot document = task.getResult();
-                        if (document.exists()) {
-                            // Get the user's role from the document
-                            String role = document.getString("role");
-                            if ("admin".equals(role)) {
-                                // If the role is "admin", start the AdminActivity
-                                startActivity(new Intent(this, AdminActivity.class));
-                            } else {
-                                // Otherwise, start the HomeActivity
-                                startActivity(new Intent(this, HomeActivity.class));
-                            }
-                            // Close the current activity
-                            finish();
-                        } else {
-                            // Handle the case where the user doesn't exist
-                            Toast.makeText(this, "User profile not found", Toast.LENGTH_SHORT).show();
-                        }
-                    } else {
-                        // Handle the error
-                        Toast.makeText(this, "Error checking user role", Toast.LENGTH_SHORT).show();
-                    }
-                });
+        RoleCache.getInstance(this).route(this, auth.getCurrentUser());
     }
 }
\ No newline at end of file
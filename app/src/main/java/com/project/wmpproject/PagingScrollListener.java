@@ -0,0 +1,39 @@
+package com.project.wmpproject;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+// This asks for the next page when the user scrolls close to the end of the list
+public class PagingScrollListener extends RecyclerView.OnScrollListener {
+
+    // What to do when more rows are needed
+    public interface OnLoadMore {
+        void loadMore();
+    }
+
+    private final LinearLayoutManager layoutManager;
+    // How many rows before the end we start loading the next page
+    private final int threshold;
+    private final OnLoadMore onLoadMore;
+
+    public PagingScrollListener(LinearLayoutManager layoutManager, int threshold, OnLoadMore onLoadMore) {
+        this.layoutManager = layoutManager;
+        this.threshold = threshold;
+        this.onLoadMore = onLoadMore;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        // Only check when scrolling down. RecyclerView also calls this with dy 0 after a layout
+        // changed the visible rows, like when a page was submitted. A first page that doesn't fill
+        // the screen can't be scrolled, so that is when the next page gets asked for.
+        if (dy < 0) {
+            return;
+        }
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible >= layoutManager.getItemCount() - 1 - threshold) {
+            onLoadMore.loadMore();
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.project.wmpproject;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
@@ -13,24 +16,35 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
-import com.squareup.picasso.Picasso;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.imageview.ShapeableImageView;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
+import com.project.wmpproject.adapter.EventAdapter;
+import com.project.wmpproject.model.Event;
+import com.project.wmpproject.model.EventMapper;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 public class ProfileActivity extends AppCompatActivity {
 
+    // How many events of the history are loaded at a time
+    private static final int HISTORY_PAGE_SIZE = 20;
+
     // These are the parts of the screen that the user interacts with
     private ShapeableImageView profileImage; // The user's profile picture
     private TextInputEditText usernameEditText, emailEditText; // Fields to enter username and email
@@ -40,6 +54,19 @@ public class ProfileActivity extends AppCompatActivity {
     private StorageReference storageRef;
     // The image selected by the user from their device
     private Uri selectedImageUri;
+    // The username and picture the profile had when it was loaded, null until then.
+    // Only what changed from these is copied into the attendance documents.
+    private Map<String, Object> loadedProfile;
+
+    // The events the user checked in to, the last check-in first
+    private final List<Event> history = new ArrayList<>();
+    private EventAdapter historyAdapter;
+    private TextView emptyHistoryText;
+    private MaterialButton loadMoreHistoryButton;
+    // The last history document we have, the next page starts right after it
+    private DocumentSnapshot lastHistoryDoc;
+    // Whether a page of the history is being loaded right now
+    private boolean loadingHistory;
 
     // This allows the user to pick an image from their device
     private final ActivityResultLauncher<String> pickImage = registerForActivityResult(
@@ -48,7 +75,7 @@ public class ProfileActivity extends AppCompatActivity {
                 if (uri != null) {
                     // If the user selects an image, store the image URI and display it
                     selectedImageUri = uri;
-                    Picasso.get().load(uri).into(profileImage);
+                    ImageLoader.get().load(uri, profileImage, this);
                 }
             }
     );
@@ -79,9 +106,22 @@ public class ProfileActivity extends AppCompatActivity {
         emailEditText = findViewById(R.id.emailEditText);
         MaterialButton saveButton = findViewById(R.id.saveButton);
         MaterialButton signOutButton = findViewById(R.id.signOutButton);
+        emptyHistoryText = findViewById(R.id.emptyHistoryText);
+        loadMoreHistoryButton = findViewById(R.id.loadMoreHistoryButton);
+
+        // Set up the list of events the user checked in to
+        RecyclerView historyRecyclerView = findViewById(R.id.historyRecyclerView);
+        historyAdapter = new EventAdapter();
+        historyRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        historyRecyclerView.setAdapter(historyAdapter);
 
         // Load the user's profile information
         loadUserProfile();
+        // And the first page of their check-ins
+        loadHistoryPage();
+
+        // When the "Show more" button is clicked, load the next page of check-ins
+        loadMoreHistoryButton.setOnClickListener(v -> loadHistoryPage());
 
         // When the profile image is clicked, allow the user to pick an image
         profileImage.setOnClickListener(v -> pickImage.launch("image/*"));
@@ -101,9 +141,12 @@ public class ProfileActivity extends AppCompatActivity {
             String userId = user.getUid();
             // Get the user's document from the database
             DocumentReference userRef = db.collection("users").document(userId);
+            FirestoreMeter.get().startRun(FirestoreMeter.PROFILE);
 
             userRef.get().addOnSuccessListener(documentSnapshot -> {
+                FirestoreUsage.recordDocument(FirestoreMeter.PROFILE, documentSnapshot);
                 if (documentSnapshot.exists()) {
+                    loadedProfile = AttendeeProfiles.fieldsOf(documentSnapshot);
                     // If the user document exists, get the username, email, and profile image URL
                     String username = documentSnapshot.getString("username");
                     String email = documentSnapshot.getString("email");
@@ -115,7 +158,7 @@ public class ProfileActivity extends AppCompatActivity {
 
                     if (profileImageUrl != null && !profileImageUrl.isEmpty()) {
                         // If the user has a profile image, load it from the URL
-                        Picasso.get().load(profileImageUrl).into(profileImage);
+                        ImageLoader.get().load(profileImageUrl, profileImage, this);
                     } else {
                         // Otherwise, use a default profile image
                         profileImage.setImageResource(R.drawable.ic_default_profile);
@@ -128,6 +171,50 @@ public class ProfileActivity extends AppCompatActivity {
         }
     }
 
+    // Load the next page of events the user checked in to.
+    // The user's own list is read with one query, however many events there are.
+    private void loadHistoryPage() {
+        FirebaseUser user = mAuth.getCurrentUser();
+        if (user == null || loadingHistory) {
+            return;
+        }
+        loadingHistory = true;
+
+        Query query = AttendedEvents.newestFirst(db, user.getUid());
+        if (lastHistoryDoc != null) {
+            // Start right after the last event we have, asking for more is one more run
+            query = query.startAfter(lastHistoryDoc);
+            FirestoreMeter.get().startRun(FirestoreMeter.PROFILE);
+        }
+        query.limit(HISTORY_PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(value -> {
+                    loadingHistory = false;
+                    FirestoreUsage.recordQuery(FirestoreMeter.PROFILE, value, true);
+                    List<DocumentSnapshot> documents = value.getDocuments();
+                    for (DocumentSnapshot document : documents) {
+                        // The documents are event summaries, so they read into Event objects
+                        Event event = EventMapper.fromMap(document.getId(), document.getData());
+                        if (event != null) {
+                            history.add(event);
+                        }
+                    }
+                    if (!documents.isEmpty()) {
+                        lastHistoryDoc = documents.get(documents.size() - 1);
+                    }
+                    historyAdapter.submitList(new ArrayList<>(history));
+                    emptyHistoryText.setVisibility(history.isEmpty() ? View.VISIBLE : View.GONE);
+                    // A page that is not full is the last one
+                    loadMoreHistoryButton.setVisibility(documents.size() < HISTORY_PAGE_SIZE ? View.GONE : View.VISIBLE);
+                })
+                .addOnFailureListener(e -> {
+                    // Let the user try again with the button
+                    loadingHistory = false;
+                    Log.w("ProfileActivity", "Error loading check-ins", e);
+                    Toast.makeText(ProfileActivity.this, "Error loading your check-ins", Toast.LENGTH_SHORT).show();
+                });
+    }
+
     // Save the profile changes to the database
     private void saveProfile() {
         // Get the username and email from the text fields
@@ -153,20 +240,19 @@ public class ProfileActivity extends AppCompatActivity {
             updates.put("email", email);
 
             if (selectedImageUri != null) {
-                // If the user selected a new profile image, upload it to Firebase Storage
-                StorageReference imageRef = storageRef.child("profile_images/" + userId + ".jpg");
-                imageRef.putFile(selectedImageUri)
-                        .addOnSuccessListener(taskSnapshot -> imageRef.getDownloadUrl()
-                                .addOnSuccessListener(uri -> {
-                                    // After uploading, get the download URL of the image
-                                    updates.put("profileImageUrl", uri.toString());
-                                    // And update the user's document in Firestore
-                                    updateFirestore(userRef, updates);
-                                }))
-                        .addOnFailureListener(e ->
-                                // If there was an error uploading the image, show an error message
-                                Toast.makeText(ProfileActivity.this, "Failed to upload image", Toast.LENGTH_SHORT).show()
-                        );
+                // If the user selected a new profile image, make it smaller and upload it to Firebase Storage
+                new ImagePreparer(this).prepare(selectedImageUri, ImagePreparer.PROFILE_IMAGE, new ImagePreparer.Callback() {
+                    @Override
+                    public void onPrepared(ImagePreparer.PreparedImage image) {
+                        uploadProfileImage(userId, image, userRef, updates);
+                    }
+
+                    @Override
+                    public void onError(Exception error) {
+                        // If the image couldn't be read, show an error message
+                        Toast.makeText(ProfileActivity.this, "Failed to read image", Toast.LENGTH_SHORT).show();
+                    }
+                });
             } else {
                 // If the user didn't select a new image, just update the other data in Firestore
                 updateFirestore(userRef, updates);
@@ -174,10 +260,34 @@ public class ProfileActivity extends AppCompatActivity {
         }
     }
 
+    // Upload the prepared profile image, then update the user's document with its URL
+    private void uploadProfileImage(String userId, ImagePreparer.PreparedImage image,
+                                    DocumentReference userRef, Map<String, Object> updates) {
+        StorageReference imageRef = storageRef.child("profile_images/" + userId + "." + image.extension);
+        imageRef.putBytes(image.bytes, image.toMetadata())
+                .addOnSuccessListener(taskSnapshot -> imageRef.getDownloadUrl()
+                        .addOnSuccessListener(uri -> {
+                            // After uploading, get the download URL of the image
+                            updates.put("profileImageUrl", uri.toString());
+                            // And update the user's document in Firestore
+                            updateFirestore(userRef, updates);
+                        }))
+                .addOnFailureListener(e ->
+                        // If there was an error uploading the image, show an error message
+                        Toast.makeText(ProfileActivity.this, "Failed to upload image", Toast.LENGTH_SHORT).show()
+                );
+    }
+
     // Update the user's document in Firestore
     private void updateFirestore(DocumentReference userRef, Map<String, Object> updates) {
         userRef.update(updates)
                 .addOnSuccessListener(aVoid -> {
+                    FirestoreUsage.recordWrites(FirestoreMeter.PROFILE, 1);
+                    // Forget the old username and picture so attendance lists show the new ones
+                    UserProfileLoader.getInstance().invalidate(userRef.getId());
+                    // Update the copies in the user's attendance documents in the background
+                    AttendeeProfiles.fanOut(db, userRef.getId(), loadedProfile, updates)
+                            .addOnFailureListener(e -> Log.w("ProfileActivity", "Error updating attendance documents", e));
                     // If the update is successful, show a success message
                     Toast.makeText(ProfileActivity.this, "Profile updated successfully", Toast.LENGTH_SHORT).show();
                     // And reload the profile to reflect the changes
@@ -189,6 +299,14 @@ public class ProfileActivity extends AppCompatActivity {
                 );
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Stop loading the pictures of this screen
+        ImageLoader.get().cancelAll(this);
+        FirestoreUsage.warnIfOverBudget("ProfileActivity", FirestoreMeter.PROFILE);
+    }
+
     // Sign the user out
     private void signOut() {
         mAuth.signOut();
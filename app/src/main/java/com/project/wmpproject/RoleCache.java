@@ -0,0 +1,170 @@
+package com.project.wmpproject;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.util.Log;
+import android.widget.Toast;
+
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.Map;
+
+// This class remembers whether each user is an admin, so the app can open the right screen
+// straight away instead of reading the user's document every time it starts.
+// The role is checked again in the background: first from the custom claims in the user's
+// ID token (no database read), then from the "users" document if the token has no role.
+// If the role changed, the app is sent to the right screen again.
+public class RoleCache {
+
+    public static final String ROLE_ADMIN = "admin";
+    public static final String ROLE_USER = "user";
+
+    // Called with the user's role, first from the cache and again if the role changed
+    public interface Listener {
+        void onRole(String role);
+        void onError(Exception error);
+    }
+
+    private static final String PREFS_NAME = "roles";
+
+    // The one cache used by the whole app
+    private static RoleCache instance;
+
+    private final SharedPreferences prefs;
+    // Tool for interacting with the database
+    private final FirebaseFirestore db;
+
+    private RoleCache(Context context) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.db = FirebaseFirestore.getInstance();
+    }
+
+    // Get the cache shared by the whole app
+    public static synchronized RoleCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new RoleCache(context);
+        }
+        return instance;
+    }
+
+    // The role we saved for the user, or null if we don't know it yet
+    public String getCachedRole(String userId) {
+        return prefs.getString(userId, null);
+    }
+
+    // Save the role of the user, for example right after they registered
+    public void put(String userId, String role) {
+        prefs.edit().putString(userId, role).apply();
+    }
+
+    // Give the listener the user's role: the saved one straight away if we have it,
+    // then the checked one if it is different
+    public void resolve(FirebaseUser user, Listener listener) {
+        String userId = user.getUid();
+        String cached = getCachedRole(userId);
+        if (cached != null) {
+            listener.onRole(cached);
+        }
+
+        // Check the role in the background
+        user.getIdToken(false)
+                .addOnSuccessListener(result -> {
+                    String claimed = roleFromClaims(result.getClaims());
+                    if (claimed != null) {
+                        update(userId, cached, claimed, listener);
+                    } else {
+                        // The token has no role, read it from the user's document
+                        readFromFirestore(userId, cached, listener);
+                    }
+                })
+                .addOnFailureListener(e -> readFromFirestore(userId, cached, listener));
+    }
+
+    // Open the right screen for the user's role and close this one.
+    // If the role changes later, the app is opened again on the right screen.
+    public void route(Activity activity, FirebaseUser user) {
+        Context appContext = activity.getApplicationContext();
+        boolean[] routed = {false};
+        resolve(user, new Listener() {
+            @Override
+            public void onRole(String role) {
+                Intent intent = screenFor(appContext, role);
+                if (routed[0]) {
+                    // The user is already on another screen, start again on the right one
+                    intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+                    appContext.startActivity(intent);
+                    return;
+                }
+                routed[0] = true;
+                activity.startActivity(intent);
+                activity.finish();
+            }
+
+            @Override
+            public void onError(Exception error) {
+                if (!routed[0]) {
+                    Toast.makeText(activity, "Error checking user role", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
+    // The first screen for users with the role
+    public static Intent screenFor(Context context, String role) {
+        if (ROLE_ADMIN.equals(role)) {
+            return new Intent(context, AdminActivity.class);
+        }
+        return new Intent(context, HomeActivity.class);
+    }
+
+    // The role in the token's custom claims, or null if there is none.
+    // Either {"role": "admin"} or {"admin": true} is accepted.
+    static String roleFromClaims(Map<String, Object> claims) {
+        if (claims == null) {
+            return null;
+        }
+        Object role = claims.get("role");
+        if (role instanceof String) {
+            return (String) role;
+        }
+        Object admin = claims.get("admin");
+        if (admin instanceof Boolean) {
+            return (Boolean) admin ? ROLE_ADMIN : ROLE_USER;
+        }
+        return null;
+    }
+
+    // Read the role from the user's document
+    private void readFromFirestore(String userId, String cached, Listener listener) {
+        db.collection("users").document(userId).get()
+                .addOnSuccessListener(document -> {
+                    if (!document.exists()) {
+                        if (cached == null) {
+                            listener.onError(new IllegalStateException("User profile not found"));
+                        }
+                        return;
+                    }
+                    String role = document.getString("role");
+                    update(userId, cached, role != null ? role : ROLE_USER, listener);
+                })
+                .addOnFailureListener(e -> {
+                    // Keep using the saved role, we check again next time
+                    Log.w("RoleCache", "Error checking user role", e);
+                    if (cached == null) {
+                        listener.onError(e);
+                    }
+                });
+    }
+
+    // Save the checked role, and tell the listener if it is not what we said before
+    private void update(String userId, String cached, String role, Listener listener) {
+        if (role.equals(cached)) {
+            return;
+        }
+        put(userId, role);
+        listener.onRole(role);
+    }
+}
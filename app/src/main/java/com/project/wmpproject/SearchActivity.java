@@ -1,9 +1,10 @@
 package com.project.wmpproject;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
-import android.util.Log;
 import android.widget.EditText;
 
 import androidx.activity.EdgeToEdge;
@@ -14,13 +15,13 @@ import androidx.core.view.WindowInsetsCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.project.wmpproject.adapter.EventAdapter;
 import com.project.wmpproject.model.Event;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public class SearchActivity extends AppCompatActivity {
 
@@ -30,8 +31,24 @@ public class SearchActivity extends AppCompatActivity {
     private RecyclerView searchResultsRecyclerView;
     // Tool for displaying the list of events
     private EventAdapter adapter;
-    // Tool for interacting with the database
-    private FirebaseFirestore db;
+    // Attaches the listeners while the screen is visible and removes them when it is not
+    private final ListenerRegistry listeners = new ListenerRegistry(this);
+    // The search index is updated and searched on this thread, only the results go to the main thread.
+    // There is one thread, so the changes and the searches run in the order they came in.
+    private static final Executor SEARCH_THREAD = Executors.newSingleThreadExecutor();
+    // Whether the next events are the first ones since we subscribed again, only used on the search thread
+    private boolean resubscribed;
+    // The search index, kept up to date with the changes from the repository, only used on the search thread
+    private final EventSearchIndex searchIndex = new EventSearchIndex();
+    // The text the user is currently searching for, set on the main thread
+    private volatile String currentQuery = "";
+    // Used to wait until the user stops typing before searching
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // The search waiting to run, if there is one
+    private final Runnable pendingSearch = () -> searchEvents(currentQuery);
+
+    // How long to wait after the last keystroke before searching
+    private static final long SEARCH_DELAY_MS = 250;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -49,11 +66,29 @@ public class SearchActivity extends AppCompatActivity {
         searchResultsRecyclerView = findViewById(R.id.searchResultsRecyclerView);
         // Set up the RecyclerView to display the list of events
         searchResultsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
-        adapter = new EventAdapter(new ArrayList<>()); // Start with an empty list
+        adapter = new EventAdapter(); // Start with an empty list
         searchResultsRecyclerView.setAdapter(adapter);
-
-        // Set up Firebase tools
-        db = FirebaseFirestore.getInstance();
+        FirestoreMeter.get().startRun(FirestoreMeter.SEARCH);
+
+        // Listen to the shared list of events once, instead of once per keystroke,
+        // and only while the screen is visible
+        listeners.add(() -> {
+            SEARCH_THREAD.execute(() -> resubscribed = true);
+            // The repository calls us on its background thread, the index is updated on ours
+            return EventRepository.getInstance().subscribe((events, changes) -> SEARCH_THREAD.execute(() -> {
+                if (resubscribed) {
+                    // The first events after subscribing are all of them, events may have been
+                    // deleted while we were not listening
+                    resubscribed = false;
+                    searchIndex.replaceAll(events);
+                } else {
+                    // Only the events that changed are updated in the index
+                    searchIndex.apply(changes);
+                }
+                // Run the current search again on the new events
+                showResults(search(currentQuery));
+            }));
+        });
 
         // Listen for changes in the search text field
         searchEditText.addTextChangedListener(new TextWatcher() {
@@ -71,50 +106,45 @@ public class SearchActivity extends AppCompatActivity {
             public void afterTextChanged(Editable s) {
                 // This function is called after the text in the search field has changed
                 // Get the search query from the text field
-                String searchQuery = s.toString().trim();
-                // Search for events that match the query
-                searchEvents(searchQuery);
+                currentQuery = s.toString().trim();
+                // Cancel the search we were waiting to run, and wait for the user to stop typing
+                handler.removeCallbacks(pendingSearch);
+                handler.postDelayed(pendingSearch, SEARCH_DELAY_MS);
             }
         });
     }
 
-    // Search for events that match the given query
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Cancel the search we were waiting to run
+        handler.removeCallbacks(pendingSearch);
+        // And stop loading the pictures of this screen
+        ImageLoader.get().cancelAll(this);
+        FirestoreUsage.warnIfOverBudget("SearchActivity", FirestoreMeter.SEARCH);
+    }
+
+    // Search for events that match the given query, on the search thread
     private void searchEvents(String searchQuery) {
+        SEARCH_THREAD.execute(() -> showResults(search(searchQuery)));
+    }
+
+    // Look the query up in the search index, only call this on the search thread
+    private List<Event> search(String searchQuery) {
         // If the search query is empty, clear the list of events
         if (searchQuery.isEmpty()) {
-            adapter.events.clear();
-            adapter.notifyDataSetChanged();
-            return;
+            return new ArrayList<>();
         }
+        return searchIndex.search(searchQuery);
+    }
 
-        // Get all events from the database
-        db.collection("events").addSnapshotListener((value, error) -> {
-            if (error != null) {
-                // If there's an error, print it to the log
-                Log.w("Search Activity", "Listen failed.", error);
-                return;
-            }
-
-            // Create a list to store the matching events
-            List<Event> events = new ArrayList<>();
-
-            // Go through each event in the database
-            for (QueryDocumentSnapshot document : value) {
-                // Convert the database data to an Event object
-                Event event = document.toObject(Event.class);
-                event.setEventId(document.getId());
-                // Check if the event title or description contains the search query (case-insensitive)
-                if (event.getTitle().toLowerCase().contains(searchQuery.toLowerCase()) ||
-                        event.getDescription().toLowerCase().contains(searchQuery.toLowerCase())) {
-                    // If it does, add the event to the list
-                    events.add(event);
-                }
+    // Give the adapter the new list on the main thread, only the rows that changed are redrawn.
+    // Results that arrive after the screen was closed are dropped.
+    private void showResults(List<Event> events) {
+        handler.post(() -> {
+            if (!isDestroyed()) {
+                adapter.submitList(events);
             }
-
-            // Update the adapter with the new list of events
-            adapter.events = events;
-            // Tell the adapter to refresh the list on screen
-            adapter.notifyDataSetChanged();
         });
     }
 }
\ No newline at end of file
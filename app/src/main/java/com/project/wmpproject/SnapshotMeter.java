@@ -0,0 +1,81 @@
+package com.project.wmpproject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// This class measures how long the snapshots of each listener take.
+// The mapping time is what used to run on the main thread before the documents were read on a
+// background thread, the main thread time is what is left there now, so comparing the two shows
+// how much work the main thread was saved. Read them with getStats(), in a debugger or a test.
+public class SnapshotMeter {
+
+    // How the snapshots of one listener went
+    public static class Stats {
+        // How many snapshots were handed to the screen
+        public final int snapshots;
+        // The average and longest time the main thread spent on one snapshot
+        public final long averageMainMicros;
+        public final long maxMainMicros;
+        // The average time spent turning the documents of one snapshot into objects, off the main thread
+        public final long averageMappingMicros;
+
+        Stats(int snapshots, long averageMainMicros, long maxMainMicros, long averageMappingMicros) {
+            this.snapshots = snapshots;
+            this.averageMainMicros = averageMainMicros;
+            this.maxMainMicros = maxMainMicros;
+            this.averageMappingMicros = averageMappingMicros;
+        }
+
+        @Override
+        public String toString() {
+            return "snapshots=" + snapshots + " averageMainMicros=" + averageMainMicros
+                    + " maxMainMicros=" + maxMainMicros + " averageMappingMicros=" + averageMappingMicros;
+        }
+    }
+
+    // The running totals of one listener
+    private static class Totals {
+        int snapshots;
+        long mainNanos;
+        long maxMainNanos;
+        long mappingNanos;
+    }
+
+    // The one meter used by the whole app
+    private static SnapshotMeter instance;
+
+    // The totals of every listener, by name
+    private final Map<String, Totals> totals = new HashMap<>();
+
+    // Get the meter shared by the whole app
+    public static synchronized SnapshotMeter get() {
+        if (instance == null) {
+            instance = new SnapshotMeter();
+        }
+        return instance;
+    }
+
+    // Count one snapshot of the listener, with the time spent on each thread
+    public synchronized void record(String name, long mappingNanos, long mainNanos) {
+        Totals listenerTotals = totals.get(name);
+        if (listenerTotals == null) {
+            listenerTotals = new Totals();
+            totals.put(name, listenerTotals);
+        }
+        listenerTotals.snapshots++;
+        listenerTotals.mappingNanos += mappingNanos;
+        listenerTotals.mainNanos += mainNanos;
+        listenerTotals.maxMainNanos = Math.max(listenerTotals.maxMainNanos, mainNanos);
+    }
+
+    // How the snapshots of the listener went so far
+    public synchronized Stats getStats(String name) {
+        Totals listenerTotals = totals.get(name);
+        if (listenerTotals == null) {
+            return new Stats(0, 0, 0, 0);
+        }
+        int count = listenerTotals.snapshots;
+        return new Stats(count, listenerTotals.mainNanos / count / 1000, listenerTotals.maxMainNanos / 1000,
+                listenerTotals.mappingNanos / count / 1000);
+    }
+}
@@ -0,0 +1,225 @@
+package com.project.wmpproject;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+// This class loads the username and profile picture of users for the attendance lists.
+// Requests made at the same time are put together into a few "whereIn" queries,
+// requests for the same user share one read, and recent users are kept in memory.
+public class UserProfileLoader {
+
+    // The information we show about a user
+    public static class UserProfile {
+        public final String userId;
+        public final String username;
+        public final String profileImageUrl;
+
+        public UserProfile(String userId, String username, String profileImageUrl) {
+            this.userId = userId;
+            this.username = username;
+            this.profileImageUrl = profileImageUrl;
+        }
+    }
+
+    // Called when a profile has been loaded
+    public interface Callback {
+        void onProfileLoaded(UserProfile profile);
+    }
+
+    // Where the profiles come from (Firestore in the app)
+    public interface Source {
+        // Load the profiles of the given users, the missing ones are simply left out
+        void fetch(List<String> userIds, SourceCallback callback);
+    }
+
+    public interface SourceCallback {
+        void onProfiles(List<UserProfile> profiles);
+        void onError(Exception error);
+    }
+
+    // Firestore allows at most this many IDs in one "whereIn" query
+    public static final int BATCH_SIZE = 10;
+    // How many profiles we keep in memory
+    public static final int MAX_CACHED_PROFILES = 500;
+
+    // The one loader used by the whole app
+    private static UserProfileLoader instance;
+
+    private final Source source;
+    // Used to wait until every row on screen has asked for its user before sending the queries
+    private final Executor flushExecutor;
+    // Recently used profiles, the least recently used one is dropped when it gets full
+    private final Map<String, UserProfile> cache;
+    // Everyone waiting for each user that is not loaded yet
+    private final Map<String, List<Callback>> waiting = new HashMap<>();
+    // Users that were asked for but are not in a query yet
+    private final Set<String> queued = new LinkedHashSet<>();
+    // Whether a flush is already waiting to run
+    private boolean flushScheduled;
+
+    public UserProfileLoader(Source source, Executor flushExecutor, int maxCachedProfiles) {
+        this.source = source;
+        this.flushExecutor = flushExecutor;
+        this.cache = new LinkedHashMap<String, UserProfile>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UserProfile> eldest) {
+                return size() > maxCachedProfiles;
+            }
+        };
+    }
+
+    // Get the loader shared by the whole app
+    public static synchronized UserProfileLoader getInstance() {
+        if (instance == null) {
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            instance = new UserProfileLoader(new FirestoreSource(FirebaseFirestore.getInstance()),
+                    mainHandler::post, MAX_CACHED_PROFILES);
+        }
+        return instance;
+    }
+
+    // Load the profile of the user, straight away if we already have it
+    public synchronized void load(String userId, Callback callback) {
+        UserProfile cached = cache.get(userId);
+        if (cached != null) {
+            callback.onProfileLoaded(cached);
+            return;
+        }
+
+        List<Callback> callbacks = waiting.get(userId);
+        if (callbacks != null) {
+            // Someone already asked for this user, wait for the same read
+            callbacks.add(callback);
+            return;
+        }
+        callbacks = new ArrayList<>();
+        callbacks.add(callback);
+        waiting.put(userId, callbacks);
+        queued.add(userId);
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flushExecutor.execute(this::flush);
+        }
+    }
+
+    // Forget a user, for example after their profile was changed
+    public synchronized void invalidate(String userId) {
+        cache.remove(userId);
+    }
+
+    // Put a profile in the cache that we already know, for example from our own profile screen
+    public synchronized void put(UserProfile profile) {
+        cache.put(profile.userId, profile);
+    }
+
+    // The number of profiles in memory
+    public synchronized int getCachedCount() {
+        return cache.size();
+    }
+
+    // Send the queued users to the source, BATCH_SIZE users per query
+    private void flush() {
+        List<List<String>> batches = new ArrayList<>();
+        synchronized (this) {
+            flushScheduled = false;
+            List<String> batch = new ArrayList<>();
+            for (String userId : queued) {
+                batch.add(userId);
+                if (batch.size() == BATCH_SIZE) {
+                    batches.add(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.add(batch);
+            }
+            queued.clear();
+        }
+
+        for (List<String> batch : batches) {
+            source.fetch(batch, new SourceCallback() {
+                @Override
+                public void onProfiles(List<UserProfile> profiles) {
+                    deliver(batch, profiles);
+                }
+
+                @Override
+                public void onError(Exception error) {
+                    // Let the rows ask again the next time they are shown
+                    deliver(batch, new ArrayList<>());
+                }
+            });
+        }
+    }
+
+    // Remember the loaded profiles and tell everyone who was waiting for them
+    private void deliver(List<String> batch, List<UserProfile> profiles) {
+        Map<UserProfile, List<Callback>> toNotify = new LinkedHashMap<>();
+        synchronized (this) {
+            for (UserProfile profile : profiles) {
+                cache.put(profile.userId, profile);
+                List<Callback> callbacks = waiting.remove(profile.userId);
+                if (callbacks != null) {
+                    toNotify.put(profile, callbacks);
+                }
+            }
+            // Users that were not found are not waited for any more
+            for (String userId : batch) {
+                waiting.remove(userId);
+            }
+        }
+        for (Map.Entry<UserProfile, List<Callback>> entry : toNotify.entrySet()) {
+            for (Callback callback : entry.getValue()) {
+                callback.onProfileLoaded(entry.getKey());
+            }
+        }
+    }
+
+    // This source reads the profiles from the "users" collection in Firestore
+    static class FirestoreSource implements Source {
+        private final FirebaseFirestore db;
+
+        FirestoreSource(FirebaseFirestore db) {
+            this.db = db;
+        }
+
+        @Override
+        public void fetch(List<String> userIds, SourceCallback callback) {
+            db.collection("users")
+                    .whereIn(FieldPath.documentId(), userIds)
+                    .get()
+                    .addOnSuccessListener(value -> {
+                        // Only attendance lists still read users, for check-ins older than the copied profiles.
+                        // The budget of the flow leaves no room for them, run the DataMigration.
+                        FirestoreUsage.recordQuery(FirestoreMeter.OPEN_EVENT_DETAILS, value, true);
+                        List<UserProfile> profiles = new ArrayList<>();
+                        for (DocumentSnapshot document : value.getDocuments()) {
+                            profiles.add(new UserProfile(document.getId(),
+                                    document.getString("username"),
+                                    document.getString("profileImageUrl")));
+                        }
+                        callback.onProfiles(profiles);
+                    })
+                    .addOnFailureListener(e -> {
+                        // If there was an error fetching user data, print it to the log
+                        Log.w("UserProfileLoader", "Error fetching user data", e);
+                        callback.onError(e);
+                    });
+        }
+    }
+}
@@ -10,30 +10,36 @@
     import android.widget.TextView;
 
     import androidx.annotation.NonNull;
+    import androidx.recyclerview.widget.ListAdapter;
     import androidx.recyclerview.widget.RecyclerView;
 
     import com.google.firebase.firestore.FirebaseFirestore;
+    import com.google.firebase.firestore.WriteBatch;
     import com.project.wmpproject.EditEventActivity;
+    import com.project.wmpproject.EventCache;
+    import com.project.wmpproject.EventSummaries;
+    import com.project.wmpproject.FirestoreMeter;
+    import com.project.wmpproject.FirestoreUsage;
+    import com.project.wmpproject.ImageLoader;
     import com.project.wmpproject.R;
     import com.project.wmpproject.model.Event;
-    import com.squareup.picasso.Picasso;
+    import com.project.wmpproject.model.EventParcel;
 
-    import java.util.List;
+    public class AdminEventAdapter extends ListAdapter<Event, AdminEventAdapter.EventViewHolder> {
 
-    public class AdminEventAdapter extends RecyclerView.Adapter<AdminEventAdapter.EventViewHolder> {
+        // How many rows below the one being shown get their picture loaded early
+        private static final int PREFETCH_ROWS = 2;
 
-        // This is a list of events to be displayed
-        public List<Event> events;
         // Tool for interacting with the database
         private FirebaseFirestore db;
+        // Gives every event its own stable row ID
+        private final EventDiffCallback.StableIds stableIds = new EventDiffCallback.StableIds();
 
-        // Empty constructor
+        // This creates an empty adapter, call submitList() to show events.
+        // The new list is compared with the old one in the background and only changed rows are redrawn.
         public AdminEventAdapter() {
-        }
-
-        // Constructor that takes a list of events
-        public AdminEventAdapter(List<Event> events) {
-            this.events = events;
+            super(new EventDiffCallback());
+            setHasStableIds(true);
             this.db = FirebaseFirestore.getInstance();
         }
 
@@ -48,10 +54,11 @@
         // Sets the information for each event in the list
         @Override
         public void onBindViewHolder(@NonNull EventViewHolder holder, int position) {
-            Event event = events.get(position);
+            Event event = getItem(position);
 
-            // Load the image from the URL
-            Picasso.get().load(event.getImageUrl()).into(holder.eventImage);
+            // Load the small picture from the URL, at the size of the image view
+            ImageLoader.get().loadThumbnail(event.getImageUrl(), holder.eventImage, holder.itemView.getContext());
+            prefetchAfter(position, holder.eventImage);
             // Set the text for the title, description, date/time, and location
             holder.eventTitle.setText(event.getTitle());
             holder.eventDescription.setText(event.getDescription());
@@ -62,27 +69,40 @@
             holder.editButton.setOnClickListener(v -> {
                 Intent intent = new Intent(v.getContext(), EditEventActivity.class);
                 intent.putExtra("eventId", event.getEventId());
+                // Hand over the event we already have, so the form fills in straight away
+                intent.putExtra("event", new EventParcel(event));
                 v.getContext().startActivity(intent);
             });
 
             // Delete the event when the "Delete" button is clicked
-            holder.deleteButton.setOnClickListener(v -> deleteEvent(event.getEventId(), position));
+            holder.deleteButton.setOnClickListener(v -> deleteEvent(event.getEventId()));
+        }
+
+        // Starts loading the pictures of the next rows, at the same size as this row's picture
+        private void prefetchAfter(int position, ImageView image) {
+            int last = Math.min(position + PREFETCH_ROWS, getItemCount() - 1);
+            for (int i = position + 1; i <= last; i++) {
+                ImageLoader.get().prefetch(getItem(i).getImageUrl(), image.getWidth(), image.getHeight(), image.getContext());
+            }
         }
 
-        // Returns the number of events in the list
+        // Returns a stable ID for the event, so RecyclerView can keep track of the row
         @Override
-        public int getItemCount() {
-            return events.size();
+        public long getItemId(int position) {
+            return stableIds.idFor(getItem(position).getEventId());
         }
 
-        // Deletes the event with the given ID from the database
-        private void deleteEvent(String eventId, int position) {
-            db.collection("events").document(eventId)
-                    .delete()
+        // Deletes the event with the given ID from the database, together with its summary
+        private void deleteEvent(String eventId) {
+            // The events listener removes the row from the list once the delete goes through
+            WriteBatch batch = db.batch();
+            batch.delete(db.collection("events").document(eventId));
+            batch.delete(EventSummaries.summaryRef(db, eventId));
+            FirestoreMeter.get().startRun(FirestoreMeter.DELETE_EVENT);
+            batch.commit()
                     .addOnSuccessListener(aVoid -> {
-                        // If the event is deleted successfully, remove it from the list and update the screen
-                        events.remove(position);
-                        notifyItemRemoved(position);
+                        FirestoreUsage.recordWrites(FirestoreMeter.DELETE_EVENT, 2);
+                        EventCache.get().remove(eventId);
                     })
                     .addOnFailureListener(e ->
                             // If there was an error deleting the event, print the error to the log
@@ -5,19 +5,20 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
-import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.Timestamp;
-import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.project.wmpproject.ListChange;
+import com.project.wmpproject.AttendanceUpdate;
+import com.project.wmpproject.ImageLoader;
 import com.project.wmpproject.R;
+import com.project.wmpproject.UserProfileLoader;
 import com.project.wmpproject.model.Attendance;
-import com.squareup.picasso.Picasso;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -26,18 +27,56 @@ public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.At
 
     // This is a list of attendees to be displayed
     private List<Attendance> attendanceList;
-    // Tool for interacting with the database
-    private FirebaseFirestore db;
+    // Tool for loading the username and profile image of each attendee
+    private UserProfileLoader profileLoader;
     // Tool for formatting the time
     private SimpleDateFormat timeFormat;
+    // The version of the attendance update this list shows
+    private int shownVersion;
 
-    // This creates an AttendanceAdapter with the given list of attendees and database
-    public AttendanceAdapter(List<Attendance> attendanceList, FirebaseFirestore db) {
-        this.attendanceList = attendanceList;
-        this.db = db;
+    // This creates an AttendanceAdapter with the given list of attendees
+    public AttendanceAdapter(List<Attendance> attendanceList) {
+        this.attendanceList = new ArrayList<>(attendanceList);
+        this.profileLoader = UserProfileLoader.getInstance();
         this.timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
     }
 
+    // This shows the attendees of the update. If this list showed the update before it,
+    // only the rows that changed are added, moved or removed, so the scroll position is kept.
+    public void submit(AttendanceUpdate update) {
+        if (!update.followsVersion(shownVersion)) {
+            attendanceList = new ArrayList<>(update.attendance);
+            shownVersion = update.version;
+            notifyDataSetChanged();
+            return;
+        }
+        for (ListChange<Attendance> change : update.changes) {
+            int oldIndex = change.getOldIndex();
+            int newIndex = change.getNewIndex();
+            switch (change.getType()) {
+                case ADDED:
+                    attendanceList.add(newIndex, change.getItem());
+                    notifyItemInserted(newIndex);
+                    break;
+                case MODIFIED:
+                    if (oldIndex != newIndex) {
+                        attendanceList.remove(oldIndex);
+                        attendanceList.add(newIndex, change.getItem());
+                        notifyItemMoved(oldIndex, newIndex);
+                    } else {
+                        attendanceList.set(newIndex, change.getItem());
+                    }
+                    notifyItemChanged(newIndex);
+                    break;
+                case REMOVED:
+                    attendanceList.remove(oldIndex);
+                    notifyItemRemoved(oldIndex);
+                    break;
+            }
+        }
+        shownVersion = update.version;
+    }
+
     // This creates a view holder for each attendee in the list
     @NonNull
     @Override
@@ -52,44 +91,53 @@ public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.At
         Attendance attendance = attendanceList.get(position);
         String userId = attendance.userId;
 
-        // Get the user's information from the database
-        DocumentReference userRef = db.collection("users").document(userId);
-
-        userRef.get().addOnSuccessListener(doc -> {
-            if (doc.exists()) {
-                // If the user exists, get their username and profile image
-                String username = doc.getString("username");
-                String profileImage = doc.getString("profileImageUrl");
-                // Get the check-in time
-                Timestamp checkInTime = attendance.checkinTime;
-
-                // Set the username on the screen
-                holder.usernameTextView.setText(username);
-
-                if (profileImage != null) {
-                    // If the user has a profile image, load it from the URL
-                    Picasso.get()
-                            .load(profileImage)
-                            .placeholder(R.drawable.ic_default_profile) // Use a placeholder image while loading
-                            .error(R.drawable.ic_default_profile) // Use a default image if there's an error loading
-                            .into(holder.profileImageView);
-                }
-
-                if (checkInTime != null) {
-                    // If the user has checked in, format the check-in time and display it
-                    Date checkInDate = checkInTime.toDate();
-                    String formattedTime = timeFormat.format(checkInDate);
-                    holder.checkinTimeTextView.setText("Checked in at " + formattedTime);
-                }
+        // Remember which user this row is showing now, the row may have shown someone else before
+        holder.boundUserId = userId;
+        holder.usernameTextView.setText("");
+        ImageLoader.get().cancel(holder.profileImageView);
+        holder.profileImageView.setImageResource(R.drawable.ic_default_profile);
+
+        // Get the check-in time
+        Timestamp checkInTime = attendance.checkinTime;
+        if (checkInTime != null) {
+            // If the user has checked in, format the check-in time and display it
+            Date checkInDate = checkInTime.toDate();
+            String formattedTime = timeFormat.format(checkInDate);
+            holder.checkinTimeTextView.setText("Checked in at " + formattedTime);
+        } else {
+            holder.checkinTimeTextView.setText("");
+        }
+
+        if (attendance.username != null) {
+            // The name and picture were copied in when the user checked in, nothing has to be read
+            showProfile(holder, attendance.username, attendance.profileImageUrl);
+            return;
+        }
+
+        // Old check-ins have no copy, get the user's information instead.
+        // The loader reads many users at once and remembers them.
+        profileLoader.load(userId, profile -> {
+            // The row may have been reused for another user while we were waiting
+            if (!userId.equals(holder.boundUserId)) {
+                return;
             }
-        }).addOnFailureListener(e -> {
-            // If there was an error fetching user data, show an error message
-            Toast.makeText(holder.itemView.getContext(),
-                    "Error fetching user data: " + e.getMessage(),
-                    Toast.LENGTH_SHORT).show();
+            showProfile(holder, profile.username, profile.profileImageUrl);
         });
     }
 
+    // Show the username and picture of the attendee in the row
+    private void showProfile(AttendanceViewHolder holder, String username, String profileImageUrl) {
+        // Set the username on the screen
+        holder.usernameTextView.setText(username);
+
+        if (profileImageUrl != null) {
+            // If the user has a profile image, load it from the URL
+            // The default picture is shown while loading and if there's an error loading
+            ImageLoader.get().load(profileImageUrl, holder.profileImageView,
+                    holder.itemView.getContext(), R.drawable.ic_default_profile);
+        }
+    }
+
     // This returns the number of attendees in the list
     @Override
     public int getItemCount() {
@@ -101,6 +149,8 @@ public class AttendanceAdapter extends RecyclerView.Adapter<AttendanceAdapter.At
         ImageView profileImageView;
         TextView usernameTextView;
         TextView checkinTimeTextView;
+        // The user this row is showing
+        String boundUserId;
 
         // This connects the code to the elements in the item_attendance.xml design
         AttendanceViewHolder(@NonNull View itemView) {
@@ -9,23 +9,28 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.project.wmpproject.EventDetailsActivity;
+import com.project.wmpproject.ImageLoader;
 import com.project.wmpproject.R;
 import com.project.wmpproject.model.Event;
-import com.squareup.picasso.Picasso;
+import com.project.wmpproject.model.EventParcel;
 
-import java.util.List;
+public class EventAdapter extends ListAdapter<Event, EventAdapter.EventViewHolder> {
 
-public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHolder> {
+    // How many rows below the one being shown get their picture loaded early
+    private static final int PREFETCH_ROWS = 2;
 
-    // This is a list of events to be displayed
-    public List<Event> events;
+    // Gives every event its own stable row ID
+    private final EventDiffCallback.StableIds stableIds = new EventDiffCallback.StableIds();
 
-    // This creates an EventAdapter with the given list of events
-    public EventAdapter(List<Event> events) {
-        this.events = events;
+    // This creates an empty EventAdapter, call submitList() to show events.
+    // The new list is compared with the old one in the background and only changed rows are redrawn.
+    public EventAdapter() {
+        super(new EventDiffCallback());
+        setHasStableIds(true);
     }
 
     // This creates a view holder for each event in the list
@@ -38,14 +43,23 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
     // This sets the information for each event in the list
     @Override
     public void onBindViewHolder(@NonNull EventViewHolder holder, int position) {
-        Event event = events.get(position);
+        Event event = getItem(position);
         holder.bind(event);
+        prefetchAfter(position, holder.eventImage);
     }
 
-    // This returns the number of events in the list
+    // Start loading the pictures of the next rows, at the same size as this row's picture
+    private void prefetchAfter(int position, ImageView image) {
+        int last = Math.min(position + PREFETCH_ROWS, getItemCount() - 1);
+        for (int i = position + 1; i <= last; i++) {
+            ImageLoader.get().prefetch(getItem(i).getImageUrl(), image.getWidth(), image.getHeight(), image.getContext());
+        }
+    }
+
+    // This returns a stable ID for the event, so RecyclerView can keep track of the row
     @Override
-    public int getItemCount() {
-        return events.size();
+    public long getItemId(int position) {
+        return stableIds.idFor(getItem(position).getEventId());
     }
 
     // This class holds the views for each event in the list
@@ -67,8 +81,8 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
 
         // This sets the information for each event in the view holder
         void bind(Event event) {
-            // Load the image from the URL
-            Picasso.get().load(event.getImageUrl()).into(eventImage);
+            // Load the small picture from the URL, at the size of the image view
+            ImageLoader.get().loadThumbnail(event.getImageUrl(), eventImage, itemView.getContext());
             // Set the text for the title, description, date/time, and location
             eventTitle.setText(event.getTitle());
             eventDescription.setText(event.getDescription());
@@ -80,6 +94,8 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
                 String eventId = event.getEventId();
                 Intent intent = new Intent(v.getContext(), EventDetailsActivity.class);
                 intent.putExtra("eventId", eventId);
+                // Hand over the event we already have, so the details show straight away
+                intent.putExtra("event", new EventParcel(event));
                 v.getContext().startActivity(intent);
             });
         }
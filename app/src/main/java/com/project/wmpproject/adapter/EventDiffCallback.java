@@ -0,0 +1,40 @@
+package com.project.wmpproject.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.project.wmpproject.model.Event;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// This tells the list adapters how to compare two lists of events,
+// so only the rows that actually changed are redrawn
+public class EventDiffCallback extends DiffUtil.ItemCallback<Event> {
+
+    // Two rows show the same event when they have the same event ID
+    @Override
+    public boolean areItemsTheSame(@NonNull Event oldItem, @NonNull Event newItem) {
+        return oldItem.getEventId() != null && oldItem.getEventId().equals(newItem.getEventId());
+    }
+
+    // A row only needs to be redrawn when something about the event changed
+    @Override
+    public boolean areContentsTheSame(@NonNull Event oldItem, @NonNull Event newItem) {
+        return oldItem.equals(newItem);
+    }
+
+    // This gives every event ID its own stable number for RecyclerView
+    static class StableIds {
+        private final Map<String, Long> ids = new HashMap<>();
+
+        long idFor(String eventId) {
+            Long id = ids.get(eventId);
+            if (id == null) {
+                id = (long) ids.size();
+                ids.put(eventId, id);
+            }
+            return id;
+        }
+    }
+}
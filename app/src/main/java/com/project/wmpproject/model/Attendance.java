@@ -5,6 +5,12 @@ import com.google.firebase.Timestamp;
 public class Attendance {
     public String userId;
     public Timestamp checkinTime;
+    // A copy of the user's name and picture from when they checked in, null for old check-ins
+    public String username;
+    public String profileImageUrl;
+    // The ID of the attendance document. It is the user's ID, except for check-ins made before the
+    // event was migrated, which still have a random one. Not a field of the document.
+    public String documentId;
 
     public Attendance() {}
 
@@ -13,4 +19,10 @@ public class Attendance {
         this.checkinTime = checkinTime;
     }
 
+    public Attendance(String userId, Timestamp checkinTime, String username, String profileImageUrl) {
+        this(userId, checkinTime);
+        this.username = username;
+        this.profileImageUrl = profileImageUrl;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.project.wmpproject.model;
+
+import com.google.firebase.Timestamp;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// This class turns the data of an attendance document into an Attendance and back, without reflection.
+// It reads each field straight from the document's data, like EventMapper.
+public final class AttendanceMapper {
+
+    // The fields of an attendance document
+    public static final String USER_ID = "userId";
+    public static final String CHECKIN_TIME = "checkinTime";
+    public static final String USERNAME = "username";
+    public static final String PROFILE_IMAGE_URL = "profileImageUrl";
+
+    // How many fields toMap() writes, so the map never has to grow
+    private static final int FIELD_COUNT = 4;
+
+    private AttendanceMapper() {}
+
+    // The attendee in the data of a document, or null if there is no data (the document doesn't exist)
+    public static Attendance fromMap(Map<String, Object> data) {
+        if (data == null) {
+            return null;
+        }
+        Object checkinTime = data.get(CHECKIN_TIME);
+        return new Attendance(
+                EventMapper.getString(data, USER_ID),
+                checkinTime instanceof Timestamp ? (Timestamp) checkinTime : null,
+                EventMapper.getString(data, USERNAME),
+                EventMapper.getString(data, PROFILE_IMAGE_URL));
+    }
+
+    // The data to write for the attendee with set(). A check-in puts the server time in CHECKIN_TIME afterwards.
+    public static Map<String, Object> toMap(Attendance attendance) {
+        // The capacity keeps FIELD_COUNT entries under the default load factor
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 4 / 3 + 1);
+        data.put(USER_ID, attendance.userId);
+        data.put(CHECKIN_TIME, attendance.checkinTime);
+        data.put(USERNAME, attendance.username);
+        data.put(PROFILE_IMAGE_URL, attendance.profileImageUrl);
+        return data;
+    }
+}
@@ -0,0 +1,63 @@
+package com.project.wmpproject.model;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+// This puts an Event in a Parcel, so a list can hand the event it already has to the next screen.
+// Event lives in the plain Java core module, which can't use Parcelable.
+public class EventParcel implements Parcelable {
+
+    // The event that is handed over
+    public final Event event;
+
+    public EventParcel(Event event) {
+        this.event = event;
+    }
+
+    // This reads an event that was written with writeToParcel, in the same order
+    protected EventParcel(Parcel in) {
+        event = new Event(
+                in.readString(),  // title
+                in.readString(),  // description
+                in.readString(),  // dateTime
+                in.readString(),  // location
+                in.readString(),  // imageUrl
+                in.readString(),  // eventId
+                in.readInt());    // attendanceLimit
+        event.setDateTimeMillis(in.readLong());
+        event.setAttendeeCount(in.readInt());
+        event.setCounterShards(in.readInt());
+    }
+
+    // This writes the event into a parcel, to put it in an Intent
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(event.getTitle());
+        dest.writeString(event.getDescription());
+        dest.writeString(event.getDateTime());
+        dest.writeString(event.getLocation());
+        dest.writeString(event.getImageUrl());
+        dest.writeString(event.getEventId());
+        dest.writeInt(event.getAttendanceLimit());
+        dest.writeLong(event.getDateTimeMillis());
+        dest.writeInt(event.getAttendeeCount());
+        dest.writeInt(event.getCounterShards());
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<EventParcel> CREATOR = new Creator<EventParcel>() {
+        @Override
+        public EventParcel createFromParcel(Parcel in) {
+            return new EventParcel(in);
+        }
+
+        @Override
+        public EventParcel[] newArray(int size) {
+            return new EventParcel[size];
+        }
+    };
+}
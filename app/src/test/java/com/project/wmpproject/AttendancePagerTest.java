@@ -0,0 +1,160 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Attendance;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AttendancePagerTest {
+
+    // A source that answers straight away from a list, newest first
+    private static class FakeSource implements AttendancePager.Source {
+        final List<Attendance> attendees = new ArrayList<>();
+        AttendancePager.ChangesCallback arrivals;
+        Attendance listenedAfter;
+        int pageLoads;
+        int counts;
+        int listens;
+
+        @Override
+        public void loadFirstPage(int pageSize, AttendancePager.PageCallback callback) {
+            pageLoads++;
+            callback.onPage(new ArrayList<>(attendees.subList(0, Math.min(pageSize, attendees.size()))));
+        }
+
+        @Override
+        public void loadPageBefore(Attendance last, int pageSize, AttendancePager.PageCallback callback) {
+            pageLoads++;
+            int start = attendees.indexOf(last) + 1;
+            callback.onPage(new ArrayList<>(attendees.subList(start, Math.min(start + pageSize, attendees.size()))));
+        }
+
+        @Override
+        public void countUpTo(Attendance newest, AttendancePager.CountCallback callback) {
+            counts++;
+            callback.onCount(attendees.size() - attendees.indexOf(newest));
+        }
+
+        @Override
+        public EventRepository.Registration listenAfter(Attendance newest, AttendancePager.ChangesCallback callback) {
+            listens++;
+            listenedAfter = newest;
+            arrivals = callback;
+            return () -> arrivals = null;
+        }
+    }
+
+    private FakeSource source;
+    private AttendancePager pager;
+    private AttendanceUpdate lastUpdate;
+    private long lastCount = -1;
+
+    private static Attendance attendee(String userId) {
+        return new Attendance(userId, null);
+    }
+
+    private static List<String> userIds(List<Attendance> attendanceList) {
+        List<String> ids = new ArrayList<>();
+        for (Attendance attendance : attendanceList) {
+            ids.add(attendance.userId);
+        }
+        return ids;
+    }
+
+    @Before
+    public void setUp() {
+        source = new FakeSource();
+        for (int i = 9; i >= 0; i--) {
+            source.attendees.add(attendee("u" + i));
+        }
+        pager = new AttendancePager(source, 4, new FirestoreMeter(), FirestoreMeter.OPEN_EVENT_DETAILS,
+                new AttendancePager.Listener() {
+            @Override
+            public void onAttendance(AttendanceUpdate update) {
+                lastUpdate = update;
+            }
+
+            @Override
+            public void onCount(long attendeeCount) {
+                lastCount = attendeeCount;
+            }
+        });
+    }
+
+    @Test
+    public void firstPageIsCountedOnTheServer_andListensAfterItsNewestAttendee() {
+        pager.start();
+        assertEquals(Arrays.asList("u9", "u8", "u7", "u6"), userIds(lastUpdate.attendance));
+        assertEquals(10, lastCount);
+        assertEquals(1, source.counts);
+        assertEquals("u9", source.listenedAfter.userId);
+    }
+
+    @Test
+    public void pagesAreAddedAtTheEnd_untilAPageIsNotFull() {
+        pager.start();
+        pager.loadNextPage();
+        assertEquals(Arrays.asList("u5", "u4", "u3", "u2"), userIds(lastUpdate.attendance.subList(4, 8)));
+        // The adapter only has to insert the new rows
+        assertEquals(4, lastUpdate.changes.size());
+        assertEquals(4, lastUpdate.changes.get(0).getNewIndex());
+
+        pager.loadNextPage();
+        assertEquals(10, lastUpdate.attendance.size());
+        assertTrue(pager.isEndReached());
+        pager.loadNextPage();
+        assertEquals(3, source.pageLoads);
+    }
+
+    @Test
+    public void newCheckInsGoOnTopAndAreCounted() {
+        pager.start();
+        // Nobody checked in after the first page yet
+        source.arrivals.onChanges(Collections.emptyList());
+        int versionBefore = lastUpdate.version;
+        source.arrivals.onChanges(Collections.singletonList(
+                new ListChange<>(ListChange.Type.ADDED, attendee("u10"), -1, 0)));
+
+        assertEquals("u10", lastUpdate.attendance.get(0).userId);
+        assertTrue(lastUpdate.followsVersion(versionBefore));
+        assertEquals(11, lastCount);
+    }
+
+    @Test
+    public void restartKeepsThePages_andReplacesTheNewArrivals() {
+        pager.start();
+        source.arrivals.onChanges(Collections.emptyList());
+        source.arrivals.onChanges(Collections.singletonList(
+                new ListChange<>(ListChange.Type.ADDED, attendee("u10"), -1, 0)));
+        pager.stop();
+        assertNull(source.arrivals);
+
+        pager.start();
+        // The first changes after attaching add everyone again
+        source.arrivals.onChanges(Arrays.asList(
+                new ListChange<>(ListChange.Type.ADDED, attendee("u11"), -1, 0),
+                new ListChange<>(ListChange.Type.ADDED, attendee("u10"), -1, 1)));
+
+        assertEquals(Arrays.asList("u11", "u10", "u9"), userIds(lastUpdate.attendance.subList(0, 3)));
+        assertNull(lastUpdate.changes);
+        assertEquals(1, source.pageLoads);
+        assertEquals(2, source.listens);
+        assertEquals(12, lastCount);
+    }
+
+    @Test
+    public void smallEventIsNotCountedOnTheServer() {
+        source.attendees.subList(3, 10).clear();
+        pager.start();
+        assertEquals(3, lastCount);
+        assertEquals(0, source.counts);
+        assertTrue(pager.isEndReached());
+    }
+}
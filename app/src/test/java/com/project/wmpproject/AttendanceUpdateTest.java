@@ -0,0 +1,34 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Attendance;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AttendanceUpdateTest {
+
+    private static Attendance attendee(String userId) {
+        return new Attendance(userId, null);
+    }
+
+    @Test
+    public void updateOnlyFollowsTheVersionBeforeIt() {
+        List<ListChange<Attendance>> changes = Collections.singletonList(
+                new ListChange<>(ListChange.Type.ADDED, attendee("a"), -1, 0));
+        AttendanceUpdate update = new AttendanceUpdate(3, Collections.singletonList(attendee("a")), changes);
+        assertTrue(update.followsVersion(2));
+        // A new screen, or one that missed an update, shows the whole list instead
+        assertFalse(update.followsVersion(0));
+        assertFalse(update.followsVersion(3));
+    }
+
+    @Test
+    public void updateWithoutChangesIsAlwaysShownWhole() {
+        AttendanceUpdate update = new AttendanceUpdate(1, Collections.singletonList(attendee("a")), null);
+        assertFalse(update.followsVersion(0));
+    }
+}
@@ -0,0 +1,36 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class AttendedEventsTest {
+
+    @Test
+    public void historyIsTheSummaryWithTheCheckInTime() {
+        Event event = new Event("Title", "A description", "2024-05-01T18:30:00", "Hall",
+                "https://example.com/full.webp", "event1", 50);
+        Object checkinTime = new Object();
+
+        Map<String, Object> fields = AttendedEvents.fieldsOf(event, "https://example.com/small.webp", checkinTime);
+        // The same fields as the summary, so the history reads into Event objects
+        for (Map.Entry<String, Object> summaryField : EventSummaries.fieldsOf(event, "https://example.com/small.webp").entrySet()) {
+            assertEquals(summaryField.getValue(), fields.get(summaryField.getKey()));
+        }
+        assertSame(checkinTime, fields.get(AttendedEvents.CHECKIN_TIME));
+    }
+
+    @Test
+    public void historyUsesTheFullPictureOfOldEvents() {
+        Event event = new Event("Title", "A description", "2024-05-01T18:30:00", "Hall",
+                "https://example.com/full.webp", "event1", 50);
+
+        Map<String, Object> fields = AttendedEvents.fieldsOf(event, null, null);
+        assertEquals("https://example.com/full.webp", fields.get("imageUrl"));
+        assertEquals("event1", fields.get("eventId"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.project.wmpproject;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class AttendeeProfilesTest {
+
+    @Test
+    public void onlyTheShownFieldsAreCopied() {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("username", "alice");
+        updates.put("email", "alice@example.com");
+        updates.put("profileImageUrl", "https://example.com/alice.webp");
+
+        Map<String, Object> fields = AttendeeProfiles.copiedFields(null, updates);
+        assertEquals(2, fields.size());
+        assertEquals("alice", fields.get("username"));
+        assertEquals("https://example.com/alice.webp", fields.get("profileImageUrl"));
+    }
+
+    @Test
+    public void unchangedPictureIsNotOverwritten() {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("username", "bob");
+        updates.put("email", "bob@example.com");
+
+        Map<String, Object> fields = AttendeeProfiles.copiedFields(null, updates);
+        assertEquals(1, fields.size());
+        assertFalse(fields.containsKey("profileImageUrl"));
+    }
+
+    @Test
+    public void emailOnlyChangeCopiesNothing() {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("email", "carol@example.com");
+        assertTrue(AttendeeProfiles.copiedFields(null, updates).isEmpty());
+    }
+
+    @Test
+    public void savingTheSameProfileAgainCopiesNothing() {
+        Map<String, Object> before = AttendeeProfiles.fieldsOf("dave", "https://example.com/dave.webp");
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("username", "dave");
+        updates.put("email", "dave@example.org");
+        assertTrue(AttendeeProfiles.copiedFields(before, updates).isEmpty());
+
+        // Only the field that changed is copied
+        updates.put("profileImageUrl", "https://example.com/dave2.webp");
+        Map<String, Object> fields = AttendeeProfiles.copiedFields(before, updates);
+        assertEquals(1, fields.size());
+        assertEquals("https://example.com/dave2.webp", fields.get("profileImageUrl"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EventCacheTest {
+
+    private static Event event(String eventId, String title) {
+        return new Event(title, "Text", "2024-05-01T18:30:00", "Hall", "https://example.com/a.webp", eventId, 10);
+    }
+
+    @Test
+    public void putReplacesTheOldCopy() {
+        EventCache cache = new EventCache(10);
+        cache.put(event("a", "Old title"));
+        cache.put(event("a", "New title"));
+        assertEquals(1, cache.size());
+        assertEquals("New title", cache.get("a").getTitle());
+    }
+
+    @Test
+    public void leastRecentlyUsedEventIsDroppedWhenFull() {
+        EventCache cache = new EventCache(2);
+        cache.put(event("a", "A"));
+        cache.put(event("b", "B"));
+        // Opening "a" again makes "b" the least recently used
+        cache.get("a");
+        cache.put(event("c", "C"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void removeForgetsTheEvent_andEventsWithoutIdAreIgnored() {
+        EventCache cache = new EventCache(10);
+        cache.put(event("a", "A"));
+        cache.remove("a");
+        cache.put(event(null, "No ID"));
+        cache.put(null);
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+    }
+}
@@ -0,0 +1,150 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EventPagerTest {
+
+    private final List<Event> catalog = new ArrayList<>();
+    private final List<List<Event>> published = new ArrayList<>();
+    private final List<Integer> loadedPages = new ArrayList<>();
+    private int pageLoads;
+    private int activeListeners;
+    // The callback of the first page listener, to push changes to it
+    private EventPager.PageCallback firstPageCallback;
+    private EventPager pager;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < 45; i++) {
+            catalog.add(event(String.format("e%02d", i), i * 1000L));
+        }
+        pager = new EventPager(new ListSource(), 20, new FirestoreMeter(), FirestoreMeter.OPEN_FEED,
+                new EventPager.Listener() {
+            @Override
+            public void onEventsChanged(List<Event> events) {
+                published.add(events);
+            }
+
+            @Override
+            public void onPageLoaded(int pageNumber, int eventCount, long latencyMs) {
+                loadedPages.add(pageNumber);
+            }
+        });
+    }
+
+    @Test
+    public void pages_areLoadedWithCursorsUntilTheEnd() {
+        pager.start();
+        assertEquals(20, last().size());
+
+        pager.loadNextPage();
+        assertEquals(40, last().size());
+        assertFalse(pager.isEndReached());
+
+        pager.loadNextPage();
+        assertEquals(45, last().size());
+        assertTrue(pager.isEndReached());
+
+        // Nothing more to load
+        pager.loadNextPage();
+        assertEquals(2, pageLoads);
+        assertEquals(3, pager.getPageLatenciesMs().size());
+        assertEquals(3, loadedPages.size());
+        // Only the first page is listened to
+        assertEquals(1, activeListeners);
+    }
+
+    @Test
+    public void loadNextPage_waitsForFirstPage() {
+        pager.loadNextPage();
+        assertEquals(0, pageLoads);
+    }
+
+    @Test
+    public void insertOnFirstPage_pushesEventsDownWithoutLosingAny() {
+        pager.start();
+        pager.loadNextPage();
+        List<Event> before = new ArrayList<>(last());
+        catalog.add(0, event("new", -1));
+
+        pushFirstPage();
+
+        assertEquals("new", last().get(0).getEventId());
+        // The old 20th event is now the 21st, it is still shown and only once
+        assertEquals(41, last().size());
+        assertEquals(before, last().subList(1, 41));
+
+        // The next page starts after the last event we have
+        pager.loadNextPage();
+        assertEquals(46, last().size());
+    }
+
+    @Test
+    public void deleteOnFirstPage_leavesTheList() {
+        pager.start();
+        pager.loadNextPage();
+        Event deleted = catalog.remove(5);
+
+        pushFirstPage();
+
+        assertFalse(last().contains(deleted));
+        // The first event of the second page moved up, it is shown once
+        assertEquals(39, last().size());
+        assertEquals(catalog.subList(0, 39), last());
+    }
+
+    @Test
+    public void stop_keepsThePagesForTheNextStart() {
+        pager.start();
+        pager.loadNextPage();
+        pager.stop();
+        assertEquals(0, activeListeners);
+
+        pager.start();
+
+        assertEquals(1, activeListeners);
+        assertEquals(40, last().size());
+        assertEquals(1, pageLoads);
+    }
+
+    // The source sends the first page again after the catalog changed, like a snapshot listener
+    private void pushFirstPage() {
+        firstPageCallback.onPage(new ArrayList<>(catalog.subList(0, Math.min(20, catalog.size()))));
+    }
+
+    private List<Event> last() {
+        return published.get(published.size() - 1);
+    }
+
+    private static Event event(String id, long millis) {
+        Event event = new Event("Event " + id, "", "", "Hall", "url", id, 10);
+        event.setDateTimeMillis(millis);
+        return event;
+    }
+
+    // Serves the catalog in the order of the dates
+    private class ListSource implements EventPager.Source {
+        @Override
+        public EventRepository.Registration listenFirstPage(int pageSize, EventPager.PageCallback callback) {
+            activeListeners++;
+            firstPageCallback = callback;
+            callback.onPage(new ArrayList<>(catalog.subList(0, Math.min(pageSize, catalog.size()))));
+            return () -> activeListeners--;
+        }
+
+        @Override
+        public void loadPageAfter(Event lastEvent, int pageSize, EventPager.PageCallback callback) {
+            pageLoads++;
+            int start = catalog.indexOf(lastEvent) + 1;
+            callback.onPage(new ArrayList<>(catalog.subList(start, Math.min(start + pageSize, catalog.size()))));
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EventRepositoryTest {
+
+    private FakeEventBackend backend;
+    private EventRepository repository;
+
+    @Before
+    public void setUp() {
+        backend = new FakeEventBackend();
+        repository = new EventRepository(backend);
+    }
+
+    @Test
+    public void subscribers_shareOneBackendListener() {
+        EventRepository.Registration first = repository.subscribe((events, changes) -> { });
+        EventRepository.Registration second = repository.subscribe((events, changes) -> { });
+
+        assertEquals(1, backend.getListenerCount());
+        assertEquals(1, backend.getListenCount());
+
+        first.remove();
+        assertEquals(1, backend.getListenerCount());
+
+        second.remove();
+        assertEquals(0, backend.getListenerCount());
+        assertFalse(repository.isListening());
+    }
+
+    @Test
+    public void remove_isIdempotent() {
+        EventRepository.Registration first = repository.subscribe((events, changes) -> { });
+        repository.subscribe((events, changes) -> { });
+
+        first.remove();
+        first.remove();
+
+        assertEquals(1, repository.getSubscriberCount());
+        assertEquals(1, backend.getListenerCount());
+    }
+
+    @Test
+    public void changes_areFannedOutToEverySubscriber() {
+        List<List<Event>> first = new ArrayList<>();
+        List<List<Event>> second = new ArrayList<>();
+        repository.subscribe((events, changes) -> first.add(events));
+        repository.subscribe((events, changes) -> second.add(events));
+
+        backend.put(new Event("Title", "Description", "2024-01-01T10:00:00", "Hall", "url", "e1", 10));
+
+        assertEquals(1, first.get(first.size() - 1).size());
+        assertSame(first.get(first.size() - 1), second.get(second.size() - 1));
+    }
+
+    @Test
+    public void lateSubscriber_receivesLatestSnapshot() {
+        backend.put(new Event("Title", "Description", "2024-01-01T10:00:00", "Hall", "url", "e1", 10));
+        repository.subscribe((events, changes) -> { });
+
+        List<List<Event>> received = new ArrayList<>();
+        List<List<EventChange>> receivedChanges = new ArrayList<>();
+        repository.subscribe((events, changes) -> {
+            received.add(events);
+            receivedChanges.add(changes);
+        });
+
+        assertEquals(1, received.size());
+        assertEquals("e1", received.get(0).get(0).getEventId());
+        assertEquals(EventChange.Type.ADDED, receivedChanges.get(0).get(0).getType());
+    }
+
+    @Test
+    public void changes_areAppliedInPlace() {
+        List<List<EventChange>> received = new ArrayList<>();
+        repository.subscribe((events, changes) -> received.add(changes));
+
+        backend.put(new Event("First", "", "", "", "", "e1", 10));
+        backend.put(new Event("Second", "", "", "", "", "e2", 10));
+        backend.put(new Event("First again", "", "", "", "", "e1", 10));
+        backend.remove("e2");
+
+        List<Event> latest = repository.getLatestEvents();
+        assertEquals(1, latest.size());
+        assertEquals("First again", latest.get(0).getTitle());
+        // Every snapshot only carries the one event that changed
+        assertEquals(1, received.get(received.size() - 1).size());
+        assertEquals(EventChange.Type.REMOVED, received.get(received.size() - 1).get(0).getType());
+    }
+
+    @Test
+    public void unchangedModifications_areNotPassedOn() {
+        Event event = new Event("Title", "", "", "", "", "e1", 10);
+        backend.put(event);
+        List<List<EventChange>> received = new ArrayList<>();
+        repository.subscribe((events, changes) -> received.add(changes));
+
+        // Same information, for example when only hasPendingWrites flipped
+        backend.put(new Event("Title", "", "", "", "", "e1", 10));
+
+        assertEquals(1, received.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshots_areImmutable() {
+        repository.subscribe((events, changes) -> { });
+        repository.getLatestEvents().add(new Event());
+    }
+
+    @Test
+    public void subscriberArrivingWhileAttaching_doesNotAttachAgain() {
+        int[] listens = {0};
+        EventRepository[] holder = new EventRepository[1];
+        holder[0] = new EventRepository(listener -> {
+            listens[0]++;
+            if (listens[0] == 1) {
+                // Another screen subscribes while the first one is still attaching
+                holder[0].subscribe((events, changes) -> { });
+            }
+            return () -> { };
+        });
+
+        holder[0].subscribe((events, changes) -> { });
+
+        assertEquals(1, listens[0]);
+        assertTrue(holder[0].isListening());
+    }
+
+    @Test
+    public void detach_forgetsTheLatestEvents() {
+        backend.put(new Event("Title", "Description", "2024-01-01T10:00:00", "Hall", "url", "e1", 10));
+        repository.subscribe((events, changes) -> { }).remove();
+
+        assertNull(repository.getLatestEvents());
+    }
+
+    @Test
+    public void changesFromARemovedListener_areIgnored() {
+        List<EventRepository.BackendListener> attached = new ArrayList<>();
+        EventRepository repo = new EventRepository(listener -> {
+            attached.add(listener);
+            return () -> { };
+        });
+        List<List<Event>> received = new ArrayList<>();
+        repo.subscribe((events, changes) -> received.add(events)).remove();
+        repo.subscribe((events, changes) -> received.add(events));
+
+        // The first listener's snapshot was still on its way when everyone left
+        Event stale = new Event("Old", "Description", "2024-01-01T10:00:00", "Hall", "url", "e1", 10);
+        attached.get(0).onChanges(Collections.singletonList(
+                new EventChange(EventChange.Type.ADDED, stale, -1, 0)));
+
+        assertEquals(2, attached.size());
+        assertTrue(received.isEmpty());
+        assertNull(repo.getLatestEvents());
+    }
+}
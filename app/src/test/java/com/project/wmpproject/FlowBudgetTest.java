@@ -0,0 +1,237 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Attendance;
+import com.project.wmpproject.model.Event;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+// The screens have to stay in their Firestore budget however big the collections get.
+// The pagers start the runs like in the app, and the sources count their results with the
+// rules of the FirestoreMeter, like BackgroundSnapshots does: a listener first gets what the
+// phone's cache has (free), then the server's answer (every document), then only the changes.
+public class FlowBudgetTest {
+
+    @Test
+    public void openFeed_readsOnePagePerRunWhateverTheCatalogSize() {
+        for (int catalogSize : new int[]{100, 10_000}) {
+            FirestoreMeter meter = new FirestoreMeter();
+            EventPager pager = newEventPager(meter, catalogSize);
+            pager.start();
+            pager.loadNextPage();
+            pager.loadNextPage();
+
+            FirestoreMeter.Usage usage = meter.getUsage(FirestoreMeter.OPEN_FEED);
+            assertEquals(3, usage.runs);
+            // Every page is read once
+            assertEquals(3 * EventPager.DEFAULT_PAGE_SIZE, usage.reads);
+            assertEquals(EventPager.DEFAULT_PAGE_SIZE, usage.maxRunReads);
+            assertTrue(usage.toString(), meter.isWithinBudget(FirestoreMeter.OPEN_FEED));
+        }
+    }
+
+    @Test
+    public void openFeed_scrollingFarStaysInBudget() {
+        FirestoreMeter meter = new FirestoreMeter();
+        EventPager pager = newEventPager(meter, 10_000);
+        pager.start();
+        for (int page = 2; page <= 50; page++) {
+            pager.loadNextPage();
+        }
+
+        FirestoreMeter.Usage usage = meter.getUsage(FirestoreMeter.OPEN_FEED);
+        assertEquals(50, usage.runs);
+        assertEquals(50 * EventPager.DEFAULT_PAGE_SIZE, usage.reads);
+        assertTrue(usage.toString(), meter.isWithinBudget(FirestoreMeter.OPEN_FEED));
+    }
+
+    @Test
+    public void openEventDetails_readsOnePageOfAttendeesWhateverTheEventSize() {
+        int[] attendees = {10, 5_000};
+        // The event, the attendees of the first page, the count (only when there is a second page)
+        // and the empty first snapshot of the listener for new check-ins
+        long[] expectedReads = {1 + 10 + 1, 1 + AttendancePager.DEFAULT_PAGE_SIZE + 5 + 1};
+        for (int i = 0; i < attendees.length; i++) {
+            FirestoreMeter meter = new FirestoreMeter();
+            AttendancePager pager = newAttendancePager(meter, attendees[i]);
+            pager.start();
+            // The screen reads the event, like EventDetailsViewModel.load()
+            meter.recordDocument(FirestoreMeter.OPEN_EVENT_DETAILS, false, "events/e1", null);
+
+            FirestoreMeter.Usage usage = meter.getUsage(FirestoreMeter.OPEN_EVENT_DETAILS);
+            assertEquals(1, usage.runs);
+            assertEquals(expectedReads[i], usage.reads);
+            assertTrue(usage.toString(), meter.isWithinBudget(FirestoreMeter.OPEN_EVENT_DETAILS));
+        }
+    }
+
+    @Test
+    public void openEventDetails_comingBackAndMorePagesAreRunsOfTheirOwn() {
+        FirestoreMeter meter = new FirestoreMeter();
+        AttendancePager pager = newAttendancePager(meter, 5_000);
+        pager.start();
+        pager.stop();
+        pager.start();
+        pager.loadNextPage();
+        pager.loadNextPage();
+
+        FirestoreMeter.Usage usage = meter.getUsage(FirestoreMeter.OPEN_EVENT_DETAILS);
+        assertEquals(4, usage.runs);
+        // Opening the screen was the most expensive run
+        assertEquals(AttendancePager.DEFAULT_PAGE_SIZE + 5 + 1, usage.maxRunReads);
+        assertTrue(usage.toString(), meter.isWithinBudget(FirestoreMeter.OPEN_EVENT_DETAILS));
+    }
+
+    private static EventPager newEventPager(FirestoreMeter meter, int catalogSize) {
+        return new EventPager(new MeteredEventSource(meter, catalogSize), EventPager.DEFAULT_PAGE_SIZE,
+                meter, FirestoreMeter.OPEN_FEED, new EventPager.Listener() {
+            @Override
+            public void onEventsChanged(List<Event> events) {
+            }
+
+            @Override
+            public void onPageLoaded(int pageNumber, int eventCount, long latencyMs) {
+            }
+        });
+    }
+
+    private static AttendancePager newAttendancePager(FirestoreMeter meter, int attendees) {
+        return new AttendancePager(new MeteredAttendanceSource(meter, attendees), AttendancePager.DEFAULT_PAGE_SIZE,
+                meter, FirestoreMeter.OPEN_EVENT_DETAILS, new AttendancePager.Listener() {
+            @Override
+            public void onAttendance(AttendanceUpdate update) {
+            }
+
+            @Override
+            public void onCount(long attendeeCount) {
+            }
+        });
+    }
+
+    // A query result with the given number of documents and changes
+    private static class Snapshot implements FirestoreMeter.QueryResult {
+        private final boolean fromCache;
+        private final int documents;
+        private final int changes;
+
+        Snapshot(boolean fromCache, int documents, int changes) {
+            this.fromCache = fromCache;
+            this.documents = documents;
+            this.changes = changes;
+        }
+
+        @Override
+        public boolean isFromCache() {
+            return fromCache;
+        }
+
+        @Override
+        public int documentCount() {
+            return documents;
+        }
+
+        @Override
+        public long documentBytes() {
+            return 0;
+        }
+
+        @Override
+        public int changeCount() {
+            return changes;
+        }
+
+        @Override
+        public long changeBytes() {
+            return 0;
+        }
+    }
+
+    // Serves made-up events in date order. The first page is answered by the cache, then by the
+    // server. The pages after it are read once with a get().
+    private static class MeteredEventSource implements EventPager.Source {
+        private final FirestoreMeter meter;
+        private final List<Event> catalog = new ArrayList<>();
+
+        MeteredEventSource(FirestoreMeter meter, int size) {
+            this.meter = meter;
+            for (int i = 0; i < size; i++) {
+                Event event = new Event("Event " + i, "", "", "Hall", "url", String.format("e%05d", i), 10);
+                event.setDateTimeMillis(i);
+                catalog.add(event);
+            }
+        }
+
+        @Override
+        public EventRepository.Registration listenFirstPage(int pageSize, EventPager.PageCallback callback) {
+            FirestoreMeter.ListenerReads reads = new FirestoreMeter.ListenerReads(meter, FirestoreMeter.OPEN_FEED);
+            List<Event> page = new ArrayList<>(catalog.subList(0, Math.min(pageSize, catalog.size())));
+            // Every event of the page is added in the first snapshots
+            reads.record(new Snapshot(true, page.size(), page.size()));
+            callback.onPage(page);
+            reads.record(new Snapshot(false, page.size(), page.size()));
+            callback.onPage(page);
+            return () -> { };
+        }
+
+        @Override
+        public void loadPageAfter(Event lastEvent, int pageSize, EventPager.PageCallback callback) {
+            int start = catalog.indexOf(lastEvent) + 1;
+            List<Event> page = new ArrayList<>(catalog.subList(start, Math.min(start + pageSize, catalog.size())));
+            meter.recordQuery(FirestoreMeter.OPEN_FEED, new Snapshot(false, page.size(), page.size()), true);
+            callback.onPage(page);
+        }
+    }
+
+    // Serves made-up attendees newest first
+    private static class MeteredAttendanceSource implements AttendancePager.Source {
+        private final FirestoreMeter meter;
+        private final List<Attendance> attendees = new ArrayList<>();
+
+        MeteredAttendanceSource(FirestoreMeter meter, int size) {
+            this.meter = meter;
+            for (int i = 0; i < size; i++) {
+                attendees.add(new Attendance("u" + i, null));
+            }
+        }
+
+        @Override
+        public void loadFirstPage(int pageSize, AttendancePager.PageCallback callback) {
+            callback.onPage(get(0, pageSize));
+        }
+
+        @Override
+        public void loadPageBefore(Attendance last, int pageSize, AttendancePager.PageCallback callback) {
+            callback.onPage(get(attendees.indexOf(last) + 1, pageSize));
+        }
+
+        @Override
+        public void countUpTo(Attendance newest, AttendancePager.CountCallback callback) {
+            long count = attendees.size() - attendees.indexOf(newest);
+            meter.recordCount(FirestoreMeter.OPEN_EVENT_DETAILS, count);
+            callback.onCount(count);
+        }
+
+        @Override
+        public EventRepository.Registration listenAfter(Attendance newest, AttendancePager.ChangesCallback callback) {
+            // Nobody checked in after the first page. The cache and then the server say so.
+            FirestoreMeter.ListenerReads reads =
+                    new FirestoreMeter.ListenerReads(meter, FirestoreMeter.OPEN_EVENT_DETAILS);
+            reads.record(new Snapshot(true, 0, 0));
+            callback.onChanges(Collections.<ListChange<Attendance>>emptyList());
+            reads.record(new Snapshot(false, 0, 0));
+            return () -> { };
+        }
+
+        // A page read with get(), every attendee on it is billed
+        private List<Attendance> get(int start, int pageSize) {
+            List<Attendance> page = new ArrayList<>(attendees.subList(start, Math.min(start + pageSize, attendees.size())));
+            meter.recordQuery(FirestoreMeter.OPEN_EVENT_DETAILS, new Snapshot(false, page.size(), page.size()), true);
+            return page;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.project.wmpproject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ImagePreparerTest {
+
+    @Test
+    public void calculateInSampleSize_keepsLongestSideAtLeastMax() {
+        // A 12 MP camera picture for a 1600 px event image
+        assertEquals(2, ImagePreparer.calculateInSampleSize(4000, 3000, 1600));
+        // Portrait pictures use their height
+        assertEquals(4, ImagePreparer.calculateInSampleSize(3000, 8000, 1600));
+        assertEquals(4, ImagePreparer.calculateInSampleSize(4000, 3000, 512));
+    }
+
+    @Test
+    public void calculateInSampleSize_smallImagesAreNotSampled() {
+        assertEquals(1, ImagePreparer.calculateInSampleSize(800, 600, 1600));
+        assertEquals(1, ImagePreparer.calculateInSampleSize(1600, 1200, 1600));
+    }
+
+    @Test
+    public void scaleFactor_shrinksToMaxButNeverEnlarges() {
+        assertEquals(0.8f, ImagePreparer.scaleFactor(2000, 1500, 1600), 0.0001f);
+        assertEquals(0.8f, ImagePreparer.scaleFactor(1500, 2000, 1600), 0.0001f);
+        assertEquals(1f, ImagePreparer.scaleFactor(800, 600, 1600), 0.0001f);
+    }
+}
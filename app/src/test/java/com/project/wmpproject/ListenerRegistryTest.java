@@ -0,0 +1,75 @@
+package com.project.wmpproject;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ListenerRegistryTest {
+
+    private FakeEventBackend backend;
+    private EventRepository repository;
+    private ListenerRegistry registry;
+    private int totalBefore;
+
+    @Before
+    public void setUp() {
+        backend = new FakeEventBackend();
+        repository = new EventRepository(backend);
+        registry = new ListenerRegistry();
+        totalBefore = ListenerRegistry.getTotalActiveCount();
+    }
+
+    @Test
+    public void listenersOnlyAttachWhileStarted() {
+        registry.add(() -> repository.subscribe((events, changes) -> { }));
+        assertEquals(0, registry.getActiveCount());
+        assertEquals(0, backend.getListenerCount());
+
+        registry.start();
+        assertEquals(1, registry.getActiveCount());
+        assertEquals(1, backend.getListenerCount());
+        assertEquals(totalBefore + 1, ListenerRegistry.getTotalActiveCount());
+
+        registry.stop();
+        assertEquals(0, registry.getActiveCount());
+        assertEquals(0, backend.getListenerCount());
+        assertEquals(totalBefore, ListenerRegistry.getTotalActiveCount());
+    }
+
+    @Test
+    public void addWhileStarted_attachesStraightAway() {
+        registry.start();
+        registry.add(() -> repository.subscribe((events, changes) -> { }));
+        assertEquals(1, registry.getActiveCount());
+        registry.destroy();
+    }
+
+    @Test
+    public void restartAttachesAgain_withoutStackingDuplicates() {
+        registry.add(() -> repository.subscribe((events, changes) -> { }));
+        for (int i = 0; i < 3; i++) {
+            registry.start();
+            registry.start();
+            registry.stop();
+        }
+        registry.start();
+        assertEquals(1, registry.getActiveCount());
+        assertEquals(1, repository.getSubscriberCount());
+        assertEquals(4, backend.getListenCount());
+        registry.destroy();
+    }
+
+    @Test
+    public void destroy_removesEverythingForGood() {
+        registry.add(() -> repository.subscribe((events, changes) -> { }));
+        registry.start();
+        registry.destroy();
+
+        registry.start();
+        registry.add(() -> repository.subscribe((events, changes) -> { }));
+        assertEquals(0, registry.getActiveCount());
+        assertFalse(repository.isListening());
+        assertEquals(totalBefore, ListenerRegistry.getTotalActiveCount());
+    }
+}
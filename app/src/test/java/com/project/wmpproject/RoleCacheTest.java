@@ -0,0 +1,32 @@
+package com.project.wmpproject;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RoleCacheTest {
+
+    @Test
+    public void roleFromClaims_readsTheRoleClaim() {
+        assertEquals("admin", RoleCache.roleFromClaims(Collections.singletonMap("role", "admin")));
+        assertEquals("user", RoleCache.roleFromClaims(Collections.singletonMap("role", "user")));
+    }
+
+    @Test
+    public void roleFromClaims_readsTheAdminFlag() {
+        assertEquals(RoleCache.ROLE_ADMIN, RoleCache.roleFromClaims(Collections.singletonMap("admin", true)));
+        assertEquals(RoleCache.ROLE_USER, RoleCache.roleFromClaims(Collections.singletonMap("admin", false)));
+    }
+
+    @Test
+    public void roleFromClaims_noRoleInToken() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("email", "someone@example.com");
+        assertNull(RoleCache.roleFromClaims(claims));
+        assertNull(RoleCache.roleFromClaims(null));
+    }
+}
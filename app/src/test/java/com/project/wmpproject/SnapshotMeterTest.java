@@ -0,0 +1,30 @@
+package com.project.wmpproject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SnapshotMeterTest {
+
+    @Test
+    public void unknownListenerHasNoSnapshots() {
+        SnapshotMeter meter = new SnapshotMeter();
+        assertEquals(0, meter.getStats("events").snapshots);
+    }
+
+    @Test
+    public void averagesAndMaximumArePerListener() {
+        SnapshotMeter meter = new SnapshotMeter();
+        meter.record("events", 8_000_000, 100_000);
+        meter.record("events", 4_000_000, 300_000);
+        meter.record("attendance", 1_000_000, 50_000);
+
+        SnapshotMeter.Stats events = meter.getStats("events");
+        assertEquals(2, events.snapshots);
+        assertEquals(200, events.averageMainMicros);
+        assertEquals(300, events.maxMainMicros);
+        assertEquals(6000, events.averageMappingMicros);
+
+        assertEquals(1, meter.getStats("attendance").snapshots);
+    }
+}
@@ -0,0 +1,88 @@
+package com.project.wmpproject;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UserProfileLoaderTest {
+
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<List<String>> fetched = new ArrayList<>();
+    private UserProfileLoader loader;
+
+    @Before
+    public void setUp() {
+        UserProfileLoader.Source source = (userIds, callback) -> {
+            fetched.add(new ArrayList<>(userIds));
+            List<UserProfileLoader.UserProfile> profiles = new ArrayList<>();
+            for (String userId : userIds) {
+                if (!userId.startsWith("missing")) {
+                    profiles.add(new UserProfileLoader.UserProfile(userId, "name-" + userId, null));
+                }
+            }
+            callback.onProfiles(profiles);
+        };
+        loader = new UserProfileLoader(source, scheduled::add, 3);
+    }
+
+    @Test
+    public void requestsForTheSameUser_shareOneRead() {
+        List<String> names = new ArrayList<>();
+        loader.load("u1", profile -> names.add(profile.username));
+        loader.load("u1", profile -> names.add(profile.username));
+        runScheduled();
+
+        assertEquals(1, fetched.size());
+        assertEquals(1, fetched.get(0).size());
+        assertEquals(2, names.size());
+    }
+
+    @Test
+    public void misses_areBatchedIntoChunks() {
+        for (int i = 0; i < 25; i++) {
+            loader.load("u" + i, profile -> { });
+        }
+        runScheduled();
+
+        assertEquals(3, fetched.size());
+        assertEquals(UserProfileLoader.BATCH_SIZE, fetched.get(0).size());
+        assertEquals(5, fetched.get(2).size());
+    }
+
+    @Test
+    public void cachedProfiles_areServedWithoutReads_andCacheIsBounded() {
+        loader.load("u1", profile -> { });
+        runScheduled();
+        loader.load("u1", profile -> { });
+        assertEquals(1, fetched.size());
+        assertTrue(scheduled.isEmpty());
+
+        for (int i = 2; i <= 5; i++) {
+            loader.load("u" + i, profile -> { });
+        }
+        runScheduled();
+        assertEquals(3, loader.getCachedCount());
+    }
+
+    @Test
+    public void missingUsers_areAskedForAgainLater() {
+        loader.load("missing", profile -> fail("should not be called"));
+        runScheduled();
+        loader.load("missing", profile -> { });
+        runScheduled();
+
+        assertEquals(2, fetched.size());
+    }
+
+    private void runScheduled() {
+        List<Runnable> toRun = new ArrayList<>(scheduled);
+        scheduled.clear();
+        for (Runnable runnable : toRun) {
+            runnable.run();
+        }
+    }
+}
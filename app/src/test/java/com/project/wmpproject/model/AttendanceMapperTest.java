@@ -0,0 +1,36 @@
+package com.project.wmpproject.model;
+
+import com.google.firebase.Timestamp;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class AttendanceMapperTest {
+
+    @Test
+    public void writtenAttendanceReadsBackTheSame() {
+        Timestamp checkinTime = new Timestamp(1714588200L, 0);
+        Attendance attendance = new Attendance("user1", checkinTime, "alice", "https://example.com/alice.webp");
+
+        Attendance read = AttendanceMapper.fromMap(AttendanceMapper.toMap(attendance));
+        assertEquals("user1", read.userId);
+        assertSame(checkinTime, read.checkinTime);
+        assertEquals("alice", read.username);
+        assertEquals("https://example.com/alice.webp", read.profileImageUrl);
+    }
+
+    @Test
+    public void oldCheckInsHaveNoProfile() {
+        Map<String, Object> data = new HashMap<>();
+        data.put(AttendanceMapper.USER_ID, "user1");
+
+        Attendance read = AttendanceMapper.fromMap(data);
+        assertEquals("user1", read.userId);
+        assertNull(read.checkinTime);
+        assertNull(read.username);
+    }
+}
@@ -0,0 +1,39 @@
+// JMH benchmarks for the hot paths in :core, run on a JVM: ./gradlew :benchmarks:jmh
+// The results are written to build/results/jmh/results.json, so CI can compare them between builds.
+// The load test plays whole scenarios against an in-memory Firestore: ./gradlew :benchmarks:loadTest
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    implementation(project(":core"))
+    testImplementation(libs.junit)
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh.get())
+    // Enough rounds for stable numbers on a CI box, without taking the whole build
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+    // Only run some benchmarks, for example: ./gradlew :benchmarks:jmh -Pjmh.includes=EventSearch
+    (project.findProperty("jmh.includes") as String?)?.let { includes.set(listOf(it)) }
+}
+
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Plays the load test scenarios against a synthetic dataset in memory"
+    mainClass.set("com.project.wmpproject.loadtest.LoadTest")
+    classpath = sourceSets["main"].runtimeClasspath
+    // 10k events and 200k check-ins, with a search index per simulated phone
+    maxHeapSize = "2g"
+    // Change the numbers, for example: -PloadTest.args="--checkins=1000 --shards=1,10"
+    (project.findProperty("loadTest.args") as String?)?.let { args(it.split(" ")) }
+}
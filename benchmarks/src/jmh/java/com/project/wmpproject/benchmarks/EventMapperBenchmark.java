@@ -0,0 +1,135 @@
+package com.project.wmpproject.benchmarks;
+
+import com.project.wmpproject.model.Event;
+import com.project.wmpproject.model.EventMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// How long it takes to turn a snapshot's worth of documents into events and back.
+// readAllByReflection maps the same documents the way Firestore's toObject() does, to compare with EventMapper.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventMapperBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int eventCount;
+
+    private List<Event> events;
+    private List<Map<String, Object>> documents;
+
+    @Setup
+    public void setUp() {
+        events = SyntheticEvents.generate(eventCount, 42);
+        documents = new ArrayList<>(events.size());
+        for (Event event : events) {
+            documents.add(toFirestoreTypes(EventMapper.toMap(event)));
+        }
+        // Both mappers have to read the same events, or the comparison means nothing
+        for (Map<String, Object> data : documents) {
+            String id = (String) data.get(EventMapper.EVENT_ID);
+            if (!ReflectionMapper.toObject(id, data).equals(EventMapper.fromMap(id, data))) {
+                throw new IllegalStateException("The mappers disagree on event " + id);
+            }
+        }
+    }
+
+    @Benchmark
+    public int readAll() {
+        int sum = 0;
+        for (Map<String, Object> data : documents) {
+            sum += EventMapper.fromMap((String) data.get(EventMapper.EVENT_ID), data).getAttendanceLimit();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int readAllByReflection() {
+        int sum = 0;
+        for (Map<String, Object> data : documents) {
+            sum += ReflectionMapper.toObject((String) data.get(EventMapper.EVENT_ID), data).getAttendanceLimit();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int writeAll() {
+        int size = 0;
+        for (Event event : events) {
+            size += EventMapper.toMap(event).size();
+        }
+        return size;
+    }
+
+    // Firestore gives back every whole number as a Long
+    private static Map<String, Object> toFirestoreTypes(Map<String, Object> data) {
+        Map<String, Object> converted = new HashMap<>();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            Object value = entry.getValue();
+            converted.put(entry.getKey(), value instanceof Integer ? Long.valueOf((Integer) value) : value);
+        }
+        return converted;
+    }
+
+    // Maps documents the way toObject() does: create the object with its empty constructor,
+    // then find each field by name and set it by reflection, converting numbers on the way.
+    // The fields of the class are looked up once, like Firestore caches them per class.
+    private static class ReflectionMapper {
+        private static final Map<String, Field> FIELDS = new HashMap<>();
+        private static final Constructor<Event> CONSTRUCTOR;
+
+        static {
+            try {
+                CONSTRUCTOR = Event.class.getDeclaredConstructor();
+                for (Field field : Event.class.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        FIELDS.put(field.getName(), field);
+                    }
+                }
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        static Event toObject(String id, Map<String, Object> data) {
+            try {
+                Event event = CONSTRUCTOR.newInstance();
+                for (Map.Entry<String, Object> entry : data.entrySet()) {
+                    Field field = FIELDS.get(entry.getKey());
+                    if (field == null) {
+                        continue;
+                    }
+                    Object value = entry.getValue();
+                    if (field.getType() == int.class) {
+                        field.setInt(event, ((Number) value).intValue());
+                    } else if (field.getType() == long.class) {
+                        field.setLong(event, ((Number) value).longValue());
+                    } else {
+                        field.set(event, value);
+                    }
+                }
+                event.setEventId(id);
+                return event;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.project.wmpproject.benchmarks;
+
+import com.project.wmpproject.EventSearchIndex;
+import com.project.wmpproject.model.Event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// How long the search screen takes to build its index and to answer a query
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventSearchBenchmark {
+
+    // Queries that don't contain each other, so each one searches the whole index
+    private static final String[] QUERIES = {"music", "free entry", "snacks", "robot", "chess night", "yo"};
+    // What the user types one letter at a time, each query narrows the one before
+    private static final String[] TYPING = {"wo", "wor", "work", "works", "worksh", "workshop"};
+
+    @Param({"1000", "10000", "100000"})
+    public int eventCount;
+
+    private List<Event> events;
+    private EventSearchIndex index;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        events = SyntheticEvents.generate(eventCount, 42);
+        index = new EventSearchIndex();
+        index.replaceAll(events);
+    }
+
+    @Benchmark
+    public EventSearchIndex buildIndex() {
+        EventSearchIndex built = new EventSearchIndex();
+        built.replaceAll(events);
+        return built;
+    }
+
+    @Benchmark
+    public List<Event> searchNewQuery() {
+        next = (next + 1) % QUERIES.length;
+        return index.search(QUERIES[next]);
+    }
+
+    @Benchmark
+    public List<Event> searchWhileTyping() {
+        next = (next + 1) % TYPING.length;
+        return index.search(TYPING[next]);
+    }
+}
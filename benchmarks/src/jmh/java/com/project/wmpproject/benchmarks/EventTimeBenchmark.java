@@ -0,0 +1,53 @@
+package com.project.wmpproject.benchmarks;
+
+import com.project.wmpproject.EventTime;
+import com.project.wmpproject.model.Event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// How long it takes to read and write the dates of a whole list of events,
+// like the migration of old events and the rows of a list do
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventTimeBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int eventCount;
+
+    private List<Event> events;
+
+    @Setup
+    public void setUp() {
+        events = SyntheticEvents.generate(eventCount, 42);
+    }
+
+    @Benchmark
+    public long parseAll() {
+        long sum = 0;
+        for (Event event : events) {
+            sum += EventTime.parseOrZero(event.getDateTime());
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int formatAll() {
+        int length = 0;
+        for (Event event : events) {
+            length += EventTime.formatDate(event.getDateTimeMillis()).length();
+            length += EventTime.formatTime(event.getDateTimeMillis()).length();
+        }
+        return length;
+    }
+}
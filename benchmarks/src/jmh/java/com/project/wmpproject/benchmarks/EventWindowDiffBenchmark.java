@@ -0,0 +1,71 @@
+package com.project.wmpproject.benchmarks;
+
+import com.project.wmpproject.EventChange;
+import com.project.wmpproject.EventWindowDiff;
+import com.project.wmpproject.model.Event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// How long it takes to work out and apply the changes between two lists of events
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventWindowDiffBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int eventCount;
+
+    private List<Event> stored;
+    private List<Event> loaded;
+    private List<EventChange> changes;
+
+    @Setup
+    public void setUp() {
+        stored = SyntheticEvents.generate(eventCount, 42);
+        // The loaded list has 1% of the events changed and 1% deleted, like after a day away
+        loaded = new ArrayList<>(stored.size());
+        for (int i = 0; i < stored.size(); i++) {
+            Event event = stored.get(i);
+            if (i % 100 == 50) {
+                continue;
+            }
+            if (i % 100 == 0) {
+                Event changed = new Event(event.getTitle() + " (moved)", event.getDescription(), event.getDateTime(),
+                        event.getLocation(), event.getImageUrl(), event.getEventId(), event.getAttendanceLimit());
+                changed.setDateTimeMillis(event.getDateTimeMillis());
+                event = changed;
+            }
+            loaded.add(event);
+        }
+
+        // A snapshot of 1% new events at the top of the list, as a listener would send it
+        changes = new ArrayList<>();
+        List<Event> added = SyntheticEvents.generate(Math.max(1, eventCount / 100), 7);
+        for (int i = 0; i < added.size(); i++) {
+            changes.add(new EventChange(EventChange.Type.ADDED, added.get(i), -1, i));
+        }
+    }
+
+    @Benchmark
+    public EventWindowDiff computeDiff() {
+        return EventWindowDiff.compute(stored, loaded, true);
+    }
+
+    @Benchmark
+    public List<Event> applyChanges() {
+        List<Event> events = new ArrayList<>(stored);
+        EventChange.applyAll(events, changes);
+        return events;
+    }
+}
@@ -0,0 +1,105 @@
+package com.project.wmpproject.benchmarks;
+
+import com.project.wmpproject.model.Event;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// This makes a whole made-up deployment: events, users and who checked in to what.
+// A few events are very popular and most are small, like on a real campus, so the attendance
+// is spread with a skew instead of evenly. Every user checks in to an event at most once.
+// The same seed always gives the same dataset.
+public final class SyntheticDataset {
+
+    // A user of the app
+    public static final class User {
+        public final String userId;
+        public final String username;
+        public final String email;
+        public final String profileImageUrl;
+
+        User(String userId, String username, String email, String profileImageUrl) {
+            this.userId = userId;
+            this.username = username;
+            this.email = email;
+            this.profileImageUrl = profileImageUrl;
+        }
+    }
+
+    // One check-in of a user to an event
+    public static final class CheckIn {
+        public final int eventIndex;
+        public final int userIndex;
+        public final long checkinMillis;
+
+        CheckIn(int eventIndex, int userIndex, long checkinMillis) {
+            this.eventIndex = eventIndex;
+            this.userIndex = userIndex;
+            this.checkinMillis = checkinMillis;
+        }
+    }
+
+    // How strongly the check-ins go to the first events, higher means a few events get most of them
+    private static final double POPULARITY_SKEW = 2.0;
+
+    public final List<Event> events;
+    public final List<User> users;
+    public final List<CheckIn> checkIns;
+
+    private SyntheticDataset(List<Event> events, List<User> users, List<CheckIn> checkIns) {
+        this.events = events;
+        this.users = users;
+        this.checkIns = checkIns;
+    }
+
+    // Make the dataset. There can't be more check-ins than pairs of users and events.
+    public static SyntheticDataset generate(int eventCount, int userCount, int checkInCount, long seed) {
+        if ((long) eventCount * userCount < checkInCount) {
+            throw new IllegalArgumentException("Too many check-ins for " + eventCount + " events and "
+                    + userCount + " users");
+        }
+        Random random = new Random(seed);
+        List<Event> events = SyntheticEvents.generate(eventCount, seed);
+
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            String userId = "user" + i;
+            users.add(new User(userId, "Student " + i, userId + "@example.com",
+                    i % 3 == 0 ? null : "https://example.com/users/" + userId + ".webp"));
+        }
+
+        // Check-ins go to the first events more often, each user only once per event
+        List<CheckIn> checkIns = new ArrayList<>(checkInCount);
+        Set<Long> taken = new HashSet<>();
+        int[] attendees = new int[eventCount];
+        while (checkIns.size() < checkInCount) {
+            int eventIndex = (int) (eventCount * Math.pow(random.nextDouble(), POPULARITY_SKEW));
+            int userIndex = random.nextInt(userCount);
+            if (!taken.add((long) eventIndex * userCount + userIndex)) {
+                continue;
+            }
+            Event event = events.get(eventIndex);
+            // Users check in during the day before the event starts
+            long checkinMillis = event.getDateTimeMillis() - random.nextInt(24 * 60) * 60_000L;
+            checkIns.add(new CheckIn(eventIndex, userIndex, checkinMillis));
+            attendees[eventIndex]++;
+        }
+
+        // The counters agree with the check-ins, and nobody checked in past the limit
+        for (int i = 0; i < eventCount; i++) {
+            Event event = events.get(i);
+            if (event.getAttendanceLimit() < attendees[i]) {
+                Event bigger = new Event(event.getTitle(), event.getDescription(), event.getDateTime(),
+                        event.getLocation(), event.getImageUrl(), event.getEventId(), attendees[i]);
+                bigger.setDateTimeMillis(event.getDateTimeMillis());
+                events.set(i, bigger);
+                event = bigger;
+            }
+            event.setAttendeeCount(attendees[i]);
+        }
+        return new SyntheticDataset(events, users, checkIns);
+    }
+}
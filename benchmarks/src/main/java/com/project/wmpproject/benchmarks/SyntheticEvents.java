@@ -0,0 +1,59 @@
+package com.project.wmpproject.benchmarks;
+
+import com.project.wmpproject.EventTime;
+import com.project.wmpproject.model.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// This makes lists of made-up events that look like the real ones: titles and descriptions
+// built from a small vocabulary, a few dozen places, and dates spread over a year.
+// The same seed always gives the same events, so runs can be compared with each other.
+public final class SyntheticEvents {
+
+    private static final String[] TOPICS = {"Music", "Coding", "Design", "Football", "Chess", "Cooking",
+            "Photography", "Robotics", "Poetry", "Startup", "Film", "Yoga", "Debate", "Science", "Art"};
+    private static final String[] KINDS = {"Workshop", "Meetup", "Night", "Festival", "Bootcamp",
+            "Seminar", "Tournament", "Club", "Talk", "Hackathon"};
+    private static final String[] WORDS = {"bring", "your", "friends", "and", "learn", "something", "new",
+            "with", "students", "from", "every", "faculty", "snacks", "will", "be", "served", "free",
+            "entry", "for", "members", "register", "before", "the", "deadline", "limited", "places"};
+    private static final String[] PLACES = {"Main Hall", "Library", "Auditorium", "Room 101", "Room 204",
+            "Sports Center", "Cafeteria", "Lab A", "Lab B", "Garden", "Rooftop", "Gym"};
+
+    // The first event is on 1 January 2024
+    private static final long START_MILLIS = 1704067200000L;
+
+    private SyntheticEvents() {}
+
+    // Make the given number of events
+    public static List<Event> generate(int count, long seed) {
+        Random random = new Random(seed);
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String title = pick(random, TOPICS) + " " + pick(random, KINDS) + " " + (i % 50 + 1);
+            StringBuilder description = new StringBuilder();
+            int words = 10 + random.nextInt(30);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    description.append(' ');
+                }
+                description.append(pick(random, WORDS));
+            }
+            // Somewhere in the year, on a whole quarter of an hour
+            long millis = START_MILLIS + random.nextInt(365 * 24 * 4) * 15L * 60 * 1000;
+            Event event = new Event(title, description.toString(), EventTime.format(millis),
+                    pick(random, PLACES), "https://example.com/events/" + i + ".webp", "event" + i,
+                    20 + random.nextInt(500));
+            event.setDateTimeMillis(millis);
+            event.setAttendeeCount(random.nextInt(20));
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
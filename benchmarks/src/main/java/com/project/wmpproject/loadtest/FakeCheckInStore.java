@@ -0,0 +1,97 @@
+package com.project.wmpproject.loadtest;
+
+import com.project.wmpproject.CheckIn;
+import com.project.wmpproject.FirestoreMeter;
+
+import java.util.Map;
+
+// Runs the check-in of the app (CheckIn in :core) against a FakeFirestore, so the load test
+// plays the same reads and writes as the phones. Everything happens on the calling thread.
+public final class FakeCheckInStore implements CheckIn.Store {
+
+    private final FakeFirestore db;
+
+    public FakeCheckInStore(FakeFirestore db) {
+        this.db = db;
+    }
+
+    // Check the user in and wait for the result. Throws a ContentionException when the
+    // transaction kept failing because of other writes.
+    public static CheckIn.Result checkIn(FakeFirestore db, FirestoreMeter meter, String eventId, String userId,
+                                         int firstShard) {
+        CheckIn.Result[] result = {null};
+        RuntimeException[] error = {null};
+        new CheckIn(new FakeCheckInStore(db), meter).checkIn(eventId, userId, firstShard, new CheckIn.Callback() {
+            @Override
+            public void onResult(CheckIn.Result checkInResult) {
+                result[0] = checkInResult;
+            }
+
+            @Override
+            public void onError(Exception checkInError) {
+                error[0] = checkInError instanceof RuntimeException
+                        ? (RuntimeException) checkInError : new IllegalStateException(checkInError);
+            }
+        });
+        if (error[0] != null) {
+            throw error[0];
+        }
+        return result[0];
+    }
+
+    @Override
+    public void runTransaction(CheckIn.TransactionFunction function, CheckIn.Callback callback) {
+        CheckIn.Result result;
+        try {
+            result = db.runTransaction(transaction -> {
+                try {
+                    return function.apply(new Transaction(transaction));
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // The fake transaction throws nothing else
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            callback.onError(e);
+            return;
+        }
+        callback.onResult(result);
+    }
+
+    @Override
+    public void migrate(String eventId, CheckIn.MigrationCallback callback) {
+        // Every event of the dataset has its counter (see FakeDeployment), so this never runs
+        callback.onBusy();
+    }
+
+    // One run of a FakeFirestore transaction
+    private static class Transaction implements CheckIn.Transaction {
+        private final FakeFirestore.Transaction transaction;
+
+        Transaction(FakeFirestore.Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public Map<String, Object> get(String path) {
+            return transaction.get(path).data;
+        }
+
+        @Override
+        public void set(String path, Map<String, Object> data) {
+            transaction.set(path, data);
+        }
+
+        @Override
+        public void merge(String path, Map<String, Object> fields) {
+            transaction.update(path, fields);
+        }
+
+        @Override
+        public Object serverTimestamp() {
+            return System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.project.wmpproject.loadtest;
+
+import com.project.wmpproject.CheckIn;
+import com.project.wmpproject.EventSummaryFields;
+import com.project.wmpproject.benchmarks.SyntheticDataset;
+import com.project.wmpproject.model.Event;
+import com.project.wmpproject.model.EventMapper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// This lays a synthetic dataset out in a FakeFirestore the way the app stores it:
+// events and their summaries, users, the attendance under every event and the list of
+// attended events under every user. The field names are the ones the app writes.
+public final class FakeDeployment {
+
+    public static final String EVENTS = "events";
+    public static final String EVENT_SUMMARIES = "event_summaries";
+    public static final String USERS = "users";
+    public static final String ATTENDANCE = "attendance";
+    public static final String ATTENDED_EVENTS = "attendedEvents";
+    public static final String COUNTER_SHARDS = CheckIn.SHARDS_COLLECTION;
+
+    public static final String THUMBNAIL_URL = EventSummaryFields.THUMBNAIL_URL;
+    public static final String CHECKIN_TIME = "checkinTime";
+    public static final String USER_ID = "userId";
+    public static final String USERNAME = "username";
+    public static final String PROFILE_IMAGE_URL = "profileImageUrl";
+
+    private FakeDeployment() {}
+
+    // Put every document of the dataset in the database
+    public static void load(FakeFirestore db, SyntheticDataset dataset) {
+        for (Event event : dataset.events) {
+            putEvent(db, event);
+        }
+        for (SyntheticDataset.User user : dataset.users) {
+            Map<String, Object> userData = new HashMap<>();
+            userData.put(USERNAME, user.username);
+            userData.put("email", user.email);
+            userData.put("role", "user");
+            userData.put(PROFILE_IMAGE_URL, user.profileImageUrl);
+            db.seed(userPath(user.userId), userData);
+        }
+        for (SyntheticDataset.CheckIn checkIn : dataset.checkIns) {
+            Event event = dataset.events.get(checkIn.eventIndex);
+            SyntheticDataset.User user = dataset.users.get(checkIn.userIndex);
+            Map<String, Object> attendance = new HashMap<>();
+            attendance.put(USER_ID, user.userId);
+            attendance.put(CHECKIN_TIME, checkIn.checkinMillis);
+            attendance.put(USERNAME, user.username);
+            attendance.put(PROFILE_IMAGE_URL, user.profileImageUrl);
+            db.seed(attendancePath(event.getEventId(), user.userId), attendance);
+
+            Map<String, Object> attended = summaryOf(EventMapper.toMap(event));
+            attended.put(CHECKIN_TIME, checkIn.checkinMillis);
+            db.seed(attendedPath(user.userId, event.getEventId()), attended);
+        }
+    }
+
+    // Put one event and its summary in the database
+    public static void putEvent(FakeFirestore db, Event event) {
+        Map<String, Object> eventData = EventMapper.toMap(event);
+        eventData.put(THUMBNAIL_URL, thumbnailUrlOf(event));
+        db.seed(eventPath(event.getEventId()), eventData);
+        db.seed(summaryPath(event.getEventId()), summaryOf(eventData));
+    }
+
+    // The summary the lists read, from the fields of the full event, made the same way as in the app
+    public static Map<String, Object> summaryOf(Map<String, Object> eventData) {
+        Event event = EventMapper.fromMap((String) eventData.get(EventMapper.EVENT_ID), eventData);
+        return EventSummaryFields.fieldsOf(event, (String) eventData.get(THUMBNAIL_URL));
+    }
+
+    public static String thumbnailUrlOf(Event event) {
+        return event.getImageUrl().replace(".webp", "_thumb.webp");
+    }
+
+    public static String eventPath(String eventId) {
+        return EVENTS + "/" + eventId;
+    }
+
+    public static String summaryPath(String eventId) {
+        return EVENT_SUMMARIES + "/" + eventId;
+    }
+
+    public static String userPath(String userId) {
+        return USERS + "/" + userId;
+    }
+
+    public static String attendanceCollection(String eventId) {
+        return eventPath(eventId) + "/" + ATTENDANCE;
+    }
+
+    public static String attendancePath(String eventId, String userId) {
+        return attendanceCollection(eventId) + "/" + userId;
+    }
+
+    public static String attendedPath(String userId, String eventId) {
+        return userPath(userId) + "/" + ATTENDED_EVENTS + "/" + eventId;
+    }
+}
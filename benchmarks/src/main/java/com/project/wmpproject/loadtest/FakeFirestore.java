@@ -0,0 +1,371 @@
+package com.project.wmpproject.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// This is an in-memory stand-in for Firestore, just enough to play the app's reads and writes
+// against it under load. Documents live under paths like "events/e1/attendance/u1".
+// It counts reads and writes the way Firestore bills them: a document read is one read, and a
+// query that finds nothing still costs one. Every call to the "server" waits for a round trip.
+// Transactions work like the ones of the mobile SDK: the reads remember which version of each
+// document they saw, and the commit fails if one of them changed in the meantime. The whole
+// transaction then runs again, at most MAX_ATTEMPTS times, and gives up with a ContentionException.
+public class FakeFirestore {
+
+    // The SDK tries a transaction five times before it fails with ABORTED
+    public static final int MAX_ATTEMPTS = 5;
+
+    // A transaction ran out of attempts because other writes kept changing what it read
+    public static class ContentionException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ContentionException(String message) {
+            super(message);
+        }
+    }
+
+    // A document as it was read, with the version it had then
+    public static final class Snapshot {
+        public final String id;
+        public final String path;
+        public final Map<String, Object> data;
+        final long version;
+
+        Snapshot(String path, Map<String, Object> data, long version) {
+            this.id = path.substring(path.lastIndexOf('/') + 1);
+            this.path = path;
+            this.data = data;
+            this.version = version;
+        }
+
+        public boolean exists() {
+            return data != null;
+        }
+
+        // Read a number from the document, or 0 if it is missing
+        public long getLong(String field) {
+            Object value = data != null ? data.get(field) : null;
+            return value instanceof Number ? ((Number) value).longValue() : 0;
+        }
+    }
+
+    // A query on one collection ordered by a number field and then the document ID, like the feeds
+    public static final class Query {
+        final String collection;
+        final String orderBy;
+        final Snapshot startAfter;
+        final int limit;
+
+        private Query(String collection, String orderBy, Snapshot startAfter, int limit) {
+            this.collection = collection;
+            this.orderBy = orderBy;
+            this.startAfter = startAfter;
+            this.limit = limit;
+        }
+
+        // Every document of the collection, in no particular order
+        public static Query all(String collection) {
+            return new Query(collection, null, null, Integer.MAX_VALUE);
+        }
+
+        public static Query ordered(String collection, String orderBy) {
+            return new Query(collection, orderBy, null, Integer.MAX_VALUE);
+        }
+
+        public Query startAfter(Snapshot last) {
+            return new Query(collection, orderBy, last, limit);
+        }
+
+        public Query limit(int count) {
+            return new Query(collection, orderBy, startAfter, count);
+        }
+    }
+
+    // The writes of a batch or a transaction, applied together
+    public static class Writes {
+        // The documents to write, in order. A null value deletes the document.
+        final List<String> paths = new ArrayList<>();
+        final List<Map<String, Object>> values = new ArrayList<>();
+        // Whether the fields are merged into the document instead of replacing it
+        final List<Boolean> merges = new ArrayList<>();
+
+        public void set(String path, Map<String, Object> data) {
+            add(path, new HashMap<>(data), false);
+        }
+
+        public void update(String path, Map<String, Object> fields) {
+            add(path, new HashMap<>(fields), true);
+        }
+
+        public void delete(String path) {
+            add(path, null, false);
+        }
+
+        public int size() {
+            return paths.size();
+        }
+
+        private void add(String path, Map<String, Object> value, boolean merge) {
+            paths.add(path);
+            values.add(value);
+            merges.add(merge);
+        }
+    }
+
+    // A transaction: its reads go to the server and remember what they saw
+    public final class Transaction extends Writes {
+        private final Map<String, Long> readVersions = new HashMap<>();
+
+        public Snapshot get(String path) {
+            if (size() > 0) {
+                throw new IllegalStateException("All reads have to happen before any write in a transaction");
+            }
+            Snapshot snapshot = FakeFirestore.this.get(path);
+            readVersions.put(path, snapshot.version);
+            return snapshot;
+        }
+    }
+
+    public interface TransactionFunction<T> {
+        T apply(Transaction transaction);
+    }
+
+    // A stored document: its fields and the commit that last wrote it
+    private static final class Document {
+        final Map<String, Object> data;
+        final long version;
+
+        Document(Map<String, Object> data, long version) {
+            this.data = data;
+            this.version = version;
+        }
+    }
+
+    // Every document, by path
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    // The paths of the documents in each collection
+    private final Map<String, Map<String, Boolean>> collections = new ConcurrentHashMap<>();
+    // Sorted copies of a collection for ordered queries, dropped when the collection is written
+    private final Map<String, List<Snapshot>> sorted = new ConcurrentHashMap<>();
+    // Commits are checked and applied one at a time
+    private final Object commitLock = new Object();
+    private long lastVersion;
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong transactionRetries = new AtomicLong();
+    private final long roundTripMicros;
+    private final Random backoff = new Random(1);
+
+    public FakeFirestore(long roundTripMicros) {
+        this.roundTripMicros = roundTripMicros;
+    }
+
+    // Put a document in place without counting it or waiting, used to load the dataset
+    public void seed(String path, Map<String, Object> data) {
+        synchronized (commitLock) {
+            store(path, data, ++lastVersion);
+        }
+    }
+
+    // Read one document, a missing document costs a read too
+    public Snapshot get(String path) {
+        roundTrip();
+        reads.incrementAndGet();
+        Document document = documents.get(path);
+        return document != null
+                ? new Snapshot(path, Collections.unmodifiableMap(document.data), document.version)
+                : new Snapshot(path, null, 0);
+    }
+
+    // Run the query and return the documents it found
+    public List<Snapshot> query(Query query) {
+        roundTrip();
+        List<Snapshot> all = query.orderBy != null ? sortedCollection(query.collection, query.orderBy)
+                : snapshotsOf(query.collection);
+        int start = 0;
+        if (query.startAfter != null) {
+            // The first document that comes after the cursor
+            Comparator<Snapshot> order = orderOf(query.orderBy);
+            int low = 0;
+            int high = all.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (order.compare(all.get(middle), query.startAfter) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            start = low;
+        }
+        int end = (int) Math.min(all.size(), (long) start + query.limit);
+        List<Snapshot> results = new ArrayList<>(all.subList(start, end));
+        reads.addAndGet(Math.max(1, results.size()));
+        return results;
+    }
+
+    // Write everything in the batch at once, a batch never fails because of other writes
+    public void commit(Writes batch) {
+        roundTrip();
+        synchronized (commitLock) {
+            apply(batch);
+        }
+    }
+
+    // Run the function in a transaction until it commits without a conflict
+    public <T> T runTransaction(TransactionFunction<T> function) {
+        for (int attempt = 1; ; attempt++) {
+            Transaction transaction = new Transaction();
+            T result = function.apply(transaction);
+            roundTrip();
+            synchronized (commitLock) {
+                if (unchanged(transaction.readVersions)) {
+                    apply(transaction);
+                    return result;
+                }
+            }
+            if (attempt >= MAX_ATTEMPTS) {
+                throw new ContentionException("Transaction failed after " + MAX_ATTEMPTS + " attempts");
+            }
+            transactionRetries.incrementAndGet();
+            // Wait a little longer after every failed attempt, like the SDK does
+            sleepMicros(roundTripMicros * attempt + randomMicros(roundTripMicros + 1));
+        }
+    }
+
+    public long getReads() {
+        return reads.get();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    // How many times a transaction had to run again because of a conflict
+    public long getTransactionRetries() {
+        return transactionRetries.get();
+    }
+
+    // How many documents a collection has, without counting reads
+    public int countOf(String collection) {
+        Map<String, Boolean> paths = collections.get(collection);
+        return paths != null ? paths.size() : 0;
+    }
+
+    // Whether the documents read by a transaction still have the versions it saw
+    private boolean unchanged(Map<String, Long> readVersions) {
+        for (Map.Entry<String, Long> read : readVersions.entrySet()) {
+            Document document = documents.get(read.getKey());
+            long version = document != null ? document.version : 0;
+            if (version != read.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Apply the writes, called while holding the commit lock
+    private void apply(Writes batch) {
+        long version = ++lastVersion;
+        for (int i = 0; i < batch.size(); i++) {
+            String path = batch.paths.get(i);
+            Map<String, Object> value = batch.values.get(i);
+            if (value != null && batch.merges.get(i)) {
+                Document old = documents.get(path);
+                Map<String, Object> merged = old != null ? new HashMap<>(old.data) : new HashMap<>();
+                merged.putAll(value);
+                value = merged;
+            }
+            store(path, value, version);
+        }
+        writes.addAndGet(batch.size());
+    }
+
+    private void store(String path, Map<String, Object> data, long version) {
+        String collection = path.substring(0, path.lastIndexOf('/'));
+        Map<String, Boolean> paths = collections.get(collection);
+        if (paths == null) {
+            paths = new ConcurrentHashMap<>();
+            collections.put(collection, paths);
+        }
+        if (data == null) {
+            documents.remove(path);
+            paths.remove(path);
+        } else {
+            documents.put(path, new Document(data, version));
+            paths.put(path, Boolean.TRUE);
+        }
+        // The sorted copies of this collection are out of date now
+        sorted.keySet().removeIf(key -> key.startsWith(collection + "|"));
+    }
+
+    private List<Snapshot> snapshotsOf(String collection) {
+        Map<String, Boolean> paths = collections.get(collection);
+        List<Snapshot> snapshots = new ArrayList<>();
+        if (paths == null) {
+            return snapshots;
+        }
+        for (String path : paths.keySet()) {
+            Document document = documents.get(path);
+            if (document != null) {
+                snapshots.add(new Snapshot(path, Collections.unmodifiableMap(document.data), document.version));
+            }
+        }
+        return snapshots;
+    }
+
+    // The collection sorted for the query, kept until the collection is written
+    private List<Snapshot> sortedCollection(String collection, String orderBy) {
+        String key = collection + "|" + orderBy;
+        List<Snapshot> cached = sorted.get(key);
+        if (cached == null) {
+            synchronized (commitLock) {
+                // Another query may have sorted it while we waited
+                cached = sorted.get(key);
+                if (cached == null) {
+                    cached = snapshotsOf(collection);
+                    cached.sort(orderOf(orderBy));
+                    sorted.put(key, cached);
+                }
+            }
+        }
+        return cached;
+    }
+
+    private static Comparator<Snapshot> orderOf(String orderBy) {
+        return (a, b) -> {
+            int byField = Long.compare(a.getLong(orderBy), b.getLong(orderBy));
+            return byField != 0 ? byField : a.id.compareTo(b.id);
+        };
+    }
+
+    private void roundTrip() {
+        sleepMicros(roundTripMicros);
+    }
+
+    private long randomMicros(long bound) {
+        synchronized (backoff) {
+            return (long) (backoff.nextDouble() * bound);
+        }
+    }
+
+    private static void sleepMicros(long micros) {
+        if (micros <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MICROSECONDS.sleep(micros);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
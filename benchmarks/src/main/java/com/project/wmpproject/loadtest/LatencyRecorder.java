@@ -0,0 +1,34 @@
+package com.project.wmpproject.loadtest;
+
+import java.util.Arrays;
+
+// This collects how long each operation of a scenario took, from many threads at once,
+// and works out the percentiles at the end.
+public class LatencyRecorder {
+
+    private long[] nanos = new long[1024];
+    private int count;
+
+    public synchronized void record(long elapsedNanos) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = elapsedNanos;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    // The time that the given share of the operations stayed under, in milliseconds.
+    // Uses the nearest rank, so the 99th percentile of 100 operations is the 99th fastest.
+    public synchronized double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sortedNanos = Arrays.copyOf(nanos, count);
+        Arrays.sort(sortedNanos);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return sortedNanos[Math.max(0, Math.min(count, rank) - 1)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,76 @@
+package com.project.wmpproject.loadtest;
+
+import com.project.wmpproject.benchmarks.SyntheticDataset;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Runs the load test: makes a synthetic dataset, puts it in a FakeFirestore and plays the
+// scenarios against it one after the other. Run it with
+//   ./gradlew :benchmarks:loadTest
+// and change the numbers with -PloadTest.args, for example
+//   ./gradlew :benchmarks:loadTest -PloadTest.args="--checkins=1000 --shards=1,10,50 --rttMicros=20000"
+// The defaults are the event day we have to be ready for: 10k events, 200k check-ins in the
+// history and 500 people checking in to one event at the same moment.
+public final class LoadTest {
+
+    private LoadTest() {}
+
+    public static void main(String[] args) {
+        Map<String, String> options = parse(args);
+        int events = intOption(options, "events", 10_000);
+        int users = intOption(options, "users", 20_000);
+        int attendance = intOption(options, "attendance", 200_000);
+        int checkIns = intOption(options, "checkins", 500);
+        // The storm runs once for every number of counter shards, to compare them
+        String shards = options.containsKey("shards") ? options.get("shards") : "1,10";
+        int feedUsers = intOption(options, "feedUsers", 200);
+        // Every search user builds a whole index, like their phone does, and they all share this JVM
+        int searchUsers = intOption(options, "searchUsers", 4);
+        int edits = intOption(options, "edits", 200);
+        int editCheckIns = intOption(options, "editCheckIns", 20);
+        // A round trip to Firestore from a phone on campus wifi
+        long roundTripMicros = intOption(options, "rttMicros", 5_000);
+        long seed = intOption(options, "seed", 42);
+
+        long start = System.nanoTime();
+        SyntheticDataset dataset = SyntheticDataset.generate(events, users, attendance, seed);
+        FakeFirestore db = new FakeFirestore(roundTripMicros);
+        FakeDeployment.load(db, dataset);
+        System.out.printf("Loaded %d events, %d users and %d check-ins in %d ms, round trip %d us%n",
+                events, users, attendance, (System.nanoTime() - start) / 1_000_000, roundTripMicros);
+
+        List<ScenarioResult> results = new ArrayList<>();
+        results.add(Scenarios.feedColdLoad(db, feedUsers));
+        results.addAll(Scenarios.searchTyping(db, searchUsers));
+        for (String shardCount : shards.split(",")) {
+            results.add(Scenarios.checkInStorm(db, dataset, checkIns, Integer.parseInt(shardCount.trim())));
+        }
+        results.add(Scenarios.adminBulkEdit(db, dataset, edits, editCheckIns));
+
+        System.out.println(ScenarioResult.header());
+        for (ScenarioResult result : results) {
+            System.out.println(result);
+        }
+    }
+
+    // Read options like --checkins=500
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Options look like --name=value, not " + arg);
+            }
+            int equals = arg.indexOf('=');
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value != null ? Integer.parseInt(value.replace("_", "")) : defaultValue;
+    }
+}
@@ -0,0 +1,45 @@
+package com.project.wmpproject.loadtest;
+
+import java.util.Locale;
+
+// What one scenario measured: the latency of its operations, what it cost in Firestore
+// and how many operations failed because of contention
+public class ScenarioResult {
+
+    public final String name;
+    public final int operations;
+    public final double p50Millis;
+    public final double p95Millis;
+    public final double p99Millis;
+    public final long reads;
+    public final long writes;
+    public final long transactionRetries;
+    public final int contentionFailures;
+    // Anything else worth knowing, like whether the counters still add up
+    public final String note;
+
+    public ScenarioResult(String name, LatencyRecorder latencies, long reads, long writes,
+                          long transactionRetries, int contentionFailures, String note) {
+        this.name = name;
+        this.operations = latencies.getCount();
+        this.p50Millis = latencies.percentileMillis(50);
+        this.p95Millis = latencies.percentileMillis(95);
+        this.p99Millis = latencies.percentileMillis(99);
+        this.reads = reads;
+        this.writes = writes;
+        this.transactionRetries = transactionRetries;
+        this.contentionFailures = contentionFailures;
+        this.note = note;
+    }
+
+    static String header() {
+        return String.format(Locale.US, "%-18s %7s %9s %9s %9s %9s %8s %8s %8s  %s", "scenario", "ops",
+                "p50 ms", "p95 ms", "p99 ms", "reads", "writes", "retries", "failed", "note");
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%-18s %7d %9.2f %9.2f %9.2f %9d %8d %8d %8d  %s", name, operations,
+                p50Millis, p95Millis, p99Millis, reads, writes, transactionRetries, contentionFailures, note);
+    }
+}
@@ -0,0 +1,254 @@
+package com.project.wmpproject.loadtest;
+
+import com.project.wmpproject.CheckIn;
+import com.project.wmpproject.EventSearchIndex;
+import com.project.wmpproject.EventTime;
+import com.project.wmpproject.FirestoreMeter;
+import com.project.wmpproject.benchmarks.SyntheticDataset;
+import com.project.wmpproject.model.Event;
+import com.project.wmpproject.model.EventMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The scripted scenarios of the load test. Each one plays what many users of the app do at the
+// same time against the database, and reports the latency of every operation, the reads and
+// writes it cost and how many operations failed because of contention.
+public final class Scenarios {
+
+    // The page size of the feeds, the same as EventPager
+    static final int PAGE_SIZE = 20;
+    // What a user types in the search screen, one letter at a time
+    static final String TYPED_QUERY = "workshop";
+
+    private Scenarios() {}
+
+    // Many users open the feed at once: the first page of summaries and two more pages as they scroll
+    public static ScenarioResult feedColdLoad(FakeFirestore db, int users) {
+        LatencyRecorder latencies = new LatencyRecorder();
+        Usage usage = new Usage(db);
+        runConcurrently(users, user -> {
+            FakeFirestore.Snapshot last = null;
+            for (int page = 0; page < 3; page++) {
+                long start = System.nanoTime();
+                FakeFirestore.Query query = FakeFirestore.Query
+                        .ordered(FakeDeployment.EVENT_SUMMARIES, EventMapper.DATE_TIME_MILLIS).limit(PAGE_SIZE);
+                List<FakeFirestore.Snapshot> documents = db.query(last != null ? query.startAfter(last) : query);
+                toEvents(documents);
+                latencies.record(System.nanoTime() - start);
+                if (documents.isEmpty()) {
+                    break;
+                }
+                last = documents.get(documents.size() - 1);
+            }
+        });
+        return usage.result("feed cold load", latencies, 0, "3 pages of " + PAGE_SIZE + " per user");
+    }
+
+    // Users open the search screen, which reads every event into the index, and type a query.
+    // Gives two results: opening the screen and every keystroke after that.
+    public static List<ScenarioResult> searchTyping(FakeFirestore db, int users) {
+        LatencyRecorder opening = new LatencyRecorder();
+        LatencyRecorder typing = new LatencyRecorder();
+        Usage usage = new Usage(db);
+        runConcurrently(users, user -> {
+            long start = System.nanoTime();
+            EventSearchIndex index = new EventSearchIndex();
+            index.replaceAll(toEvents(db.query(FakeFirestore.Query.all(FakeDeployment.EVENTS))));
+            opening.record(System.nanoTime() - start);
+
+            for (int length = 1; length <= TYPED_QUERY.length(); length++) {
+                long keystroke = System.nanoTime();
+                index.search(TYPED_QUERY.substring(0, length));
+                typing.record(System.nanoTime() - keystroke);
+            }
+        });
+        List<ScenarioResult> results = new ArrayList<>();
+        results.add(usage.result("search open", opening, 0, "reads every event"));
+        results.add(new ScenarioResult("search typing", typing, 0, 0, 0, 0,
+                "\"" + TYPED_QUERY + "\" one letter at a time, no reads"));
+        return results;
+    }
+
+    // Many users check in to one new event at the same moment. The limit is lower than the
+    // number of users, so the last ones are turned away. Afterwards the counter has to match
+    // the attendance documents exactly.
+    public static ScenarioResult checkInStorm(FakeFirestore db, SyntheticDataset dataset, int checkIns, int shards) {
+        int limit = checkIns * 4 / 5;
+        Event event = new Event("Check-in Storm", "Everyone arrives at once", EventTime.format(0),
+                "Main Hall", "https://example.com/events/storm.webp", "storm" + shards, limit);
+        FakeDeployment.putEvent(db, event);
+        Map<String, Object> shardField = new HashMap<>();
+        shardField.put(EventMapper.COUNTER_SHARDS, shards);
+        FakeFirestore.Writes setup = new FakeFirestore.Writes();
+        setup.update(FakeDeployment.eventPath(event.getEventId()), shardField);
+        db.commit(setup);
+
+        LatencyRecorder latencies = new LatencyRecorder();
+        AtomicInteger checkedIn = new AtomicInteger();
+        AtomicInteger turnedAway = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        FirestoreMeter meter = new FirestoreMeter();
+        Usage usage = new Usage(db);
+        runConcurrently(checkIns, user -> {
+            String userId = dataset.users.get(user % dataset.users.size()).userId;
+            long start = System.nanoTime();
+            try {
+                CheckIn.Result result = FakeCheckInStore.checkIn(db, meter, event.getEventId(), userId,
+                        ThreadLocalRandom.current().nextInt(CheckIn.MAX_SHARDS));
+                if (result == CheckIn.Result.CHECKED_IN) {
+                    checkedIn.incrementAndGet();
+                } else {
+                    turnedAway.incrementAndGet();
+                }
+            } catch (FakeFirestore.ContentionException e) {
+                failures.incrementAndGet();
+            }
+            latencies.record(System.nanoTime() - start);
+        });
+        // Checking the counter reads too, that is not part of the storm
+        usage.stop();
+        return usage.result("check-in storm", latencies, failures.get(),
+                shards + " shard(s), " + checkedIn.get() + " in, " + turnedAway.get() + " full, "
+                        + countsAgree(db, event.getEventId(), limit));
+    }
+
+    // The admin edits many events one after the other, like on the edit screen: the event and
+    // its summary in one batch. Users keep checking in to the same events meanwhile, and every
+    // edit changes a document their transactions read, so some of them have to run again.
+    public static ScenarioResult adminBulkEdit(FakeFirestore db, SyntheticDataset dataset, int edits,
+                                               int checkInThreads) {
+        int count = Math.min(edits, dataset.events.size());
+        LatencyRecorder latencies = new LatencyRecorder();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger editsLeft = new AtomicInteger(count);
+        FirestoreMeter meter = new FirestoreMeter();
+        Usage usage = new Usage(db);
+        runConcurrently(checkInThreads + 1, thread -> {
+            if (thread == 0) {
+                // The admin
+                for (int i = 0; i < count; i++) {
+                    Event event = dataset.events.get(i);
+                    long start = System.nanoTime();
+                    Map<String, Object> updates = EventMapper.toMap(event);
+                    // The counters belong to the check-ins, the edit screen leaves them alone
+                    updates.remove(EventMapper.ATTENDEE_COUNT);
+                    updates.remove(EventMapper.COUNTER_SHARDS);
+                    updates.put(EventMapper.TITLE, event.getTitle() + " (updated)");
+                    updates.put(FakeDeployment.THUMBNAIL_URL, FakeDeployment.thumbnailUrlOf(event));
+                    FakeFirestore.Writes batch = new FakeFirestore.Writes();
+                    batch.update(FakeDeployment.eventPath(event.getEventId()), updates);
+                    batch.set(FakeDeployment.summaryPath(event.getEventId()), FakeDeployment.summaryOf(updates));
+                    db.commit(batch);
+                    latencies.record(System.nanoTime() - start);
+                    editsLeft.decrementAndGet();
+                }
+                return;
+            }
+            // A user checking in to the events being edited, until the admin is done
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (editsLeft.get() > 0) {
+                String eventId = dataset.events.get(random.nextInt(count)).getEventId();
+                String userId = dataset.users.get(random.nextInt(dataset.users.size())).userId;
+                try {
+                    FakeCheckInStore.checkIn(db, meter, eventId, userId, random.nextInt(CheckIn.MAX_SHARDS));
+                } catch (FakeFirestore.ContentionException e) {
+                    failures.incrementAndGet();
+                }
+            }
+        });
+        return usage.result("admin bulk edit", latencies, failures.get(),
+                checkInThreads + " users checking in meanwhile, failures are theirs");
+    }
+
+    // Whether the counter and its shards add up to the attendance documents, and stay under the limit
+    private static String countsAgree(FakeFirestore db, String eventId, int limit) {
+        FakeFirestore.Snapshot eventDoc = db.get(FakeDeployment.eventPath(eventId));
+        long counted = eventDoc.getLong(EventMapper.ATTENDEE_COUNT);
+        for (FakeFirestore.Snapshot shard : db.query(FakeFirestore.Query.all(
+                FakeDeployment.eventPath(eventId) + "/" + FakeDeployment.COUNTER_SHARDS))) {
+            counted += shard.getLong("count");
+        }
+        int documents = db.countOf(FakeDeployment.attendanceCollection(eventId));
+        if (counted == documents && documents <= limit) {
+            return "counter matches";
+        }
+        return "COUNTER MISMATCH: counter " + counted + ", documents " + documents + ", limit " + limit;
+    }
+
+    private static List<Event> toEvents(List<FakeFirestore.Snapshot> documents) {
+        List<Event> events = new ArrayList<>(documents.size());
+        for (FakeFirestore.Snapshot document : documents) {
+            events.add(EventMapper.fromMap(document.id, document.data));
+        }
+        return events;
+    }
+
+    // What one simulated user or thread does
+    private interface UserTask {
+        void run(int user);
+    }
+
+    // Start one thread per user and let them all go at the same moment
+    private static void runConcurrently(int users, UserTask task) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            int user = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run(user);
+            }, "load-user-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // The reads, writes and retries of the database since the scenario started
+    private static final class Usage {
+        private final FakeFirestore db;
+        private final long reads;
+        private final long writes;
+        private final long retries;
+        // Set by stop(), so what happens afterwards is not counted
+        private long[] end;
+
+        Usage(FakeFirestore db) {
+            this.db = db;
+            this.reads = db.getReads();
+            this.writes = db.getWrites();
+            this.retries = db.getTransactionRetries();
+        }
+
+        void stop() {
+            end = new long[]{db.getReads(), db.getWrites(), db.getTransactionRetries()};
+        }
+
+        ScenarioResult result(String name, LatencyRecorder latencies, int failures, String note) {
+            if (end == null) {
+                stop();
+            }
+            return new ScenarioResult(name, latencies, end[0] - reads, end[1] - writes, end[2] - retries,
+                    failures, note);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.project.wmpproject.loadtest;
+
+import com.project.wmpproject.CheckIn;
+import com.project.wmpproject.EventTime;
+import com.project.wmpproject.FirestoreMeter;
+import com.project.wmpproject.model.Event;
+import com.project.wmpproject.model.EventMapper;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+// The check-in and the feed have to cost the same whether an event has ten attendees or ten
+// thousand, and stay in the budgets of FirestoreMeter. The FakeFirestore counts the reads and
+// writes the way Firestore bills them, and the check-in of the app (CheckIn) has to count the
+// same in its meter.
+public class CheckInBudgetTest {
+
+    @Test
+    public void checkInCostsTheSameForSmallAndBigEvents() {
+        for (int shards : new int[]{1, 10}) {
+            FirestoreMeter small = checkInCost(10, shards);
+            FirestoreMeter big = checkInCost(10_000, shards);
+
+            FirestoreMeter.Usage smallUsage = small.getUsage(FirestoreMeter.CHECK_IN);
+            FirestoreMeter.Usage bigUsage = big.getUsage(FirestoreMeter.CHECK_IN);
+            assertEquals(1, smallUsage.runs);
+            assertEquals(smallUsage.reads, bigUsage.reads);
+            assertEquals(smallUsage.writes, bigUsage.writes);
+            assertTrue(smallUsage.toString(), small.isWithinBudget(FirestoreMeter.CHECK_IN));
+        }
+    }
+
+    @Test
+    public void tryingAnotherShardIsCountedForTheCheckIn() {
+        FakeFirestore db = newEvent(0, 2, 2);
+        // The first shard already took its one place
+        db.seed(CheckIn.shardPath("e1", 0), Collections.<String, Object>singletonMap(CheckIn.SHARD_COUNT, 1));
+        FirestoreMeter meter = new FirestoreMeter();
+        long readsBefore = db.getReads();
+
+        assertEquals(CheckIn.Result.CHECKED_IN, FakeCheckInStore.checkIn(db, meter, "e1", "new", 0));
+
+        FirestoreMeter.Usage usage = meter.getUsage(FirestoreMeter.CHECK_IN);
+        // Two transactions of four reads each, and the writes of the one that went through
+        assertEquals(8, usage.reads);
+        assertEquals(db.getReads() - readsBefore, usage.reads);
+        assertEquals(3, usage.writes);
+        assertFalse(meter.isWithinBudget(FirestoreMeter.CHECK_IN));
+    }
+
+    @Test
+    public void firstFeedPageStaysInBudgetWithManyEvents() {
+        FakeFirestore db = new FakeFirestore(0);
+        for (int i = 0; i < 5_000; i++) {
+            FakeDeployment.putEvent(db, new Event("Event " + i, "", EventTime.format(i * 60_000L), "Hall",
+                    "https://example.com/e.webp", "e" + i, 100));
+        }
+
+        List<FakeFirestore.Snapshot> page = db.query(FakeFirestore.Query
+                .ordered(FakeDeployment.EVENT_SUMMARIES, EventMapper.DATE_TIME_MILLIS)
+                .limit(FirestoreMeter.EVENT_PAGE_SIZE));
+
+        assertEquals(FirestoreMeter.EVENT_PAGE_SIZE, page.size());
+        assertTrue(db.getReads() <= FirestoreMeter.budgetOf(FirestoreMeter.OPEN_FEED).maxReads);
+    }
+
+    // The meter of one check-in to an event that already has the given attendees.
+    // It has to count what the FakeFirestore billed.
+    private static FirestoreMeter checkInCost(int attendees, int shards) {
+        FakeFirestore db = newEvent(attendees, shards, attendees + 100);
+        long readsBefore = db.getReads();
+        long writesBefore = db.getWrites();
+        FirestoreMeter meter = new FirestoreMeter();
+
+        assertEquals(CheckIn.Result.CHECKED_IN, FakeCheckInStore.checkIn(db, meter, "e1", "new", 0));
+
+        FirestoreMeter.Usage usage = meter.getUsage(FirestoreMeter.CHECK_IN);
+        assertEquals(db.getReads() - readsBefore, usage.reads);
+        assertEquals(db.getWrites() - writesBefore, usage.writes);
+        return meter;
+    }
+
+    // A database with the event e1, its attendees and the user "new" who is about to check in
+    private static FakeFirestore newEvent(int attendees, int shards, int limit) {
+        FakeFirestore db = new FakeFirestore(0);
+        Event event = new Event("Concert", "", EventTime.format(0), "Hall", "https://example.com/e.webp",
+                "e1", limit);
+        FakeDeployment.putEvent(db, event);
+        Map<String, Object> counters = new HashMap<>();
+        counters.put(EventMapper.ATTENDEE_COUNT, attendees);
+        counters.put(EventMapper.COUNTER_SHARDS, shards);
+        FakeFirestore.Writes setup = new FakeFirestore.Writes();
+        setup.update(FakeDeployment.eventPath("e1"), counters);
+        db.commit(setup);
+        for (int i = 0; i < attendees; i++) {
+            db.seed(FakeDeployment.attendancePath("e1", "u" + i),
+                    Collections.<String, Object>singletonMap(FakeDeployment.USER_ID, "u" + i));
+        }
+        db.seed(FakeDeployment.userPath("new"), Collections.<String, Object>singletonMap(FakeDeployment.USERNAME, "New"));
+        return db;
+    }
+}
@@ -0,0 +1,67 @@
+package com.project.wmpproject.loadtest;
+
+import com.project.wmpproject.benchmarks.SyntheticDataset;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FakeFirestoreTest {
+
+    @Test
+    public void pagesFollowTheOrderAndCountOneReadPerDocument() {
+        FakeFirestore db = new FakeFirestore(0);
+        for (int i = 0; i < 5; i++) {
+            db.seed("event_summaries/e" + i, Collections.<String, Object>singletonMap("dateTimeMillis", 10L - i));
+        }
+
+        FakeFirestore.Query query = FakeFirestore.Query.ordered("event_summaries", "dateTimeMillis").limit(2);
+        List<FakeFirestore.Snapshot> first = db.query(query);
+        List<FakeFirestore.Snapshot> second = db.query(query.startAfter(first.get(1)));
+        assertEquals("e4", first.get(0).id);
+        assertEquals("e2", second.get(0).id);
+        assertEquals(4, db.getReads());
+
+        // A query that finds nothing still costs one read
+        db.query(FakeFirestore.Query.all("missing"));
+        assertEquals(5, db.getReads());
+    }
+
+    @Test
+    public void transactionRunsAgainWhenWhatItReadChanged() {
+        FakeFirestore db = new FakeFirestore(0);
+        db.seed("counters/c", Collections.<String, Object>singletonMap("count", 0L));
+        int[] attempts = {0};
+
+        long result = db.runTransaction(transaction -> {
+            long count = transaction.get("counters/c").getLong("count");
+            if (attempts[0]++ == 0) {
+                // Someone else writes the counter before this transaction commits
+                FakeFirestore.Writes other = new FakeFirestore.Writes();
+                other.set("counters/c", Collections.<String, Object>singletonMap("count", 5L));
+                db.commit(other);
+            }
+            transaction.update("counters/c", Collections.<String, Object>singletonMap("count", count + 1));
+            return count + 1;
+        });
+
+        assertEquals(2, attempts[0]);
+        assertEquals(6, result);
+        assertEquals(1, db.getTransactionRetries());
+    }
+
+    @Test
+    public void checkInStormKeepsTheCounterRight() {
+        SyntheticDataset dataset = SyntheticDataset.generate(10, 100, 50, 1);
+        FakeFirestore db = new FakeFirestore(100);
+        FakeDeployment.load(db, dataset);
+
+        ScenarioResult result = Scenarios.checkInStorm(db, dataset, 50, 4);
+
+        assertEquals(50, result.operations);
+        assertTrue(result.note, result.note.endsWith("counter matches"));
+    }
+}
@@ -0,0 +1,26 @@
+package com.project.wmpproject.loadtest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void percentilesUseTheNearestRank() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        // 1 ms to 100 ms, in a shuffled order
+        for (int i = 0; i < 100; i++) {
+            recorder.record((i * 37 % 100 + 1) * 1_000_000L);
+        }
+        assertEquals(100, recorder.getCount());
+        assertEquals(50.0, recorder.percentileMillis(50), 0.001);
+        assertEquals(95.0, recorder.percentileMillis(95), 0.001);
+        assertEquals(99.0, recorder.percentileMillis(99), 0.001);
+    }
+
+    @Test
+    public void emptyRecorderReportsZero() {
+        assertEquals(0.0, new LatencyRecorder().percentileMillis(99), 0.0);
+    }
+}
@@ -0,0 +1,14 @@
+// Plain Java code shared with the app: the event model, search, dates and list diffing.
+// It doesn't need Android, so its tests and the benchmarks run on any JVM.
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
@@ -0,0 +1,295 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+import com.project.wmpproject.model.EventMapper;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// This class checks users in to events with one transaction.
+// The attendance document of a user is stored under their user ID, and the event document
+// keeps a counter of attendees, so a check-in reads three documents (the event, the attendance
+// and the user, whose name is copied in) however many people came. The event is also added to
+// the user's own list in users/{uid}/attendedEvents, in the same transaction.
+// Busy events can spread the counter over several shard documents in events/{id}/counterShards.
+// Every shard may take its share of the places, so the limit still holds, and check-ins on
+// different shards can be written at the same time.
+// The database is behind a Store: Firestore in the app (see CheckInService) and a FakeFirestore
+// in the load test, so both run these same steps. Every read and write is counted in the
+// FirestoreMeter under the "check in" flow, also when a full shard makes us try another one.
+public class CheckIn {
+
+    // What happened when the user tried to check in
+    public enum Result {
+        CHECKED_IN,
+        ALREADY_CHECKED_IN,
+        LIMIT_REACHED,
+        EVENT_NOT_FOUND,
+        // The event was created before the counter existed and has to be migrated first.
+        // The check-in ends with this when someone else is migrating the event right now.
+        NEEDS_MIGRATION,
+        // The counter shard we tried is full, another shard is tried before giving up
+        SHARD_FULL
+    }
+
+    public interface Callback {
+        void onResult(Result result);
+        void onError(Exception error);
+    }
+
+    // How the migration of an event went
+    public interface MigrationCallback {
+        // The event has its counter now, the check-in can try again
+        void onMigrated();
+        // Someone else is migrating the event right now
+        void onBusy();
+        void onError(Exception error);
+    }
+
+    // The reads and writes of one transaction, by document path like "events/e1".
+    // All reads have to happen before any write.
+    public interface Transaction {
+        // The fields of the document, or null if it doesn't exist
+        Map<String, Object> get(String path) throws Exception;
+        // Write the whole document
+        void set(String path, Map<String, Object> data);
+        // Write only these fields, the document is created if it doesn't exist
+        void merge(String path, Map<String, Object> fields);
+        // The value that the database turns into the time of the commit
+        Object serverTimestamp();
+    }
+
+    // The steps of one transaction
+    public interface TransactionFunction {
+        Result apply(Transaction transaction) throws Exception;
+    }
+
+    // The database the check-ins run against
+    public interface Store {
+        // Run the function in a transaction, again if someone else wrote what it read in between,
+        // and report the result of the run that was committed
+        void runTransaction(TransactionFunction function, Callback callback);
+
+        // Set up the counter of an event created before it existed
+        void migrate(String eventId, MigrationCallback callback);
+    }
+
+    // The most shards an event can have, a resize reads every shard in one transaction
+    public static final int MAX_SHARDS = 100;
+
+    // The collections and fields the check-in reads and writes
+    static final String EVENTS = "events";
+    static final String ATTENDANCE = "attendance";
+    static final String USERS = "users";
+    static final String ATTENDED_EVENTS = "attendedEvents";
+    public static final String SHARDS_COLLECTION = "counterShards";
+    public static final String SHARD_COUNT = "count";
+    static final String USER_ID = "userId";
+    static final String USERNAME = "username";
+    static final String PROFILE_IMAGE_URL = "profileImageUrl";
+    static final String CHECKIN_TIME = "checkinTime";
+
+    // Where the check-ins are written
+    private final Store store;
+    // Where their reads and writes are counted
+    private final FirestoreMeter meter;
+
+    public CheckIn(Store store, FirestoreMeter meter) {
+        this.store = store;
+        this.meter = meter;
+    }
+
+    // Check the user in to the event, if they are not checked in yet and the event is not full.
+    // Busy events start at firstShard, pick it at random so users don't collide.
+    public void checkIn(String eventId, String userId, int firstShard, Callback callback) {
+        meter.startRun(FirestoreMeter.CHECK_IN);
+        checkIn(eventId, userId, firstShard, 0, callback);
+    }
+
+    // Try to check in using one counter shard. If that shard is full, try the next one.
+    private void checkIn(String eventId, String userId, int firstShard, int attempt, Callback callback) {
+        // How many shards the event has and what the committed run wrote, set inside the transaction
+        int[] shardCount = {1};
+        int[] writes = {0};
+
+        store.runTransaction(transaction -> {
+            MeteredTransaction metered = new MeteredTransaction(transaction);
+            Result result = checkInOnce(metered, eventId, userId, firstShard, attempt, shardCount);
+            writes[0] = metered.writes;
+            return result;
+        }, new Callback() {
+            @Override
+            public void onResult(Result result) {
+                if (result == Result.CHECKED_IN) {
+                    // The attendance, the attended event and the counter or its shard
+                    meter.recordWrites(FirestoreMeter.CHECK_IN, writes[0]);
+                }
+                if (result == Result.NEEDS_MIGRATION) {
+                    // Set up the counter once for this event, then try again
+                    store.migrate(eventId, new MigrationCallback() {
+                        @Override
+                        public void onMigrated() {
+                            checkIn(eventId, userId, firstShard, attempt, callback);
+                        }
+
+                        @Override
+                        public void onBusy() {
+                            // Another check-in is migrating the event, the user can try again in a moment
+                            callback.onResult(Result.NEEDS_MIGRATION);
+                        }
+
+                        @Override
+                        public void onError(Exception error) {
+                            callback.onError(error);
+                        }
+                    });
+                } else if (result == Result.SHARD_FULL) {
+                    if (attempt + 1 < shardCount[0]) {
+                        // This shard is full, but the others may still have room.
+                        // That is one more transaction, its reads count for this check-in too.
+                        checkIn(eventId, userId, firstShard, attempt + 1, callback);
+                    } else {
+                        // Every shard is full, so the event is full
+                        callback.onResult(Result.LIMIT_REACHED);
+                    }
+                } else {
+                    callback.onResult(result);
+                }
+            }
+
+            @Override
+            public void onError(Exception error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    // The steps of one run of the check-in transaction
+    private static Result checkInOnce(Transaction transaction, String eventId, String userId,
+                                      int firstShard, int attempt, int[] shardCount) throws Exception {
+        String eventPath = EVENTS + "/" + eventId;
+        String attendancePath = eventPath + "/" + ATTENDANCE + "/" + userId;
+        // The user's list of events they checked in to
+        String attendedPath = USERS + "/" + userId + "/" + ATTENDED_EVENTS + "/" + eventId;
+
+        Map<String, Object> eventData = transaction.get(eventPath);
+        if (eventData == null) {
+            return Result.EVENT_NOT_FOUND;
+        }
+        if (!eventData.containsKey(EventMapper.ATTENDEE_COUNT)) {
+            return Result.NEEDS_MIGRATION;
+        }
+
+        // The user's attendance document has their user ID, so this is the duplicate check
+        if (transaction.get(attendancePath) != null) {
+            return Result.ALREADY_CHECKED_IN;
+        }
+
+        // The username and picture are copied into the attendance document, so the attendance
+        // list doesn't have to read the user. If the profile changes before this is written,
+        // the transaction runs again with the new one.
+        Map<String, Object> userData = transaction.get(USERS + "/" + userId);
+
+        Event event = EventMapper.fromMap(eventId, eventData);
+        long attendeeCount = event.getAttendeeCount();
+        long attendanceLimit = event.getAttendanceLimit();
+        shardCount[0] = Math.max(1, event.getCounterShards());
+
+        // The attendance: the user's ID, username and picture, and the check-in time
+        Object now = transaction.serverTimestamp();
+        Map<String, Object> attendanceData = new HashMap<>();
+        attendanceData.put(USER_ID, userId);
+        attendanceData.put(USERNAME, userData != null ? userData.get(USERNAME) : null);
+        attendanceData.put(PROFILE_IMAGE_URL, userData != null ? userData.get(PROFILE_IMAGE_URL) : null);
+        attendanceData.put(CHECKIN_TIME, now);
+        // The attended event: the summary of the event and the check-in time
+        Object thumbnailUrl = eventData.get(EventSummaryFields.THUMBNAIL_URL);
+        Map<String, Object> attendedData = new HashMap<>(EventSummaryFields.fieldsOf(event,
+                thumbnailUrl instanceof String ? (String) thumbnailUrl : null));
+        attendedData.put(CHECKIN_TIME, now);
+
+        if (shardCount[0] == 1) {
+            // Small events keep the counter on the event document
+            if (attendeeCount >= attendanceLimit) {
+                return Result.LIMIT_REACHED;
+            }
+            // The writes happen together, or not at all if someone else checked in at the same time
+            transaction.set(attendancePath, attendanceData);
+            transaction.set(attendedPath, attendedData);
+            transaction.merge(eventPath, Collections.<String, Object>singletonMap(
+                    EventMapper.ATTENDEE_COUNT, attendeeCount + 1));
+            return Result.CHECKED_IN;
+        }
+
+        // Busy events only touch one shard, so check-ins on different shards don't block each other.
+        // The counter on the event document holds the check-ins from before the event was sharded.
+        int shard = (firstShard + attempt) % shardCount[0];
+        String shardPath = shardPath(eventId, shard);
+        long shardValue = getLong(transaction.get(shardPath), SHARD_COUNT);
+        if (shardValue >= shardCapacity(attendanceLimit - attendeeCount, shardCount[0], shard)) {
+            return Result.SHARD_FULL;
+        }
+        transaction.set(attendancePath, attendanceData);
+        transaction.set(attendedPath, attendedData);
+        transaction.merge(shardPath, Collections.<String, Object>singletonMap(SHARD_COUNT, shardValue + 1));
+        return Result.CHECKED_IN;
+    }
+
+    // How many check-ins one shard may take. The remaining places are split evenly over the shards
+    // and the first shards take one extra each, so together they add up to exactly the limit.
+    public static long shardCapacity(long remaining, int shardCount, int shard) {
+        if (remaining <= 0) {
+            return 0;
+        }
+        return remaining / shardCount + (shard < remaining % shardCount ? 1 : 0);
+    }
+
+    // The path of the document that holds one shard of the event's counter
+    public static String shardPath(String eventId, int shard) {
+        return EVENTS + "/" + eventId + "/" + SHARDS_COLLECTION + "/" + shard;
+    }
+
+    // Read a number from the fields, or 0 if it is missing
+    private static long getLong(Map<String, Object> data, String field) {
+        Object value = data != null ? data.get(field) : null;
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    // Counts every read of a run in the meter, and the writes it makes.
+    // The transaction runs again when someone else wrote in between, and those reads count too.
+    // The writes only count for the run that was committed.
+    private class MeteredTransaction implements Transaction {
+        private final Transaction transaction;
+        int writes;
+
+        MeteredTransaction(Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public Map<String, Object> get(String path) throws Exception {
+            Map<String, Object> data = transaction.get(path);
+            // A missing document is a read too
+            meter.recordReads(FirestoreMeter.CHECK_IN, 1, FirestoreMeter.sizeOf(path, data));
+            return data;
+        }
+
+        @Override
+        public void set(String path, Map<String, Object> data) {
+            transaction.set(path, data);
+            writes++;
+        }
+
+        @Override
+        public void merge(String path, Map<String, Object> fields) {
+            transaction.merge(path, fields);
+            writes++;
+        }
+
+        @Override
+        public Object serverTimestamp() {
+            return transaction.serverTimestamp();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+// This describes one change to the list of events, just like a Firestore DocumentChange
+public class EventChange extends ListChange<Event> {
+
+    public EventChange(Type type, Event event, int oldIndex, int newIndex) {
+        super(type, event, oldIndex, newIndex);
+    }
+
+    public Event getEvent() { return getItem(); }
+}
@@ -0,0 +1,214 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// This class keeps an in-memory search index over the title and description of every event.
+// Each piece of three letters (a "trigram") points to the events that contain it,
+// so a search only has to look at the events that can possibly match.
+public class EventSearchIndex {
+
+    // Everything the index remembers about one event
+    private static class Entry {
+        Event event;
+        String title;        // The title in lower case
+        String description;  // The description in lower case
+        Set<String> trigrams;
+        long order;          // When the event was first added, used to keep results in order
+    }
+
+    // The events in the index, by event ID
+    private final Map<String, Entry> entries = new HashMap<>();
+    // For every trigram, the IDs of the events that contain it
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    // Counts up every time an event is added, so results keep a stable order
+    private long nextOrder;
+    // Counts up every time the index changes
+    private long version;
+
+    // The last search, so a longer query can narrow its results instead of starting over
+    private String lastQuery;
+    private List<Event> lastResults;
+    private long lastVersion;
+
+    // Apply the changes from the event repository to the index
+    public synchronized void apply(List<EventChange> changes) {
+        for (EventChange change : changes) {
+            if (change.getType() == EventChange.Type.REMOVED) {
+                remove(change.getEvent().getEventId());
+            } else {
+                put(change.getEvent());
+            }
+        }
+    }
+
+    // Add an event to the index, or replace the one with the same ID
+    public synchronized void put(Event event) {
+        Entry existing = entries.get(event.getEventId());
+        if (existing != null) {
+            removePostings(event.getEventId(), existing.trigrams);
+        }
+
+        Entry entry = new Entry();
+        entry.event = event;
+        entry.title = normalize(event.getTitle());
+        entry.description = normalize(event.getDescription());
+        entry.trigrams = new HashSet<>();
+        addTrigrams(entry.title, entry.trigrams);
+        addTrigrams(entry.description, entry.trigrams);
+        entry.order = existing != null ? existing.order : nextOrder++;
+        entries.put(event.getEventId(), entry);
+
+        for (String trigram : entry.trigrams) {
+            Set<String> ids = postings.get(trigram);
+            if (ids == null) {
+                ids = new HashSet<>();
+                postings.put(trigram, ids);
+            }
+            ids.add(event.getEventId());
+        }
+        version++;
+    }
+
+    // Make the index hold exactly these events, for example after listening again.
+    // Events that are still there keep their place in the results.
+    public synchronized void replaceAll(List<Event> events) {
+        Set<String> keep = new HashSet<>();
+        for (Event event : events) {
+            keep.add(event.getEventId());
+        }
+        for (String eventId : new ArrayList<>(entries.keySet())) {
+            if (!keep.contains(eventId)) {
+                remove(eventId);
+            }
+        }
+        for (Event event : events) {
+            put(event);
+        }
+    }
+
+    // Take an event out of the index
+    public synchronized void remove(String eventId) {
+        Entry entry = entries.remove(eventId);
+        if (entry != null) {
+            removePostings(eventId, entry.trigrams);
+            version++;
+        }
+    }
+
+    // The number of events in the index
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Find the events whose title or description contains the query (case-insensitive)
+    public synchronized List<Event> search(String query) {
+        String needle = normalize(query).trim();
+        if (needle.isEmpty()) {
+            lastQuery = null;
+            lastResults = null;
+            return Collections.emptyList();
+        }
+
+        List<Event> results;
+        if (lastQuery != null && lastVersion == version && needle.contains(lastQuery)) {
+            // The new query is longer than the last one, so only the last results can still match
+            results = new ArrayList<>();
+            for (Event event : lastResults) {
+                if (matches(entries.get(event.getEventId()), needle)) {
+                    results.add(event);
+                }
+            }
+        } else {
+            results = searchAll(needle);
+        }
+
+        lastQuery = needle;
+        lastResults = results;
+        lastVersion = version;
+        return Collections.unmodifiableList(results);
+    }
+
+    // Search the whole index for the query
+    private List<Event> searchAll(String needle) {
+        List<Entry> matches = new ArrayList<>();
+        if (needle.length() < 3) {
+            // Too short to have a trigram, look at every event
+            for (Entry entry : entries.values()) {
+                if (matches(entry, needle)) {
+                    matches.add(entry);
+                }
+            }
+        } else {
+            // Start from the trigram with the fewest events and check only those
+            Set<String> candidates = null;
+            for (String trigram : trigramsOf(needle)) {
+                Set<String> ids = postings.get(trigram);
+                if (ids == null) {
+                    return new ArrayList<>();
+                }
+                if (candidates == null || ids.size() < candidates.size()) {
+                    candidates = ids;
+                }
+            }
+            for (String id : candidates) {
+                Entry entry = entries.get(id);
+                if (matches(entry, needle)) {
+                    matches.add(entry);
+                }
+            }
+        }
+
+        // Keep the results in the order the events were added
+        Collections.sort(matches, (a, b) -> Long.compare(a.order, b.order));
+        List<Event> results = new ArrayList<>(matches.size());
+        for (Entry entry : matches) {
+            results.add(entry.event);
+        }
+        return results;
+    }
+
+    // Check if the title or description of the event contains the query
+    private static boolean matches(Entry entry, String needle) {
+        return entry != null && (entry.title.contains(needle) || entry.description.contains(needle));
+    }
+
+    // Forget that the event contains these trigrams
+    private void removePostings(String eventId, Set<String> trigrams) {
+        for (String trigram : trigrams) {
+            Set<String> ids = postings.get(trigram);
+            if (ids != null) {
+                ids.remove(eventId);
+                if (ids.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    // Every trigram in the text
+    private static Set<String> trigramsOf(String text) {
+        Set<String> trigrams = new HashSet<>();
+        addTrigrams(text, trigrams);
+        return trigrams;
+    }
+
+    private static void addTrigrams(String text, Set<String> trigrams) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + 3));
+        }
+    }
+
+    // Lower case text, with null treated as empty
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
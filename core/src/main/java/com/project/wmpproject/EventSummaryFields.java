@@ -0,0 +1,53 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+import com.project.wmpproject.model.EventMapper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// The fields of the small copy of an event that the lists read (see EventSummaries in the app).
+// A summary has the same field names as its event, so it reads into an Event too: the
+// description is cut short and imageUrl is the small picture.
+// The attendance limit is in it, so the details screen can show it before the full event arrives.
+// The attendee count and the counter shards are not: they change with every check-in and the
+// summary is only written when the event is, so they would be out of date. The details screen
+// counts the attendees itself.
+// The app writes these and the load test lays out its fake database with them, so both agree.
+public final class EventSummaryFields {
+
+    // The field of the full event with the URL of the small picture
+    public static final String THUMBNAIL_URL = "thumbnailUrl";
+    // How much of the description a summary keeps, the rows show about two lines
+    public static final int DESCRIPTION_LENGTH = 140;
+
+    private EventSummaryFields() {}
+
+    // The fields of the summary of the event. thumbnailUrl can be null for old events,
+    // the full picture is used then.
+    public static Map<String, Object> fieldsOf(Event event, String thumbnailUrl) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(EventMapper.EVENT_ID, event.getEventId());
+        fields.put(EventMapper.TITLE, event.getTitle());
+        fields.put(EventMapper.DESCRIPTION, shorten(event.getDescription(), DESCRIPTION_LENGTH));
+        fields.put(EventMapper.DATE_TIME, event.getDateTime());
+        fields.put(EventMapper.DATE_TIME_MILLIS, EventTime.millisOf(event));
+        fields.put(EventMapper.LOCATION, event.getLocation());
+        fields.put(EventMapper.ATTENDANCE_LIMIT, event.getAttendanceLimit());
+        fields.put(EventMapper.IMAGE_URL, thumbnailUrl != null ? thumbnailUrl : event.getImageUrl());
+        return fields;
+    }
+
+    // Cut the text after at most maxLength characters, at the end of a word if there is one
+    public static String shorten(String text, int maxLength) {
+        if (text == null || text.length() <= maxLength) {
+            return text;
+        }
+        int end = text.lastIndexOf(' ', maxLength);
+        if (end <= maxLength / 2) {
+            // One very long word, cut it in the middle
+            end = maxLength;
+        }
+        return text.substring(0, end).trim() + "...";
+    }
+}
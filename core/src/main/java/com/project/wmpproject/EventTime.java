@@ -0,0 +1,81 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+// This class turns the date and time of events into text and back.
+// SimpleDateFormat is slow to create and not safe to share between threads,
+// so every thread keeps its own copy of each format and reuses it.
+public final class EventTime {
+
+    // The format of Event.dateTime, for example 2024-05-31T18:30:00
+    public static final String DATE_TIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss";
+    public static final String DATE_PATTERN = "yyyy-MM-dd";
+    public static final String TIME_PATTERN = "HH:mm:ss";
+
+    // One day in milliseconds, used for range queries like "the next 7 days"
+    public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static final ThreadLocal<SimpleDateFormat> DATE_TIME = formatter(DATE_TIME_PATTERN);
+    private static final ThreadLocal<SimpleDateFormat> DATE = formatter(DATE_PATTERN);
+    private static final ThreadLocal<SimpleDateFormat> TIME = formatter(TIME_PATTERN);
+
+    private EventTime() {}
+
+    // Make a format for each thread that asks for it
+    private static ThreadLocal<SimpleDateFormat> formatter(String pattern) {
+        return new ThreadLocal<SimpleDateFormat>() {
+            @Override
+            protected SimpleDateFormat initialValue() {
+                SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.getDefault());
+                // Don't accept dates like 2024-13-45
+                format.setLenient(false);
+                return format;
+            }
+        };
+    }
+
+    // Turn "yyyy-MM-dd'T'HH:mm:ss" text into milliseconds since 1970
+    public static long parse(String dateTime) throws ParseException {
+        if (dateTime == null) {
+            throw new ParseException("No date", 0);
+        }
+        return DATE_TIME.get().parse(dateTime).getTime();
+    }
+
+    // Like parse, but returns 0 when the text is missing or not a valid date
+    public static long parseOrZero(String dateTime) {
+        try {
+            return parse(dateTime);
+        } catch (ParseException e) {
+            return 0;
+        }
+    }
+
+    // Turn milliseconds since 1970 into "yyyy-MM-dd'T'HH:mm:ss" text
+    public static String format(long millis) {
+        return DATE_TIME.get().format(new Date(millis));
+    }
+
+    // Only the date part, for the date field of the event forms
+    public static String formatDate(long millis) {
+        return DATE.get().format(new Date(millis));
+    }
+
+    // Only the time part, for the time field of the event forms
+    public static String formatTime(long millis) {
+        return TIME.get().format(new Date(millis));
+    }
+
+    // When the event happens in milliseconds. Old events only have the text, so it is parsed then.
+    public static long millisOf(Event event) {
+        if (event.getDateTimeMillis() != 0) {
+            return event.getDateTimeMillis();
+        }
+        return parseOrZero(event.getDateTime());
+    }
+}
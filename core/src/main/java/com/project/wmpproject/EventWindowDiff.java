@@ -0,0 +1,83 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// This class works out how the local copy of the events has to change to match what was
+// loaded from Firestore. The pages are loaded in date order from the start, so every event
+// up to the last loaded one is known: a stored event in that range that was not loaded has
+// been deleted. Stored events after the range are kept, unless there are no more pages.
+public final class EventWindowDiff {
+
+    // Events that are new or changed
+    public final List<Event> upserts;
+    // IDs of the events that are gone
+    public final List<String> deletes;
+
+    private EventWindowDiff(List<Event> upserts, List<String> deletes) {
+        this.upserts = upserts;
+        this.deletes = deletes;
+    }
+
+    // Whether nothing has to change
+    public boolean isEmpty() {
+        return upserts.isEmpty() && deletes.isEmpty();
+    }
+
+    // Compare two events the way Firestore orders the pages: by date, then by ID
+    public static int compareOrder(Event a, Event b) {
+        int byDate = Long.compare(a.getDateTimeMillis(), b.getDateTimeMillis());
+        if (byDate != 0) {
+            return byDate;
+        }
+        return a.getEventId().compareTo(b.getEventId());
+    }
+
+    // The last event in date order, or null if there are none
+    public static Event lastInOrder(List<Event> events) {
+        Event last = null;
+        for (Event event : events) {
+            if (last == null || compareOrder(event, last) > 0) {
+                last = event;
+            }
+        }
+        return last;
+    }
+
+    // Work out the changes.
+    // stored: the events in the local copy. loaded: the events loaded from Firestore.
+    // complete: true when the last page was reached, so nothing exists after the loaded events.
+    public static EventWindowDiff compute(List<Event> stored, List<Event> loaded, boolean complete) {
+        Map<String, Event> storedById = new HashMap<>();
+        for (Event event : stored) {
+            storedById.put(event.getEventId(), event);
+        }
+
+        List<Event> upserts = new ArrayList<>();
+        Map<String, Event> loadedById = new HashMap<>();
+        for (Event event : loaded) {
+            loadedById.put(event.getEventId(), event);
+            // Only write the events that are new or different
+            if (!event.equals(storedById.get(event.getEventId()))) {
+                upserts.add(event);
+            }
+        }
+
+        List<String> deletes = new ArrayList<>();
+        Event last = lastInOrder(loaded);
+        for (Event event : stored) {
+            if (loadedById.containsKey(event.getEventId())) {
+                continue;
+            }
+            // Gone if it should have been in the loaded range, or if there is nothing after it
+            if (complete || (last != null && compareOrder(event, last) <= 0)) {
+                deletes.add(event.getEventId());
+            }
+        }
+        return new EventWindowDiff(upserts, deletes);
+    }
+}
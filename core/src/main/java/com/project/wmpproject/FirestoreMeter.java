@@ -0,0 +1,315 @@
+package com.project.wmpproject;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// This class adds up what every user flow costs in Firestore: the documents read, the documents
+// written and about how many bytes came down. Reads are what we pay for most, and a change that
+// makes a screen read every document instead of one page is easy to miss, so every flow has a
+// budget of reads and writes per run. A run is one thing the user does: opening the screen, or
+// asking for one more page. Updates that a listener gets later are counted on top of the latest run.
+// Every run has to stay in the budget, not just the average of them.
+// How Firestore bills a result is worked out here too (recordQuery, ListenerReads), so the app
+// (see FirestoreUsage) and the tests count the same way.
+// The app warns in the log when a run went over its budget, and the tests check the budgets so
+// a flow that suddenly reads a whole collection fails the build.
+public class FirestoreMeter {
+
+    // The user flows, with the budget of one run
+    public static final String OPEN_FEED = "open feed";
+    public static final String ADMIN_EVENTS = "admin events";
+    public static final String OPEN_EVENT_DETAILS = "open event details";
+    public static final String CHECK_IN = "check in";
+    public static final String PROFILE = "profile";
+    public static final String ADD_EVENT = "add event";
+    public static final String EDIT_EVENT = "edit event";
+    public static final String DELETE_EVENT = "delete event";
+    // Flows that read or write in proportion to the data on purpose, they have no budget.
+    // The search index reads every event once and then only the changes.
+    public static final String SEARCH = "search";
+    public static final String PROFILE_FAN_OUT = "profile fan-out";
+    public static final String RESIZE_SHARDS = "resize shards";
+    public static final String MIGRATIONS = "migrations";
+
+    // The most reads and writes one run of a flow may take
+    public static class Budget {
+        public final long maxReads;
+        public final long maxWrites;
+
+        Budget(long maxReads, long maxWrites) {
+            this.maxReads = maxReads;
+            this.maxWrites = maxWrites;
+        }
+
+        @Override
+        public String toString() {
+            return "maxReads=" + maxReads + " maxWrites=" + maxWrites;
+        }
+    }
+
+    // What a flow cost so far
+    public static class Usage {
+        public final long runs;
+        public final long reads;
+        public final long writes;
+        public final long bytes;
+        // The most reads and writes one run took
+        public final long maxRunReads;
+        public final long maxRunWrites;
+
+        Usage(long runs, long reads, long writes, long bytes, long maxRunReads, long maxRunWrites) {
+            this.runs = runs;
+            this.reads = reads;
+            this.writes = writes;
+            this.bytes = bytes;
+            this.maxRunReads = maxRunReads;
+            this.maxRunWrites = maxRunWrites;
+        }
+
+        // Whether every single run stayed in the budget. Many cheap runs don't make up for one
+        // that read a whole collection. Flows without a budget always do.
+        public boolean isWithin(Budget budget) {
+            if (budget == null) {
+                return true;
+            }
+            return maxRunReads <= budget.maxReads && maxRunWrites <= budget.maxWrites;
+        }
+
+        @Override
+        public String toString() {
+            return "runs=" + runs + " reads=" + reads + " writes=" + writes + " bytes=" + bytes
+                    + " maxRunReads=" + maxRunReads + " maxRunWrites=" + maxRunWrites;
+        }
+    }
+
+    // A query result, as much of it as the meter needs to count it
+    public interface QueryResult {
+        // Whether it only came from the phone's cache
+        boolean isFromCache();
+        // The documents of the result, and about how many bytes they take
+        int documentCount();
+        long documentBytes();
+        // The documents that changed since the result before, and how many bytes they take
+        int changeCount();
+        long changeBytes();
+    }
+
+    // Counts the results of one real-time listener. The first result from the server pays for
+    // every document, the ones after it only for the documents that changed. Results that only
+    // came from the cache are free, also when they come first. Use one per listener, on one thread.
+    public static class ListenerReads {
+        private final FirestoreMeter meter;
+        private final String flow;
+        // Whether a result came from the server yet
+        private boolean fromServer;
+
+        public ListenerReads(FirestoreMeter meter, String flow) {
+            this.meter = meter;
+            this.flow = flow;
+        }
+
+        // Count the next result of the listener
+        public void record(QueryResult result) {
+            meter.recordQuery(flow, result, !fromServer);
+            if (!result.isFromCache()) {
+                fromServer = true;
+            }
+        }
+    }
+
+    // The pages the flows load, the same as the pagers of the app
+    public static final int EVENT_PAGE_SIZE = 20;
+    public static final int ATTENDANCE_PAGE_SIZE = 50;
+    public static final int HISTORY_PAGE_SIZE = 20;
+    // The listener on the first page of the feed counts its changes on top of the latest run,
+    // this allows a page of them
+    public static final int FEED_LIVE_CHANGES = EVENT_PAGE_SIZE;
+    // A count costs one read per thousand documents, this allows events with up to 10,000 attendees
+    public static final int COUNT_READS = 10;
+
+    private static final Map<String, Budget> BUDGETS;
+
+    static {
+        Map<String, Budget> budgets = new HashMap<>();
+        // One page of event summaries, however far the user scrolled, and the live changes of the first page
+        budgets.put(OPEN_FEED, new Budget(EVENT_PAGE_SIZE + FEED_LIVE_CHANGES, 0));
+        budgets.put(ADMIN_EVENTS, new Budget(EVENT_PAGE_SIZE + FEED_LIVE_CHANGES, 0));
+        // The event, a page of attendees, the count of the others and the first snapshot of the
+        // listener for new check-ins. The attendees have their name and picture copied in (the
+        // DataMigration did it for the old check-ins), so no users are read.
+        budgets.put(OPEN_EVENT_DETAILS, new Budget(1 + ATTENDANCE_PAGE_SIZE + COUNT_READS + 1, 0));
+        // The event, the attendance, the user and one counter shard. The attendance, the
+        // attended event and the counter are written.
+        budgets.put(CHECK_IN, new Budget(4, 3));
+        // The user and a page of the events they went to, then the user is saved
+        budgets.put(PROFILE, new Budget(1 + HISTORY_PAGE_SIZE, 1));
+        // The event and its summary
+        budgets.put(ADD_EVENT, new Budget(0, 2));
+        // The event, then the event and its summary
+        budgets.put(EDIT_EVENT, new Budget(1, 2));
+        budgets.put(DELETE_EVENT, new Budget(0, 2));
+        BUDGETS = Collections.unmodifiableMap(budgets);
+    }
+
+    // A count query costs one read per thousand documents it counts
+    private static final long DOCUMENTS_PER_COUNT_READ = 1000;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // The running totals of one flow
+    private static class Totals {
+        long runs;
+        long reads;
+        long writes;
+        long bytes;
+        // What the latest run took so far, and the most any run took
+        long runReads;
+        long runWrites;
+        long maxRunReads;
+        long maxRunWrites;
+    }
+
+    // The one meter used by the whole app
+    private static FirestoreMeter instance;
+
+    // The totals of every flow, by name
+    private final Map<String, Totals> totals = new HashMap<>();
+
+    // Get the meter shared by the whole app
+    public static synchronized FirestoreMeter get() {
+        if (instance == null) {
+            instance = new FirestoreMeter();
+        }
+        return instance;
+    }
+
+    // The budget of one run of the flow, or null if it has none
+    public static Budget budgetOf(String flow) {
+        return BUDGETS.get(flow);
+    }
+
+    // The user started the flow once more. What is counted from now on belongs to this run.
+    public synchronized void startRun(String flow) {
+        Totals flowTotals = totalsOf(flow);
+        flowTotals.runs++;
+        flowTotals.runReads = 0;
+        flowTotals.runWrites = 0;
+    }
+
+    // Count documents the flow read, with their size
+    public synchronized void recordReads(String flow, long documents, long bytes) {
+        Totals flowTotals = totalsOf(flow);
+        flowTotals.reads += documents;
+        flowTotals.bytes += bytes;
+        flowTotals.runReads += documents;
+        flowTotals.maxRunReads = Math.max(flowTotals.maxRunReads, flowTotals.runReads);
+    }
+
+    // Count documents the flow wrote
+    public synchronized void recordWrites(String flow, long documents) {
+        Totals flowTotals = totalsOf(flow);
+        flowTotals.writes += documents;
+        flowTotals.runWrites += documents;
+        flowTotals.maxRunWrites = Math.max(flowTotals.maxRunWrites, flowTotals.runWrites);
+    }
+
+    // Count a query result the way Firestore bills it. first says whether it is the result of a get(),
+    // or the first result of a listener, where every document is billed and a result without any
+    // documents still costs one read. Results that only came from the cache are free.
+    public void recordQuery(String flow, QueryResult result, boolean first) {
+        if (result.isFromCache()) {
+            return;
+        }
+        if (first) {
+            recordReads(flow, Math.max(1, result.documentCount()), result.documentBytes());
+        } else {
+            recordReads(flow, result.changeCount(), result.changeBytes());
+        }
+    }
+
+    // Count one document that was read on its own, a missing document (data is null) is a read too
+    public void recordDocument(String flow, boolean fromCache, String path, Map<String, Object> data) {
+        if (fromCache) {
+            return;
+        }
+        recordReads(flow, 1, sizeOf(path, data));
+    }
+
+    // Count a count query that counted the given number of documents
+    public void recordCount(String flow, long counted) {
+        recordReads(flow, Math.max(1, (counted + DOCUMENTS_PER_COUNT_READ - 1) / DOCUMENTS_PER_COUNT_READ), 0);
+    }
+
+    // What the flow cost so far
+    public synchronized Usage getUsage(String flow) {
+        Totals flowTotals = totals.get(flow);
+        if (flowTotals == null) {
+            return new Usage(0, 0, 0, 0, 0, 0);
+        }
+        return new Usage(flowTotals.runs, flowTotals.reads, flowTotals.writes, flowTotals.bytes,
+                flowTotals.maxRunReads, flowTotals.maxRunWrites);
+    }
+
+    // Whether the flow stayed in its budget so far
+    public boolean isWithinBudget(String flow) {
+        return getUsage(flow).isWithin(budgetOf(flow));
+    }
+
+    // About how many bytes a document takes, counted the way Firestore sizes documents:
+    // the path, every field name and value, and 32 bytes on top
+    public static long sizeOf(String path, Map<String, Object> data) {
+        long size = 16 + 32;
+        for (String segment : path.split("/")) {
+            size += stringSize(segment);
+        }
+        if (data != null) {
+            size += fieldsSize(data);
+        }
+        return size;
+    }
+
+    private static long fieldsSize(Map<?, ?> fields) {
+        long size = 0;
+        for (Map.Entry<?, ?> field : fields.entrySet()) {
+            size += stringSize(String.valueOf(field.getKey())) + valueSize(field.getValue());
+        }
+        return size;
+    }
+
+    private static long valueSize(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return 1;
+        }
+        if (value instanceof String) {
+            return stringSize((String) value);
+        }
+        if (value instanceof Map) {
+            return fieldsSize((Map<?, ?>) value);
+        }
+        if (value instanceof List) {
+            long size = 0;
+            for (Object item : (List<?>) value) {
+                size += valueSize(item);
+            }
+            return size;
+        }
+        // Numbers, dates and timestamps
+        return 8;
+    }
+
+    private static long stringSize(String value) {
+        return value.getBytes(UTF_8).length + 1;
+    }
+
+    private Totals totalsOf(String flow) {
+        Totals flowTotals = totals.get(flow);
+        if (flowTotals == null) {
+            flowTotals = new Totals();
+            totals.put(flow, flowTotals);
+        }
+        return flowTotals;
+    }
+}
@@ -0,0 +1,53 @@
+package com.project.wmpproject;
+
+import java.util.List;
+
+// This describes one change to a list, just like a Firestore DocumentChange.
+// The events (see EventChange) and the attendees of an event use it the same way.
+public class ListChange<T> {
+
+    // What happened to the item
+    public enum Type { ADDED, MODIFIED, REMOVED }
+
+    private final Type type;
+    private final T item;
+    // Where the item was before the change (-1 if it was just added)
+    private final int oldIndex;
+    // Where the item is after the change (-1 if it was removed)
+    private final int newIndex;
+
+    public ListChange(Type type, T item, int oldIndex, int newIndex) {
+        this.type = type;
+        this.item = item;
+        this.oldIndex = oldIndex;
+        this.newIndex = newIndex;
+    }
+
+    public Type getType() { return type; }
+    public T getItem() { return item; }
+    public int getOldIndex() { return oldIndex; }
+    public int getNewIndex() { return newIndex; }
+
+    // Apply the changes, in order, to the given list
+    public static <T> void applyAll(List<T> items, List<? extends ListChange<T>> changes) {
+        for (ListChange<T> change : changes) {
+            switch (change.type) {
+                case ADDED:
+                    items.add(change.newIndex, change.item);
+                    break;
+                case MODIFIED:
+                    if (change.oldIndex == change.newIndex) {
+                        items.set(change.newIndex, change.item);
+                    } else {
+                        // The item moved, take it out and put it back in its new place
+                        items.remove(change.oldIndex);
+                        items.add(change.newIndex, change.item);
+                    }
+                    break;
+                case REMOVED:
+                    items.remove(change.oldIndex);
+                    break;
+            }
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package com.project.wmpproject.model;
 
+import java.util.Objects;
+
+// This is plain Java, so it can be tested and benchmarked without a phone.
+// The app puts it in an EventParcel to hand it to the next screen.
 public class Event {
     // These are variables to store information about an event
     private String title;         // The name of the event
     private String description;  // A short text about the event
     private String dateTime;     // When the event happens
+    private long dateTimeMillis; // When the event happens, in milliseconds since 1970 (0 for old events)
     private String location;     // Where the event happens
     private String imageUrl;     // A link to a picture of the event
     private String eventId;      // A unique ID for the event
     private int attendanceLimit;
+    private int attendeeCount;   // How many people have checked in, kept up to date by check-in
+    private int counterShards;   // How many shards the check-in counter is spread over (0 or 1 means no shards)
 
     // This is like an empty container for an event
     public Event() {}
@@ -47,12 +54,53 @@ public class Event {
         this.eventId = eventId;
     }
 
+    // This sets when the event happens, in milliseconds since 1970
+    public void setDateTimeMillis(long dateTimeMillis) {
+        this.dateTimeMillis = dateTimeMillis;
+    }
+
+    // This sets how many people have checked in
+    public void setAttendeeCount(int attendeeCount) {
+        this.attendeeCount = attendeeCount;
+    }
+
+    // This sets how many shards the check-in counter is spread over
+    public void setCounterShards(int counterShards) {
+        this.counterShards = counterShards;
+    }
+
     // These functions allow other parts of the code to get the information about the event
     public String getTitle() { return title; }
     public String getDescription() { return description; }
     public String getDateTime() { return dateTime; }
+    public long getDateTimeMillis() { return dateTimeMillis; }
     public String getLocation() { return location; }
     public String getImageUrl() { return imageUrl; }
     public String getEventId() { return eventId; }
     public int getAttendanceLimit() { return attendanceLimit; }
+    public int getAttendeeCount() { return attendeeCount; }
+    public int getCounterShards() { return counterShards; }
+
+    // Two events are equal when all of their information is the same
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Event)) return false;
+        Event other = (Event) o;
+        return attendanceLimit == other.attendanceLimit
+                && attendeeCount == other.attendeeCount
+                && counterShards == other.counterShards
+                && dateTimeMillis == other.dateTimeMillis
+                && Objects.equals(title, other.title)
+                && Objects.equals(description, other.description)
+                && Objects.equals(dateTime, other.dateTime)
+                && Objects.equals(location, other.location)
+                && Objects.equals(imageUrl, other.imageUrl)
+                && Objects.equals(eventId, other.eventId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(title, description, dateTime, dateTimeMillis, location, imageUrl, eventId, attendanceLimit, attendeeCount, counterShards);
+    }
 }
\ No newline at end of file
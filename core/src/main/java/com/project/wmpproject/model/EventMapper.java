@@ -0,0 +1,77 @@
+package com.project.wmpproject.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// This class turns the data of an event document into an Event and back, without reflection.
+// document.toObject(Event.class) looks up the fields of Event by reflection and converts every
+// value for every document. This reads each field straight from the document's data instead.
+// The field names are the ones Firestore made from the getters, so old documents read the same.
+public final class EventMapper {
+
+    // The fields of an event document
+    public static final String TITLE = "title";
+    public static final String DESCRIPTION = "description";
+    public static final String DATE_TIME = "dateTime";
+    public static final String DATE_TIME_MILLIS = "dateTimeMillis";
+    public static final String LOCATION = "location";
+    public static final String IMAGE_URL = "imageUrl";
+    public static final String EVENT_ID = "eventId";
+    public static final String ATTENDANCE_LIMIT = "attendanceLimit";
+    public static final String ATTENDEE_COUNT = "attendeeCount";
+    public static final String COUNTER_SHARDS = "counterShards";
+
+    // How many fields toMap() writes, so the map never has to grow
+    private static final int FIELD_COUNT = 10;
+
+    private EventMapper() {}
+
+    // The event in the data of a document, or null if there is no data (the document doesn't exist).
+    // The event ID is the ID of the document, like it was after toObject().
+    public static Event fromMap(String eventId, Map<String, Object> data) {
+        if (data == null) {
+            return null;
+        }
+        Event event = new Event(
+                getString(data, TITLE),
+                getString(data, DESCRIPTION),
+                getString(data, DATE_TIME),
+                getString(data, LOCATION),
+                getString(data, IMAGE_URL),
+                eventId,
+                (int) getLong(data, ATTENDANCE_LIMIT));
+        event.setDateTimeMillis(getLong(data, DATE_TIME_MILLIS));
+        event.setAttendeeCount((int) getLong(data, ATTENDEE_COUNT));
+        event.setCounterShards((int) getLong(data, COUNTER_SHARDS));
+        return event;
+    }
+
+    // The data to write for the event with set(), the same fields toObject() reads
+    public static Map<String, Object> toMap(Event event) {
+        // The capacity keeps FIELD_COUNT entries under the default load factor
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 4 / 3 + 1);
+        data.put(TITLE, event.getTitle());
+        data.put(DESCRIPTION, event.getDescription());
+        data.put(DATE_TIME, event.getDateTime());
+        data.put(DATE_TIME_MILLIS, event.getDateTimeMillis());
+        data.put(LOCATION, event.getLocation());
+        data.put(IMAGE_URL, event.getImageUrl());
+        data.put(EVENT_ID, event.getEventId());
+        data.put(ATTENDANCE_LIMIT, event.getAttendanceLimit());
+        data.put(ATTENDEE_COUNT, event.getAttendeeCount());
+        data.put(COUNTER_SHARDS, event.getCounterShards());
+        return data;
+    }
+
+    // A text field, or null if it is missing or not text
+    static String getString(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof String ? (String) value : null;
+    }
+
+    // A number field, or 0 if it is missing or not a number. Firestore gives back whole numbers as Long.
+    static long getLong(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+}
@@ -0,0 +1,92 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EventSearchIndexTest {
+
+    private EventSearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new EventSearchIndex();
+        index.put(event("e1", "Java Workshop", "Learn the basics of Android"));
+        index.put(event("e2", "Music Night", "Live jazz on campus"));
+        index.put(event("e3", "Hackathon", "Build an android app in a weekend"));
+    }
+
+    @Test
+    public void search_matchesTitleAndDescription_caseInsensitive() {
+        assertEquals(ids("e1", "e3"), idsOf(index.search("ANDROID")));
+        assertEquals(ids("e2"), idsOf(index.search("music")));
+    }
+
+    @Test
+    public void search_shortQueriesStillMatch() {
+        assertEquals(ids("e1", "e2"), idsOf(index.search("ja")));
+    }
+
+    @Test
+    public void search_unknownTrigramMatchesNothing() {
+        assertTrue(index.search("xyz").isEmpty());
+    }
+
+    @Test
+    public void search_longerQueryNarrowsPreviousResults() {
+        assertEquals(ids("e1", "e3"), idsOf(index.search("and")));
+        assertEquals(ids("e3"), idsOf(index.search("android app")));
+    }
+
+    @Test
+    public void search_afterChangesDoesNotNarrowStaleResults() {
+        assertEquals(ids("e2"), idsOf(index.search("jaz")));
+
+        List<EventChange> changes = new ArrayList<>();
+        changes.add(new EventChange(EventChange.Type.MODIFIED, event("e1", "Jazz Workshop", ""), 0, 0));
+        changes.add(new EventChange(EventChange.Type.REMOVED, event("e2", "", ""), 1, -1));
+        index.apply(changes);
+
+        assertEquals(ids("e1"), idsOf(index.search("jazz")));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void replaceAll_dropsEventsThatAreGoneAndKeepsOrder() {
+        List<Event> current = new ArrayList<>();
+        current.add(event("e3", "Hackathon", "Build an android app in a weekend"));
+        current.add(event("e1", "Java Workshop", "Learn the basics of Android"));
+
+        index.replaceAll(current);
+
+        assertEquals(2, index.size());
+        assertEquals(ids("e1", "e3"), idsOf(index.search("android")));
+        assertTrue(index.search("music").isEmpty());
+    }
+
+    private static Event event(String id, String title, String description) {
+        return new Event(title, description, "2024-01-01T10:00:00", "Hall", "url", id, 10);
+    }
+
+    private static List<String> ids(String... ids) {
+        List<String> list = new ArrayList<>();
+        for (String id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static List<String> idsOf(List<Event> events) {
+        List<String> list = new ArrayList<>();
+        for (Event event : events) {
+            list.add(event.getEventId());
+        }
+        return list;
+    }
+}
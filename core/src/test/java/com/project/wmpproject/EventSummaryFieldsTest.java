@@ -0,0 +1,58 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+import com.project.wmpproject.model.EventMapper;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EventSummaryFieldsTest {
+
+    @Test
+    public void shortTextIsKept() {
+        assertEquals("A short description", EventSummaryFields.shorten("A short description", 140));
+        assertNull(EventSummaryFields.shorten(null, 140));
+    }
+
+    @Test
+    public void longTextIsCutAtTheEndOfAWord() {
+        String shortened = EventSummaryFields.shorten("Bring your own laptop and charger", 20);
+        assertEquals("Bring your own...", shortened);
+    }
+
+    @Test
+    public void oneLongWordIsCutInTheMiddle() {
+        assertEquals("abcdefghij...", EventSummaryFields.shorten("abcdefghijklmnopqrstuvwxyz", 10));
+    }
+
+    @Test
+    public void summaryUsesTheThumbnailAndTheEventFieldNames() {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            description.append("word ");
+        }
+        Event event = new Event("Title", description.toString(), "2024-05-01T18:30:00", "Hall",
+                "https://example.com/full.webp", "event1", 50);
+
+        Map<String, Object> fields = EventSummaryFields.fieldsOf(event, "https://example.com/small.webp");
+        assertEquals("event1", fields.get(EventMapper.EVENT_ID));
+        assertEquals("https://example.com/small.webp", fields.get(EventMapper.IMAGE_URL));
+        assertTrue(((String) fields.get(EventMapper.DESCRIPTION)).length() <= EventSummaryFields.DESCRIPTION_LENGTH + 3);
+        // Old events only have the text, the summary still gets the date in milliseconds
+        assertEquals(EventTime.parseOrZero("2024-05-01T18:30:00"), fields.get(EventMapper.DATE_TIME_MILLIS));
+        // The limit doesn't change with check-ins, the counters do and are left out
+        assertEquals(50, fields.get(EventMapper.ATTENDANCE_LIMIT));
+        assertFalse(fields.containsKey(EventMapper.ATTENDEE_COUNT));
+        assertFalse(fields.containsKey(EventMapper.COUNTER_SHARDS));
+    }
+
+    @Test
+    public void oldEventsWithoutThumbnailUseTheFullPicture() {
+        Event event = new Event("Title", "Text", "2024-05-01T18:30:00", "Hall",
+                "https://example.com/full.webp", "event1", 50);
+        assertEquals("https://example.com/full.webp", EventSummaryFields.fieldsOf(event, null).get(EventMapper.IMAGE_URL));
+    }
+}
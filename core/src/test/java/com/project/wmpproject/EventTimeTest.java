@@ -0,0 +1,78 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class EventTimeTest {
+
+    @Test
+    public void parseAndFormat_roundTrip() throws ParseException {
+        long millis = EventTime.parse("2024-05-31T18:30:00");
+        assertEquals("2024-05-31T18:30:00", EventTime.format(millis));
+        assertEquals("2024-05-31", EventTime.formatDate(millis));
+        assertEquals("18:30:00", EventTime.formatTime(millis));
+    }
+
+    @Test
+    public void parse_ordersLikeTheDates() throws ParseException {
+        assertTrue(EventTime.parse("2024-05-31T18:30:00") < EventTime.parse("2024-06-01T08:00:00"));
+    }
+
+    @Test
+    public void parseOrZero_invalidOrMissingText() {
+        assertEquals(0, EventTime.parseOrZero(null));
+        assertEquals(0, EventTime.parseOrZero("tomorrow"));
+        assertEquals(0, EventTime.parseOrZero("2024-13-45T10:00:00"));
+    }
+
+    @Test
+    public void millisOf_prefersTheStoredNumber() throws ParseException {
+        Event legacy = new Event("Talk", "", "2024-05-31T18:30:00", "", "");
+        assertEquals(EventTime.parse("2024-05-31T18:30:00"), EventTime.millisOf(legacy));
+
+        Event migrated = new Event("Talk", "", "not a date", "", "");
+        migrated.setDateTimeMillis(1234L);
+        assertEquals(1234L, EventTime.millisOf(migrated));
+    }
+
+    @Test
+    public void parse_isSafeOnManyThreads() throws Exception {
+        String[] dates = {"2024-01-15T09:00:00", "2023-12-31T23:59:59", "2025-07-04T12:30:00"};
+        long[] expected = new long[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            expected[i] = EventTime.parse(dates[i]);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    for (int n = 0; n < 2000; n++) {
+                        int i = n % dates.length;
+                        if (EventTime.parse(dates[i]) != expected[i]
+                                || !EventTime.format(expected[i]).equals(dates[i])) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
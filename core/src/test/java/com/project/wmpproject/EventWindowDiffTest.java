@@ -0,0 +1,73 @@
+package com.project.wmpproject;
+
+import com.project.wmpproject.model.Event;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EventWindowDiffTest {
+
+    @Test
+    public void compute_onlyWritesNewAndChangedEvents() {
+        List<Event> stored = Arrays.asList(event("a", 100, "Talk"), event("b", 200, "Workshop"));
+        List<Event> loaded = Arrays.asList(event("a", 100, "Talk"), event("b", 200, "Workshop (moved)"),
+                event("c", 300, "Party"));
+
+        EventWindowDiff diff = EventWindowDiff.compute(stored, loaded, false);
+
+        assertEquals(Arrays.asList("b", "c"), ids(diff.upserts));
+        assertTrue(diff.deletes.isEmpty());
+    }
+
+    @Test
+    public void compute_deletesMissingEventsInsideTheLoadedRange() {
+        List<Event> stored = Arrays.asList(event("a", 100, "Talk"), event("b", 200, "Workshop"),
+                event("z", 900, "Later"));
+        List<Event> loaded = Arrays.asList(event("a", 100, "Talk"), event("c", 300, "Party"));
+
+        EventWindowDiff diff = EventWindowDiff.compute(stored, loaded, false);
+
+        // "b" should have been loaded, "z" is after the loaded pages so we don't know yet
+        assertEquals(Collections.singletonList("b"), diff.deletes);
+    }
+
+    @Test
+    public void compute_sameTimeIsOrderedById() {
+        List<Event> stored = Arrays.asList(event("a", 100, "Talk"), event("b", 100, "Other talk"));
+        List<Event> loaded = Collections.singletonList(event("a", 100, "Talk"));
+
+        // "b" comes after "a" at the same time, so it is outside the loaded range
+        assertTrue(EventWindowDiff.compute(stored, loaded, false).isEmpty());
+    }
+
+    @Test
+    public void compute_completeListDeletesEverythingElse() {
+        List<Event> stored = Arrays.asList(event("a", 100, "Talk"), event("z", 900, "Later"));
+
+        EventWindowDiff diff = EventWindowDiff.compute(stored, Collections.singletonList(event("a", 100, "Talk")), true);
+        assertEquals(Collections.singletonList("z"), diff.deletes);
+
+        EventWindowDiff emptied = EventWindowDiff.compute(stored, new ArrayList<>(), true);
+        assertEquals(Arrays.asList("a", "z"), emptied.deletes);
+    }
+
+    private static Event event(String id, long millis, String title) {
+        Event event = new Event(title, "", "", "", "", id, 10);
+        event.setDateTimeMillis(millis);
+        return event;
+    }
+
+    private static List<String> ids(List<Event> events) {
+        List<String> ids = new ArrayList<>();
+        for (Event event : events) {
+            ids.add(event.getEventId());
+        }
+        return ids;
+    }
+}
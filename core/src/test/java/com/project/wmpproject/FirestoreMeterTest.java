@@ -0,0 +1,145 @@
+package com.project.wmpproject;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FirestoreMeterTest {
+
+    @Test
+    public void usageIsKeptPerFlow() {
+        FirestoreMeter meter = new FirestoreMeter();
+        meter.startRun(FirestoreMeter.OPEN_FEED);
+        meter.recordReads(FirestoreMeter.OPEN_FEED, 20, 4000);
+        meter.startRun(FirestoreMeter.CHECK_IN);
+        meter.recordReads(FirestoreMeter.CHECK_IN, 3, 300);
+        meter.recordWrites(FirestoreMeter.CHECK_IN, 3);
+
+        FirestoreMeter.Usage feed = meter.getUsage(FirestoreMeter.OPEN_FEED);
+        assertEquals(1, feed.runs);
+        assertEquals(20, feed.reads);
+        assertEquals(0, feed.writes);
+        assertEquals(4000, feed.bytes);
+        assertEquals(3, meter.getUsage(FirestoreMeter.CHECK_IN).writes);
+        assertEquals(0, meter.getUsage(FirestoreMeter.PROFILE).runs);
+    }
+
+    @Test
+    public void budgetIsPerRun() {
+        FirestoreMeter meter = new FirestoreMeter();
+        meter.startRun(FirestoreMeter.OPEN_FEED);
+        meter.startRun(FirestoreMeter.OPEN_FEED);
+        meter.recordReads(FirestoreMeter.OPEN_FEED, 2 * FirestoreMeter.EVENT_PAGE_SIZE, 0);
+        assertTrue(meter.isWithinBudget(FirestoreMeter.OPEN_FEED));
+
+        // Reading the whole collection instead of a page
+        meter.recordReads(FirestoreMeter.OPEN_FEED, 1000, 0);
+        assertFalse(meter.isWithinBudget(FirestoreMeter.OPEN_FEED));
+
+        // Flows without a budget are never over it
+        meter.recordReads(FirestoreMeter.SEARCH, 10000, 0);
+        assertNull(FirestoreMeter.budgetOf(FirestoreMeter.SEARCH));
+        assertTrue(meter.isWithinBudget(FirestoreMeter.SEARCH));
+    }
+
+    @Test
+    public void oneExpensiveRunIsOverBudgetWhateverTheOthers() {
+        FirestoreMeter meter = new FirestoreMeter();
+        for (int i = 0; i < 20; i++) {
+            meter.startRun(FirestoreMeter.CHECK_IN);
+            meter.recordReads(FirestoreMeter.CHECK_IN, 1, 0);
+        }
+        // One check-in that read ten documents, the average is still under four
+        meter.startRun(FirestoreMeter.CHECK_IN);
+        meter.recordReads(FirestoreMeter.CHECK_IN, 10, 0);
+
+        FirestoreMeter.Usage usage = meter.getUsage(FirestoreMeter.CHECK_IN);
+        assertEquals(10, usage.maxRunReads);
+        assertFalse(meter.isWithinBudget(FirestoreMeter.CHECK_IN));
+    }
+
+    @Test
+    public void listenerPaysForEveryDocumentOnceTheServerAnswers() {
+        FirestoreMeter meter = new FirestoreMeter();
+        FirestoreMeter.ListenerReads reads = new FirestoreMeter.ListenerReads(meter, FirestoreMeter.OPEN_FEED);
+        meter.startRun(FirestoreMeter.OPEN_FEED);
+
+        // The cache answers first, that is free
+        reads.record(new Result(true, 20, 2));
+        assertEquals(0, meter.getUsage(FirestoreMeter.OPEN_FEED).reads);
+        // The first result from the server pays for every document
+        reads.record(new Result(false, 20, 2));
+        assertEquals(20, meter.getUsage(FirestoreMeter.OPEN_FEED).reads);
+        // After that only the changes
+        reads.record(new Result(false, 20, 2));
+        assertEquals(22, meter.getUsage(FirestoreMeter.OPEN_FEED).reads);
+    }
+
+    @Test
+    public void emptyResultsAndCountsStillCostARead() {
+        FirestoreMeter meter = new FirestoreMeter();
+        meter.recordQuery(FirestoreMeter.PROFILE, new Result(false, 0, 0), true);
+        assertEquals(1, meter.getUsage(FirestoreMeter.PROFILE).reads);
+
+        meter.recordCount(FirestoreMeter.OPEN_EVENT_DETAILS, 0);
+        meter.recordCount(FirestoreMeter.OPEN_EVENT_DETAILS, 1001);
+        assertEquals(3, meter.getUsage(FirestoreMeter.OPEN_EVENT_DETAILS).reads);
+
+        meter.recordDocument(FirestoreMeter.EDIT_EVENT, true, "events/e1", null);
+        meter.recordDocument(FirestoreMeter.EDIT_EVENT, false, "events/e1", null);
+        assertEquals(1, meter.getUsage(FirestoreMeter.EDIT_EVENT).reads);
+    }
+
+    @Test
+    public void sizeCountsPathFieldsAndValues() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("title", "Chess");   // 6 + 6
+        data.put("limit", 10L);       // 6 + 8
+        data.put("open", true);       // 5 + 1
+        data.put("note", null);       // 5 + 1
+        // "events" 7 + "e1" 3 + 16 for the name, 32 for the document
+        assertEquals(7 + 3 + 16 + 32 + 12 + 14 + 6 + 6, FirestoreMeter.sizeOf("events/e1", data));
+        assertEquals(7 + 3 + 16 + 32, FirestoreMeter.sizeOf("events/e1", null));
+    }
+
+    // A result with the given documents and changes, of 100 bytes each
+    private static class Result implements FirestoreMeter.QueryResult {
+        private final boolean fromCache;
+        private final int documents;
+        private final int changes;
+
+        Result(boolean fromCache, int documents, int changes) {
+            this.fromCache = fromCache;
+            this.documents = documents;
+            this.changes = changes;
+        }
+
+        @Override
+        public boolean isFromCache() {
+            return fromCache;
+        }
+
+        @Override
+        public int documentCount() {
+            return documents;
+        }
+
+        @Override
+        public long documentBytes() {
+            return documents * 100L;
+        }
+
+        @Override
+        public int changeCount() {
+            return changes;
+        }
+
+        @Override
+        public long changeBytes() {
+            return changes * 100L;
+        }
+    }
+}
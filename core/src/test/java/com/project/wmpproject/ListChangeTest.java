@@ -0,0 +1,30 @@
+package com.project.wmpproject;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ListChangeTest {
+
+    @Test
+    public void changesAreAppliedInOrder() {
+        List<String> items = new ArrayList<>(Arrays.asList("a", "b", "c"));
+        ListChange.applyAll(items, Arrays.asList(
+                // Each index counts the changes before it as already applied
+                new ListChange<>(ListChange.Type.REMOVED, "a", 0, -1),
+                new ListChange<>(ListChange.Type.ADDED, "d", -1, 2),
+                new ListChange<>(ListChange.Type.MODIFIED, "b", 0, 1)));
+        assertEquals(Arrays.asList("c", "b", "d"), items);
+    }
+
+    @Test
+    public void modifiedInPlaceReplacesTheItem() {
+        List<String> items = new ArrayList<>(Arrays.asList("a", "b"));
+        ListChange.applyAll(items, Arrays.asList(new ListChange<>(ListChange.Type.MODIFIED, "B", 1, 1)));
+        assertEquals(Arrays.asList("a", "B"), items);
+    }
+}
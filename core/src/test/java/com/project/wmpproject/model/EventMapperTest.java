@@ -0,0 +1,53 @@
+package com.project.wmpproject.model;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EventMapperTest {
+
+    @Test
+    public void writtenEventReadsBackTheSame() {
+        Event event = new Event("Title", "Description", "2024-05-01T18:30:00", "Hall",
+                "https://example.com/full.webp", "event1", 50);
+        event.setDateTimeMillis(1714588200000L);
+        event.setAttendeeCount(12);
+        event.setCounterShards(4);
+
+        Map<String, Object> data = EventMapper.toMap(event);
+        assertEquals(10, data.size());
+        assertEquals(event, EventMapper.fromMap("event1", data));
+    }
+
+    @Test
+    public void firestoreNumbersAreLongs() {
+        Map<String, Object> data = new HashMap<>();
+        data.put(EventMapper.TITLE, "Title");
+        data.put(EventMapper.ATTENDANCE_LIMIT, 50L);
+        data.put(EventMapper.ATTENDEE_COUNT, 7L);
+
+        Event event = EventMapper.fromMap("event1", data);
+        assertEquals(50, event.getAttendanceLimit());
+        assertEquals(7, event.getAttendeeCount());
+    }
+
+    @Test
+    public void missingFieldsAreEmptyAndTheIdComesFromTheDocument() {
+        Map<String, Object> data = new HashMap<>();
+        data.put(EventMapper.EVENT_ID, "old id");
+
+        Event event = EventMapper.fromMap("event1", data);
+        assertEquals("event1", event.getEventId());
+        assertNull(event.getTitle());
+        assertEquals(0, event.getDateTimeMillis());
+        assertEquals(0, event.getCounterShards());
+    }
+
+    @Test
+    public void missingDocumentIsNull() {
+        assertNull(EventMapper.fromMap("event1", null));
+    }
+}
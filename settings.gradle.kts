@@ -21,3 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "WMP Project"
 include(":app")
+include(":core")
+include(":benchmarks")